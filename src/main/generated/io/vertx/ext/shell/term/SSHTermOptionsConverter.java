@@ -54,6 +54,21 @@ public class SSHTermOptionsConverter {
             obj.setIntputrc((String)member.getValue());
           }
           break;
+        case "useEventLoopGroup":
+          if (member.getValue() instanceof Boolean) {
+            obj.setUseEventLoopGroup((Boolean)member.getValue());
+          }
+          break;
+        case "fileTransfer":
+          if (member.getValue() instanceof Boolean) {
+            obj.setFileTransfer((Boolean)member.getValue());
+          }
+          break;
+        case "fileTransferWritable":
+          if (member.getValue() instanceof Boolean) {
+            obj.setFileTransferWritable((Boolean)member.getValue());
+          }
+          break;
       }
     }
   }
@@ -76,5 +91,8 @@ public class SSHTermOptionsConverter {
     if (obj.getIntputrc() != null) {
       json.put("intputrc", obj.getIntputrc());
     }
+    json.put("useEventLoopGroup", obj.isUseEventLoopGroup());
+    json.put("fileTransfer", obj.isFileTransfer());
+    json.put("fileTransferWritable", obj.isFileTransferWritable());
   }
 }
@@ -38,6 +38,7 @@ import io.vertx.core.cli.Argument;
 import io.vertx.core.cli.CLI;
 import io.vertx.core.cli.CommandLine;
 import io.vertx.core.cli.Option;
+import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.JksOptions;
 import io.vertx.ext.shell.Shell;
@@ -401,6 +402,21 @@ public class ShellExamples {
     tty.write("Hello World");
   }
 
+  public void writeStdoutFlowControl(CommandBuilder command) {
+    command.processHandler(process -> {
+      MessageConsumer<String> consumer = process.vertx().eventBus().consumer("the-address");
+      consumer.handler(msg -> {
+        process.write(msg.body() + "\n");
+        if (process.writeQueueFull()) {
+          consumer.pause();
+        }
+      });
+      process.drainHandler(v -> consumer.resume());
+      process.interruptHandler(v -> process.end());
+      process.endHandler(v -> consumer.unregister());
+    });
+  }
+
   public void terminalSize(Tty tty) {
     tty.write("Current terminal size: (" + tty.width() + ", " + tty.height() + ")");
   }
@@ -32,10 +32,9 @@
 
 package io.vertx.ext.shell.cli.impl;
 
-import io.termd.core.readline.LineStatus;
 import io.vertx.ext.shell.cli.CliToken;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -43,17 +42,29 @@ import java.util.List;
  */
 public class CliTokenImpl implements CliToken {
 
+  private static final String SPACE = " ";
+
   final boolean text;
-  final String raw;
   final String value;
+  final String line; // The line the token belongs to
+  final int from; // The token start offset in the line
+  final int to; // The token end offset in the line
+  private String raw;
 
   public CliTokenImpl(boolean text, String value) {
     this(text, value, value);
   }
 
   public CliTokenImpl(boolean text, String raw, String value) {
-    this.text = text;
+    this(text, raw, 0, raw.length(), value);
     this.raw = raw;
+  }
+
+  private CliTokenImpl(boolean text, String line, int from, int to, String value) {
+    this.text = text;
+    this.line = line;
+    this.from = from;
+    this.to = to;
     this.value = value;
   }
 
@@ -68,6 +79,9 @@ public class CliTokenImpl implements CliToken {
   }
 
   public String raw() {
+    if (raw == null) {
+      raw = line.substring(from, to);
+    }
     return raw;
   }
 
@@ -97,63 +111,93 @@ public class CliTokenImpl implements CliToken {
   }
 
   public static List<CliToken> tokenize(String s) {
-
-    List<CliToken> tokens = new LinkedList<>();
-
-    tokenize(s, 0, tokens);
-
-    return tokens;
-
-  }
-
-  private static void tokenize(String s, int index, List<CliToken> builder) {
+    List<CliToken> tokens = new ArrayList<>();
+    StringBuilder buffer = new StringBuilder();
+    int index = 0;
     while (index < s.length()) {
-      char c = s.charAt(index);
-      switch (c) {
-        case ' ':
-        case '\t':
-          index = blankToken(s, index, builder);
-          break;
-        default:
-          index = textToken(s, index, builder);
-          break;
+      if (isBlank(s.charAt(index))) {
+        index = blankToken(s, index, tokens);
+      } else {
+        index = textToken(s, index, tokens, buffer);
       }
     }
+    return tokens;
   }
 
-  // Todo use code points and not chars
-  private static int textToken(String s, int index, List<CliToken> builder) {
-    LineStatus quoter = new LineStatus();
+  /**
+   * Parse a text token, the value is copied in the buffer only when the token contains quotes or escapes.
+   * An unquoted {@code |}, {@code &}, {@code >} or {@code >>} operator ends the current token and is a token on its own.
+   */
+  private static int textToken(String s, int index, List<CliToken> tokens, StringBuilder buffer) {
     int from = index;
-    StringBuilder value = new StringBuilder();
+    boolean copy = false;
+    boolean escaped = false;
+    int quote = 0;
     while (index < s.length()) {
-      char c = s.charAt(index);
-      quoter.accept(c);
-      if (!quoter.isQuoted() && !quoter.isEscaped() && isBlank(c)) {
+      int cp = s.codePointAt(index);
+      if (escaped) {
+        escaped = false;
+        if (quote == '"' && cp != '"') {
+          buffer.append('\\');
+        }
+        buffer.appendCodePoint(cp);
+      } else if (quote == '\'') {
+        if (cp == '\'') {
+          quote = 0;
+        } else {
+          buffer.appendCodePoint(cp);
+        }
+      } else if (quote == '"') {
+        if (cp == '\\') {
+          escaped = true;
+        } else if (cp == '"') {
+          quote = 0;
+        } else {
+          buffer.appendCodePoint(cp);
+        }
+      } else if (isBlank(cp)) {
         break;
-      }
-      if (quoter.isCodePoint()) {
-        if (quoter.isEscaped() && quoter.isWeaklyQuoted() && c != '"') {
-          value.append('\\');
+      } else if (cp == '|' || cp == '&' || cp == '>') {
+        if (index == from) {
+          index += cp == '>' && index + 1 < s.length() && s.charAt(index + 1) == '>' ? 2 : 1;
         }
-        value.append(c);
+        break;
+      } else if (cp == '\\' || cp == '\'' || cp == '"') {
+        if (!copy) {
+          copy = true;
+          buffer.setLength(0);
+          buffer.append(s, from, index);
+        }
+        if (cp == '\\') {
+          escaped = true;
+        } else {
+          quote = cp;
+        }
+      } else if (copy) {
+        buffer.appendCodePoint(cp);
       }
-      index++;
+      index += Character.charCount(cp);
+    }
+    if (copy) {
+      tokens.add(new CliTokenImpl(true, s, from, index, buffer.toString()));
+    } else {
+      String value = s.substring(from, index);
+      tokens.add(new CliTokenImpl(true, value, value));
     }
-    builder.add(new CliTokenImpl(true, s.substring(from, index), value.toString()));
     return index;
   }
 
-  private static int blankToken(String s, int index, List<CliToken> builder) {
+  private static int blankToken(String s, int index, List<CliToken> tokens) {
     int from = index;
     while (index < s.length() && isBlank(s.charAt(index))) {
       index++;
     }
-    builder.add(new CliTokenImpl(false, s.substring(from, index)));
+    String value = index - from == 1 && s.charAt(from) == ' ' ? SPACE : s.substring(from, index);
+    tokens.add(new CliTokenImpl(false, value, value));
     return index;
   }
 
-  private static boolean isBlank(char c) {
+  private static boolean isBlank(int c) {
     return c == ' ' || c == '\t';
   }
 }
@@ -34,14 +34,11 @@ package io.vertx.ext.shell.command;
 
 import io.vertx.codegen.annotations.GenIgnore;
 import io.vertx.codegen.annotations.VertxGen;
-import io.vertx.core.Context;
 import io.vertx.core.Vertx;
 import io.vertx.core.cli.CLI;
-import io.vertx.core.cli.Option;
-import io.vertx.core.cli.annotations.CLIConfigurator;
 import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.cli.Completion;
-import io.vertx.ext.shell.command.impl.ProcessImpl;
+import io.vertx.ext.shell.command.impl.AnnotatedCommandImpl;
 import io.vertx.ext.shell.system.Process;
 
 import java.util.Collections;
@@ -66,88 +63,21 @@ public interface Command {
    */
   @GenIgnore
   static Command create(Vertx vertx, Class<? extends AnnotatedCommand> clazz) {
-    Context context = vertx.getOrCreateContext();
-    CLI cli = CLIConfigurator.define(clazz);
-    cli.addOption(new Option().setArgName("help").setFlag(true).setShortName("h").setLongName("help").setDescription("this help").setHelp(true));
-
-    boolean tmp = false;
-    try {
-      clazz.getDeclaredMethod("name");
-      tmp = true;
-    } catch (NoSuchMethodException ignore) {
-    }
-    boolean overridesName = tmp;
-
-    tmp = false;
-    try {
-      clazz.getDeclaredMethod("cli");
-      tmp = true;
-    } catch (NoSuchMethodException ignore) {
-    }
-    boolean overridesCli = tmp;
-
-    return new Command() {
-
-      @Override
-      public String name() {
-        if (overridesName) {
-          try {
-            return clazz.getDeclaredConstructor().newInstance().name();
-          } catch (Exception ignore) {
-            // Use cli.getName() instead
-          }
-        }
-        return cli.getName();
-      }
-
-      @Override
-      public CLI cli() {
-        if (overridesCli) {
-          try {
-            return clazz.getDeclaredConstructor().newInstance().cli();
-          } catch (Exception ignore) {
-            // Use cli instead
-          }
-        }
-        return cli;
-      }
-
-      private void process(CommandProcess process) {
-        AnnotatedCommand instance;
-        try {
-          instance = clazz.getDeclaredConstructor().newInstance();
-        } catch (Exception e) {
-          process.end();
-          return;
-        }
-        CLIConfigurator.inject(process.commandLine(), instance);
-        instance.process(process);
-      }
-
-      @Override
-      public Process createProcess(List<CliToken> args) {
-        return new ProcessImpl(vertx, context, this, args, this::process);
-      }
+    return new AnnotatedCommandImpl(vertx, clazz);
+  }
 
-      @Override
-      public void complete(Completion completion) {
-        AnnotatedCommand instance;
-        try {
-          instance = clazz.getDeclaredConstructor().newInstance();
-        } catch (Exception e) {
-          Command.super.complete(completion);
-          return;
-        }
-        context.runOnContext(v -> {
-          try {
-            instance.complete(completion);
-          } catch (Throwable t) {
-            completion.complete(Collections.emptyList());
-            throw t;
-          }
-        });
-      }
-    };
+  /**
+   * Create a command from a Java class, annotated with Vert.x Core CLI annotations, whose processes and completions
+   * are called according to the {@code placement}.
+   *
+   * @param vertx the vertx instance
+   * @param clazz the class of the command
+   * @param placement the process placement
+   * @return the command object
+   */
+  @GenIgnore
+  static Command create(Vertx vertx, Class<? extends AnnotatedCommand> clazz, ProcessPlacement placement) {
+    return new AnnotatedCommandImpl(vertx, clazz, placement);
   }
 
   /**
@@ -89,6 +89,16 @@ public interface CommandBuilder {
   @Fluent
   CommandBuilder completionHandler(Handler<Completion> handler);
 
+  /**
+   * Set the placement of the command processes and completions, by default they are called on the context on which
+   * the command is built.
+   *
+   * @param placement the placement
+   * @return this command object
+   */
+  @Fluent
+  CommandBuilder placement(ProcessPlacement placement);
+
   /**
    * Build the command
    *
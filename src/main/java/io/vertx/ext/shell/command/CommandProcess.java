@@ -36,6 +36,7 @@ import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.cli.CommandLine;
 import io.vertx.ext.shell.session.Session;
 import io.vertx.ext.shell.term.Tty;
@@ -84,6 +85,18 @@ public interface CommandProcess extends Tty {
   @Fluent
   CommandProcess stdinHandler(Handler<String> handler);
 
+  @Override
+  CommandProcess stdinBufferHandler(Handler<Buffer> handler);
+
+  @Override
+  CommandProcess pauseStdin();
+
+  @Override
+  CommandProcess resumeStdin();
+
+  @Override
+  CommandProcess stdinEndHandler(Handler<Void> handler);
+
   /**
    * Set an interrupt handler, this handler is called when the command is interrupted, for instance user
    * press <code>Ctrl-C</code>.
@@ -133,6 +146,34 @@ public interface CommandProcess extends Tty {
   @Fluent
   CommandProcess write(String data);
 
+  /**
+   * Write UTF-8 encoded bytes to the standard output, the bytes are written without being decoded when the
+   * terminal allows it.
+   *
+   * @param data the bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  CommandProcess write(Buffer data);
+
+  /**
+   * This will return {@code true} when the standard output cannot accept more data, the command should stop
+   * writing until the {@link #drainHandler} is called.
+   *
+   * @return {@code true} if the standard output write queue is full
+   */
+  @Override
+  boolean writeQueueFull();
+
+  /**
+   * Set a drain handler, this handler is called when the standard output is ready to accept more data.
+   *
+   * @param handler the drain handler
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Override
+  CommandProcess drainHandler(Handler<Void> handler);
+
   /**
    * Set a background handler, this handler is called when the command is running and put to background.
    *
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * The context on which the handlers of a command process are called.
+ */
+@VertxGen
+public enum ProcessPlacement {
+
+  /**
+   * The context of the command, i.e the context on which the command was built.
+   */
+  COMMAND,
+
+  /**
+   * The context of the session that executes the process.
+   */
+  SESSION,
+
+  /**
+   * A context on the event loop with the fewest pending tasks.
+   */
+  LEAST_LOADED,
+
+  /**
+   * A worker context, the worker contexts are created once per Vert.x instance and shared in round robin by the
+   * processes, a process blocking its context delays the other processes of this context.
+   */
+  WORKER
+
+}
@@ -39,6 +39,7 @@ import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandResolver;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -59,6 +60,8 @@ public class BaseCommandPack implements CommandResolver {
     list.add(FileSystemCd.class);
     list.add(FileSystemPwd.class);
     list.add(FileSystemLs.class);
+    list.add(FileSystemCat.class);
+    list.add(FileSystemTail.class);
     list.add(NetCommandLs.class);
     list.add(LocalMapGet.class);
     list.add(LocalMapPut.class);
@@ -70,10 +73,17 @@ public class BaseCommandPack implements CommandResolver {
     list.add(VerticleDeploy.class);
     list.add(VerticleUndeploy.class);
     list.add(VerticleFactories.class);
+    list.add(ShellMetricsCommand.class);
+    list.add(CommandLatency.class);
+    list.add(Grep.class);
+    list.add(Head.class);
+    list.add(Count.class);
+    list.add(Sort.class);
     return list;
   }
 
   final Vertx vertx;
+  private volatile List<Command> commands;
 
   public BaseCommandPack(Vertx vertx) {
     this.vertx = vertx;
@@ -81,9 +91,15 @@ public class BaseCommandPack implements CommandResolver {
 
   @Override
   public List<Command> commands() {
-    return baseCommandClasses().
-        stream().
-        map(clazz -> Command.create(vertx, clazz)).
-        collect(Collectors.toList());
+    // The base commands never change, create them once
+    List<Command> list = commands;
+    if (list == null) {
+      list = Collections.unmodifiableList(baseCommandClasses().
+          stream().
+          map(clazz -> Command.create(vertx, clazz)).
+          collect(Collectors.toList()));
+      commands = list;
+    }
+    return list;
   }
 }
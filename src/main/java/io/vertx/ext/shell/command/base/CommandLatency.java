@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.shell.command.AnnotatedCommand;
+import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.impl.ShellMetricsImpl;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Name("command-latency")
+@Summary("Display the p50/p99/p999 duration and time to first output of the executed commands")
+public class CommandLatency extends AnnotatedCommand {
+
+  @Override
+  public void process(CommandProcess process) {
+    JsonObject commands = ShellMetricsImpl.get(process.vertx()).snapshot().getJsonObject("commands", new JsonObject());
+    StringBuilder buffer = new StringBuilder();
+    for (Map.Entry<String, Object> entry : new TreeMap<>(commands.getMap()).entrySet()) {
+      JsonObject stats = commands.getJsonObject(entry.getKey());
+      buffer.append(entry.getKey())
+        .append(": count=").append(stats.getLong("count", 0L))
+        .append(" failures=").append(stats.getLong("failures", 0L))
+        .append(" duration ").append(percentiles(stats.getJsonObject("duration")))
+        .append(" first-output ").append(percentiles(stats.getJsonObject("firstOutput")))
+        .append(" exit-codes ").append(stats.getJsonObject("exitCodes", new JsonObject()).encode())
+        .append('\n');
+    }
+    process.write(buffer.toString());
+    process.end();
+  }
+
+  private static String percentiles(JsonObject histogram) {
+    if (histogram == null || histogram.getLong("count", 0L) == 0) {
+      return "-";
+    }
+    return "p50=" + millis(histogram.getLong("p50")) + " p99=" + millis(histogram.getLong("p99")) +
+      " p999=" + millis(histogram.getLong("p999"));
+  }
+
+  private static String millis(long micros) {
+    return String.format("%.3fms", micros / 1000d);
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.VertxInternal;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A least recently used cache of the directory listings used by the path completion, keyed by the absolute directory
+ * path. A cached listing is invalidated by a {@link WatchService} when an entry of the directory is created or deleted,
+ * a directory that cannot be watched is not cached.
+ */
+class DirectoryCache {
+
+  /**
+   * The maximum number of cached directory listings.
+   */
+  static final int MAX_DIRECTORIES = Integer.getInteger("vertx.shell.completion.cacheSize", 64);
+
+  /**
+   * The maximum number of candidates returned by a path completion.
+   */
+  static final int MAX_CANDIDATES = Integer.getInteger("vertx.shell.completion.maxCandidates", 256);
+
+  private static final Map<Vertx, DirectoryCache> caches = new ConcurrentHashMap<>();
+
+  /**
+   * @param vertx the vertx instance
+   * @return the cache of the Vert.x instance
+   */
+  static DirectoryCache get(Vertx vertx) {
+    return caches.computeIfAbsent(vertx, v -> {
+      DirectoryCache cache = new DirectoryCache(MAX_DIRECTORIES);
+      ((VertxInternal) v).addCloseHook(completionHandler -> {
+        caches.remove(v);
+        cache.close();
+        completionHandler.handle(Future.succeededFuture());
+      });
+      return cache;
+    });
+  }
+
+  /**
+   * The type of a directory entry.
+   */
+  enum Kind {
+    DIRECTORY, FILE, OTHER
+  }
+
+  private static class Listing {
+
+    final WatchKey key;
+    final NavigableMap<String, Kind> entries;
+
+    Listing(WatchKey key, NavigableMap<String, Kind> entries) {
+      this.key = key;
+      this.entries = entries;
+    }
+  }
+
+  private final Map<Path, Listing> listings;
+  private WatchService watchService;
+  private Thread watcher;
+
+  DirectoryCache(int maxDirectories) {
+    listings = new LinkedHashMap<Path, Listing>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Path, Listing> eldest) {
+        if (size() > maxDirectories) {
+          eldest.getValue().key.cancel();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * List a directory, this method blocks when the listing is not cached.
+   *
+   * @param dir the absolute directory path
+   * @return the entry types sorted by entry name
+   */
+  NavigableMap<String, Kind> list(Path dir) throws IOException {
+    NavigableMap<String, Kind> cached = cached(dir);
+    if (cached != null) {
+      return cached;
+    }
+    // Watch before reading so a change during the read invalidates the listing
+    WatchKey key = watch(dir);
+    NavigableMap<String, Kind> entries = read(dir);
+    if (key != null) {
+      synchronized (this) {
+        if (key.isValid() && watchService != null) {
+          listings.put(dir, new Listing(key, entries));
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Get the cached listing of a directory, this method does not block.
+   *
+   * @param dir the absolute directory path
+   * @return the entry types sorted by entry name or {@code null} when the listing is not cached
+   */
+  synchronized NavigableMap<String, Kind> cached(Path dir) {
+    Listing listing = listings.get(dir);
+    return listing != null ? listing.entries : null;
+  }
+
+  private static NavigableMap<String, Kind> read(Path dir) throws IOException {
+    TreeMap<String, Kind> entries = new TreeMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (Path path : stream) {
+        Kind kind;
+        try {
+          BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+          kind = attributes.isDirectory() ? Kind.DIRECTORY : attributes.isRegularFile() ? Kind.FILE : Kind.OTHER;
+        } catch (IOException e) {
+          // Broken link or deleted since the directory was read
+          kind = Kind.OTHER;
+        }
+        entries.put(path.getFileName().toString(), kind);
+      }
+    }
+    return Collections.unmodifiableNavigableMap(entries);
+  }
+
+  private WatchKey watch(Path dir) {
+    WatchService service;
+    synchronized (this) {
+      if (watchService == null) {
+        if (watcher != null) {
+          // Closed
+          return null;
+        }
+        try {
+          watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+          return null;
+        }
+        watcher = new Thread(this::run, "vertx-shell-directory-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+      }
+      service = watchService;
+    }
+    try {
+      return dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+    } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e) {
+      return null;
+    }
+  }
+
+  private void run() {
+    WatchService service;
+    synchronized (this) {
+      service = watchService;
+    }
+    while (true) {
+      WatchKey key;
+      try {
+        key = service.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+      key.pollEvents();
+      invalidate((Path) key.watchable(), key);
+    }
+  }
+
+  /**
+   * Invalidate the listing of a directory, the directory is watched again when it is listed next time.
+   */
+  private synchronized void invalidate(Path dir, WatchKey key) {
+    Listing listing = listings.get(dir);
+    if (listing != null && listing.key == key) {
+      listings.remove(dir);
+    }
+    key.cancel();
+  }
+
+  synchronized void close() {
+    listings.clear();
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException ignore) {
+      }
+      watchService = null;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read the entries of a directory by chunks with a {@link DirectoryStream}, the attributes of the entries of a chunk
+ * are read right after the names, optionally in parallel in the fork join common pool.<p/>
+ *
+ * The chunks are read by blocking tasks, the next chunk must be requested once the previous chunk is received. The
+ * directory stream is closed at the end of the listing or by {@link #close()} when the listing is not read until
+ * the end.
+ */
+class DirectoryListing {
+
+  /**
+   * The maximum number of entries of a chunk.
+   */
+  static final int CHUNK_SIZE = 1024;
+
+  /**
+   * A directory entry.
+   */
+  static class Entry {
+
+    final String name;
+    final BasicFileAttributes attributes; // Null when the attributes are not read
+
+    Entry(String name, BasicFileAttributes attributes) {
+      this.name = name;
+      this.attributes = attributes;
+    }
+  }
+
+  private final Vertx vertx;
+  private final Path dir;
+  private final boolean all;
+  private final boolean attributes;
+  private final boolean parallel;
+  private DirectoryStream<Path> stream;
+  private Iterator<Path> iterator;
+  private boolean closed;
+
+  /**
+   * @param vertx the vertx instance
+   * @param dir the directory to list
+   * @param all whether to include the entries starting with {@code .}
+   * @param attributes whether to read the entries attributes
+   * @param parallel whether to read the attributes of a chunk in parallel
+   */
+  DirectoryListing(Vertx vertx, Path dir, boolean all, boolean attributes, boolean parallel) {
+    this.vertx = vertx;
+    this.dir = dir;
+    this.all = all;
+    this.attributes = attributes;
+    this.parallel = parallel;
+  }
+
+  /**
+   * Read the next chunk of entries.
+   *
+   * @return a future completed with the next chunk, an empty chunk signals the end of the listing
+   */
+  Future<List<Entry>> next() {
+    return vertx.executeBlocking(this::readChunk);
+  }
+
+  private synchronized List<Entry> readChunk() throws IOException {
+    if (closed) {
+      return Collections.emptyList();
+    }
+    if (stream == null) {
+      if (!Files.isDirectory(dir)) {
+        throw new VertxException(dir + ": No such file or directory", true);
+      }
+      stream = Files.newDirectoryStream(dir);
+      iterator = stream.iterator();
+    }
+    List<Path> paths = new ArrayList<>(CHUNK_SIZE);
+    while (paths.size() < CHUNK_SIZE && iterator.hasNext()) {
+      Path path = iterator.next();
+      if (all || !path.getFileName().toString().startsWith(".")) {
+        paths.add(path);
+      }
+    }
+    if (paths.isEmpty()) {
+      closeStream();
+      return Collections.emptyList();
+    }
+    Stream<Path> s = parallel && attributes ? paths.parallelStream() : paths.stream();
+    return s.map(this::entry).filter(Objects::nonNull).collect(Collectors.toList());
+  }
+
+  private Entry entry(Path path) {
+    String name = path.getFileName().toString();
+    if (!attributes) {
+      return new Entry(name, null);
+    }
+    try {
+      return new Entry(name, Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+    } catch (IOException e) {
+      // Deleted since the directory was read
+      return null;
+    }
+  }
+
+  /**
+   * Close the listing, the directory stream is closed after the chunk being read.
+   */
+  void close() {
+    vertx.executeBlocking(() -> {
+      closeStream();
+      return null;
+    });
+  }
+
+  private synchronized void closeStream() throws IOException {
+    closed = true;
+    if (stream != null) {
+      DirectoryStream<Path> s = stream;
+      stream = null;
+      iterator = null;
+      s.close();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.FileSystemException;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.ext.shell.command.CommandProcess;
+
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * Stream files to the output of a process, the file is paused while the output is full.
+ */
+class FileStream {
+
+  private static final OpenOptions READ = new OpenOptions().setRead(true).setWrite(false).setCreate(false);
+
+  private final CommandProcess process;
+  private volatile AsyncFile file;
+  private volatile boolean closed; // Set by the interrupt handler of the process, it is called on another context
+
+  FileStream(CommandProcess process) {
+    this.process = process;
+  }
+
+  /**
+   * Write the content of a file from a position until the end of the file.
+   *
+   * @param path the absolute file path
+   * @param position the position to start from
+   * @return a future completed with the position of the end of the file, the future is not completed when the stream
+   *         is closed
+   */
+  Future<Long> write(String path, long position) {
+    Promise<Long> promise = Promise.promise();
+    process.vertx().fileSystem().open(path, READ).onComplete(ar -> {
+      if (ar.failed()) {
+        promise.fail(ar.cause());
+        return;
+      }
+      AsyncFile f = ar.result();
+      if (closed) {
+        f.close();
+        return;
+      }
+      file = f;
+      long[] current = { position };
+      f.setReadPos(position);
+      f.exceptionHandler(err -> {
+        release(f);
+        promise.tryFail(err);
+      });
+      f.endHandler(v -> {
+        release(f);
+        promise.tryComplete(current[0]);
+      });
+      f.handler(buffer -> {
+        if (closed) {
+          // A chunk read before the file was closed, the process might be terminated
+          return;
+        }
+        current[0] += buffer.length();
+        process.write(buffer);
+        if (process.writeQueueFull()) {
+          f.pause();
+          process.drainHandler(v -> {
+            process.drainHandler(null);
+            f.resume();
+          });
+          if (!process.writeQueueFull()) {
+            // Drained in the meantime
+            process.drainHandler(null);
+            f.resume();
+          }
+        }
+      });
+    });
+    return promise.future();
+  }
+
+  private void release(AsyncFile f) {
+    if (file == f) {
+      file = null;
+    }
+    f.close();
+  }
+
+  /**
+   * Close the stream and the file being written.
+   */
+  void close() {
+    closed = true;
+    AsyncFile f = file;
+    if (f != null) {
+      file = null;
+      f.close();
+    }
+  }
+
+  /**
+   * @return the error message of a file failure
+   */
+  static String message(Throwable cause) {
+    if (cause instanceof FileSystemException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    if (cause instanceof NoSuchFileException) {
+      return "No such file or directory";
+    } else if (cause instanceof AccessDeniedException) {
+      return "Permission denied";
+    } else {
+      return cause.getMessage();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.cli.annotations.Argument;
+import io.vertx.core.cli.annotations.Description;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.cli.Completion;
+import io.vertx.ext.shell.command.AnnotatedCommand;
+import io.vertx.ext.shell.command.CommandProcess;
+
+import java.util.List;
+
+@Name("cat")
+@Summary("Print the content of files")
+public class FileSystemCat extends AnnotatedCommand {
+
+  private List<String> files;
+  private boolean failed;
+  private volatile boolean ended;
+
+  @Argument(index = 0, argName = "file")
+  @Description("the files to print")
+  public void setFiles(List<String> files) {
+    this.files = files;
+  }
+
+  @Override
+  public void process(CommandProcess process) {
+    FileStream stream = new FileStream(process);
+    process.interruptHandler(v -> {
+      // Stop the stream before the process is terminated
+      ended = true;
+      stream.close();
+      process.end();
+    });
+    process.endHandler(v -> {
+      ended = true;
+      stream.close();
+    });
+    writeNext(process, stream, 0);
+  }
+
+  private void writeNext(CommandProcess process, FileStream stream, int index) {
+    if (index < files.size()) {
+      String file = files.get(index);
+      String path;
+      try {
+        path = new FsHelper().resolve(process.session().get("cwd"), file).toString();
+      } catch (IllegalArgumentException e) {
+        failed = true;
+        process.write("cat: " + e.getMessage() + "\n");
+        writeNext(process, stream, index + 1);
+        return;
+      }
+      stream.write(path, 0).onComplete(ar -> {
+        if (ended) {
+          return;
+        }
+        if (ar.failed()) {
+          failed = true;
+          process.write("cat: " + file + ": " + FileStream.message(ar.cause()) + "\n");
+        }
+        writeNext(process, stream, index + 1);
+      });
+    } else {
+      process.end(failed ? 1 : 0);
+    }
+  }
+
+  @Override
+  public void complete(Completion completion) {
+    new FsHelper().completionHandler().handle(completion);
+  }
+}
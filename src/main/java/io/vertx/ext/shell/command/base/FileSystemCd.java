@@ -63,6 +63,9 @@ public class FileSystemCd extends AnnotatedCommand {
         if (ar.succeeded()) {
           process.session().put("cwd", ar.result());
           process.end();
+        } else if (ar.cause() instanceof IllegalArgumentException) {
+          process.write("cd: " + ar.cause().getMessage() + "\n");
+          process.end();
         } else {
           process.write("cd: No such file or directory\n");
           process.end();
@@ -32,22 +32,23 @@
 
 package io.vertx.ext.shell.command.base;
 
+import io.vertx.core.Handler;
 import io.vertx.core.cli.annotations.Argument;
 import io.vertx.core.cli.annotations.DefaultValue;
 import io.vertx.core.cli.annotations.Description;
 import io.vertx.core.cli.annotations.Name;
 import io.vertx.core.cli.annotations.Option;
 import io.vertx.core.cli.annotations.Summary;
-import io.vertx.core.file.FileProps;
 import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.command.AnnotatedCommand;
 import io.vertx.ext.shell.command.CommandProcess;
 
-import java.util.AbstractMap;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Stream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -59,6 +60,10 @@ public class FileSystemLs extends AnnotatedCommand {
   private boolean ell;
   private String file;
   private boolean all;
+  private boolean sort;
+  private boolean parallel;
+  private int sizeWidth = 1;
+  private volatile boolean ended;
 
   @Option(shortName = "l", flag = true)
   @Description("list in long format")
@@ -79,56 +84,142 @@ public class FileSystemLs extends AnnotatedCommand {
     this.all = all;
   }
 
+  @Option(longName = "sort", flag = true)
+  @Description("sort the entries by name, the whole directory is read before the entries are displayed")
+  public void setSort(boolean sort) {
+    this.sort = sort;
+  }
+
+  @Option(longName = "parallel", flag = true)
+  @Description("read the attributes of the entries in parallel in long format")
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
   @Override
   public void process(CommandProcess process) {
-    new FsHelper().ls(process.vertx(),
-        process.session().get("cwd"),
-        file,
-        ar -> {
-          if (ar.succeeded()) {
-            Map<String, FileProps> result = ar.result();
-            if (result.size() > 0) {
-              Stream<Map.Entry<String, FileProps>> entries = result.entrySet().stream();
-
-              // Keep only name
-              entries = entries.map(entry -> new AbstractMap.SimpleEntry<>(entry.getKey().substring(entry.getKey().lastIndexOf('/') + 1), entry.getValue()));
-
-              // Filter -a option
-              if (!all) {
-                entries = entries.filter(entry -> !entry.getKey().startsWith("."));
-              }
-
-              // Format name
-              Function<Map.Entry<String, FileProps>, String> formatter;
-              if (ell) {
-                int width = result.values().stream().map(FileProps::size).max(Long::compare).get().toString().length();
-                String format = "%1$s %2$" + width + "s %3$tb %3$2te %3$tH:%3$tM %4$s";
-                formatter = entry -> {
-                  FileProps props = entry.getValue();
-                  String a;
-                  if (props.isDirectory()) {
-                    a = "d";
-                  } else if (props.isSymbolicLink()) {
-                    a = "l";
-                  } else {
-                    a = "-";
-                  }
-                  return String.format(format, a, props.size(), new Date(props.lastModifiedTime()), entry.getKey());
-                };
-              } else {
-                formatter = Map.Entry::getKey;
-              }
-
-              // Here we go
-              entries.map(formatter).forEach(file -> process.write(file + "\n"));
-            } else {
-              process.write("ls:" + ar.cause().getMessage() + "\n");
-            }
-          } else {
-            process.write("ls: " + ar.cause().getMessage() + "\n");
-          }
-          process.end();
-        });
+    DirectoryListing listing;
+    try {
+      listing = new FsHelper().list(process.vertx(), process.session().get("cwd"), file, all, ell, parallel);
+    } catch (IllegalArgumentException e) {
+      process.write("ls: " + e.getMessage() + "\n");
+      process.end(1);
+      return;
+    }
+    process.interruptHandler(v -> {
+      ended = true;
+      process.end();
+    });
+    process.endHandler(v -> {
+      ended = true;
+      listing.close();
+    });
+    if (sort) {
+      readAll(process, listing, new ArrayList<>());
+    } else {
+      writeNext(process, listing);
+    }
+  }
+
+  /**
+   * Write the entries chunk by chunk, the next chunk is read once the output is not full.
+   */
+  private void writeNext(CommandProcess process, DirectoryListing listing) {
+    listing.next().onComplete(ar -> {
+      if (ended) {
+        return;
+      }
+      if (ar.failed()) {
+        failed(process, ar.cause());
+      } else if (ar.result().isEmpty()) {
+        process.end();
+      } else {
+        write(process, ar.result());
+        whenWritable(process, v -> writeNext(process, listing));
+      }
+    });
+  }
+
+  private void readAll(CommandProcess process, DirectoryListing listing, List<DirectoryListing.Entry> entries) {
+    listing.next().onComplete(ar -> {
+      if (ended) {
+        return;
+      }
+      if (ar.failed()) {
+        failed(process, ar.cause());
+      } else if (ar.result().isEmpty()) {
+        entries.sort(Comparator.comparing(entry -> entry.name));
+        writeSorted(process, entries, 0);
+      } else {
+        entries.addAll(ar.result());
+        readAll(process, listing, entries);
+      }
+    });
+  }
+
+  private void writeSorted(CommandProcess process, List<DirectoryListing.Entry> entries, int from) {
+    if (ended) {
+      return;
+    }
+    if (from < entries.size()) {
+      int to = Math.min(from + DirectoryListing.CHUNK_SIZE, entries.size());
+      write(process, entries.subList(from, to));
+      whenWritable(process, v -> writeSorted(process, entries, to));
+    } else {
+      process.end();
+    }
+  }
+
+  private void whenWritable(CommandProcess process, Handler<Void> handler) {
+    if (process.writeQueueFull()) {
+      AtomicBoolean resumed = new AtomicBoolean();
+      Handler<Void> resume = v -> {
+        if (resumed.compareAndSet(false, true)) {
+          process.drainHandler(null);
+          handler.handle(null);
+        }
+      };
+      process.drainHandler(resume);
+      if (!process.writeQueueFull()) {
+        // Drained in the meantime
+        resume.handle(null);
+      }
+    } else {
+      handler.handle(null);
+    }
+  }
+
+  private void failed(CommandProcess process, Throwable cause) {
+    process.write("ls: " + cause.getMessage() + "\n");
+    process.end();
+  }
+
+  private void write(CommandProcess process, List<DirectoryListing.Entry> entries) {
+    StringBuilder buffer = new StringBuilder();
+    if (ell) {
+      // The size column grows with the largest size seen so far
+      for (DirectoryListing.Entry entry : entries) {
+        sizeWidth = Math.max(sizeWidth, Long.toString(entry.attributes.size()).length());
+      }
+      String format = "%1$s %2$" + sizeWidth + "s %3$tb %3$2te %3$tH:%3$tM %4$s\n";
+      for (DirectoryListing.Entry entry : entries) {
+        BasicFileAttributes attributes = entry.attributes;
+        String a;
+        if (attributes.isDirectory()) {
+          a = "d";
+        } else if (attributes.isSymbolicLink()) {
+          a = "l";
+        } else {
+          a = "-";
+        }
+        buffer.append(String.format(format, a, attributes.size(), new Date(attributes.lastModifiedTime().toMillis()), entry.name));
+      }
+    } else {
+      for (DirectoryListing.Entry entry : entries) {
+        buffer.append(entry.name).append('\n');
+      }
+    }
+    process.write(buffer.toString());
   }
 
   @Override
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.VertxException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.cli.annotations.Argument;
+import io.vertx.core.cli.annotations.DefaultValue;
+import io.vertx.core.cli.annotations.Description;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.cli.Completion;
+import io.vertx.ext.shell.command.AnnotatedCommand;
+import io.vertx.ext.shell.command.CommandProcess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+@Name("tail")
+@Summary("Print the last lines of a file")
+public class FileSystemTail extends AnnotatedCommand {
+
+  private static final int CHUNK_SIZE = 8192;
+
+  private String file;
+  private int lines;
+  private boolean follow;
+  private long interval;
+  private volatile boolean ended;
+  private long timerID = -1;
+  private Object fileKey;
+  private FileChannel channel;
+  private long position;
+
+  @Argument(index = 0, argName = "file")
+  @Description("the file to print")
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  @Option(longName = "lines", shortName = "n")
+  @Description("the number of lines to print")
+  @DefaultValue("10")
+  public void setLines(int lines) {
+    this.lines = lines;
+  }
+
+  @Option(longName = "follow", shortName = "f", flag = true)
+  @Description("print the data appended to the file until interrupted")
+  public void setFollow(boolean follow) {
+    this.follow = follow;
+  }
+
+  @Option(longName = "interval")
+  @Description("the interval in milliseconds between two checks of the file size when following the file, at least 1")
+  @DefaultValue("500")
+  public void setInterval(long interval) {
+    this.interval = interval;
+  }
+
+  @Override
+  public void process(CommandProcess process) {
+    if (interval < 1) {
+      process.write("tail: invalid interval: " + interval + "\n");
+      process.end(1);
+      return;
+    }
+    Path path;
+    try {
+      path = new FsHelper().resolve(process.session().get("cwd"), file);
+    } catch (IllegalArgumentException e) {
+      process.write("tail: " + e.getMessage() + "\n");
+      process.end(1);
+      return;
+    }
+    FileStream stream = new FileStream(process);
+    process.interruptHandler(v -> {
+      // Stop the stream before the process is terminated
+      ended = true;
+      stream.close();
+      process.end();
+    });
+    process.endHandler(v -> {
+      ended = true;
+      stream.close();
+      if (timerID != -1) {
+        process.vertx().cancelTimer(timerID);
+      }
+      close(channel);
+      channel = null;
+    });
+    process.vertx().executeBlocking(() -> start(path, lines, follow)).onComplete(ar -> {
+      if (ended) {
+        if (ar.succeeded()) {
+          close(ar.result().channel);
+        }
+        return;
+      }
+      if (ar.failed()) {
+        process.write("tail: " + file + ": " + FileStream.message(ar.cause()) + "\n");
+        process.end(1);
+        return;
+      }
+      fileKey = ar.result().fileKey;
+      channel = ar.result().channel;
+      write(process, stream, path, ar.result().offset);
+    });
+  }
+
+  private void write(CommandProcess process, FileStream stream, Path path, long from) {
+    stream.write(path.toString(), from).onComplete(ar -> {
+      if (ended) {
+        return;
+      }
+      if (ar.succeeded()) {
+        position = ar.result();
+      } else if (!follow) {
+        process.write("tail: " + file + ": " + FileStream.message(ar.cause()) + "\n");
+        process.end(1);
+        return;
+      }
+      if (follow) {
+        schedule(process, stream, path);
+      } else {
+        process.end();
+      }
+    });
+  }
+
+  private void schedule(CommandProcess process, FileStream stream, Path path) {
+    timerID = process.vertx().setTimer(interval, id -> {
+      timerID = -1;
+      if (!ended) {
+        poll(process, stream, path);
+      }
+    });
+  }
+
+  /**
+   * Check the size of the followed file, the file is read again from the start when it has been truncated or
+   * replaced, e.g by a log rotation, a replaced file is read until its end before.
+   */
+  private void poll(CommandProcess process, FileStream stream, Path path) {
+    process.vertx().executeBlocking(() -> Files.readAttributes(path, BasicFileAttributes.class)).onComplete(ar -> {
+      if (ended) {
+        return;
+      }
+      if (ar.failed()) {
+        // The file does not exist while it is rotated
+        schedule(process, stream, path);
+        return;
+      }
+      BasicFileAttributes attributes = ar.result();
+      Object key = attributes.fileKey();
+      if (key != null && !key.equals(fileKey)) {
+        fileKey = key;
+        rotate(process, stream, path);
+        return;
+      } else if (attributes.size() < position) {
+        process.write("tail: " + file + ": file truncated\n");
+        position = 0;
+      }
+      if (attributes.size() > position) {
+        write(process, stream, path, position);
+      } else {
+        schedule(process, stream, path);
+      }
+    });
+  }
+
+  /**
+   * Write the data appended to the replaced file from its channel, still open after the file has been moved or
+   * deleted, then follow the new file from its start.
+   */
+  private void rotate(CommandProcess process, FileStream stream, Path path) {
+    FileChannel previous = channel;
+    long from = position;
+    process.vertx().executeBlocking(() -> read(previous, from)).onComplete(ar -> {
+      if (ended) {
+        return;
+      }
+      if (ar.succeeded() && ar.result().length() > 0) {
+        position += ar.result().length();
+        process.write(ar.result());
+        if (process.writeQueueFull()) {
+          process.drainHandler(v -> {
+            process.drainHandler(null);
+            rotate(process, stream, path);
+          });
+        } else {
+          rotate(process, stream, path);
+        }
+        return;
+      }
+      close(previous);
+      channel = null;
+      position = 0;
+      process.write("tail: " + file + " has been replaced, following new file\n");
+      process.vertx().executeBlocking(() -> FileChannel.open(path, StandardOpenOption.READ)).onComplete(res -> {
+        if (ended) {
+          if (res.succeeded()) {
+            close(res.result());
+          }
+          return;
+        }
+        if (res.succeeded()) {
+          channel = res.result();
+        }
+        write(process, stream, path, 0);
+      });
+    });
+  }
+
+  private static class Start {
+
+    final Object fileKey;
+    final FileChannel channel;
+    final long offset;
+
+    Start(Object fileKey, FileChannel channel, long offset) {
+      this.fileKey = fileKey;
+      this.channel = channel;
+      this.offset = offset;
+    }
+  }
+
+  /**
+   * @return the start of the file, the channel is kept open when following the file
+   */
+  private static Start start(Path path, int lines, boolean follow) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    if (attributes.isDirectory()) {
+      throw new VertxException("Is a directory", true);
+    }
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      long offset = offset(channel, lines);
+      if (follow) {
+        return new Start(attributes.fileKey(), channel, offset);
+      }
+      channel.close();
+      return new Start(attributes.fileKey(), null, offset);
+    } catch (IOException e) {
+      close(channel);
+      throw e;
+    }
+  }
+
+  /**
+   * @return the chunk of the channel at a position, an empty buffer at the end of the channel
+   */
+  private static Buffer read(FileChannel channel, long position) throws IOException {
+    if (channel == null) {
+      return Buffer.buffer();
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+    int n = channel.read(buffer, position);
+    return n > 0 ? Buffer.buffer(Arrays.copyOf(buffer.array(), n)) : Buffer.buffer();
+  }
+
+  private static void close(FileChannel channel) {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException ignore) {
+      }
+    }
+  }
+
+  /**
+   * Find the offset of the last lines of a file by reading the file backward chunk by chunk.
+   *
+   * @return the offset of the first of the last lines
+   */
+  private static long offset(FileChannel channel, int lines) throws IOException {
+    long size = channel.size();
+    if (lines <= 0) {
+      return size;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+    int count = 0;
+    long from = size;
+    while (from > 0) {
+      int length = (int) Math.min(CHUNK_SIZE, from);
+      from -= length;
+      buffer.clear().limit(length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, from + buffer.position()) < 0) {
+          break;
+        }
+      }
+      for (int i = buffer.position() - 1; i >= 0; i--) {
+        // The new line ending the file does not start a line
+        if (buffer.get(i) == '\n' && from + i < size - 1 && ++count == lines) {
+          return from + i + 1;
+        }
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public void complete(Completion completion) {
+    new FsHelper().completionHandler().handle(completion);
+  }
+}
@@ -33,17 +33,19 @@
 package io.vertx.ext.shell.command.base;
 
 import io.vertx.core.*;
-import io.vertx.core.file.FileProps;
 import io.vertx.core.file.FileSystem;
 import io.vertx.ext.shell.cli.Completion;
+import io.vertx.ext.shell.impl.FsRoot;
 
 import java.io.File;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NavigableMap;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -53,7 +55,7 @@ class FsHelper {
   private final Path rootDir;
 
   FsHelper() {
-    rootDir = new File(System.getProperty("vertx.cwd", ".")).getAbsoluteFile().toPath().normalize();
+    rootDir = FsRoot.rootPath();
   }
 
   String rootDir() {
@@ -61,8 +63,13 @@ class FsHelper {
   }
 
   void cd(FileSystem fs, String currentPath, String pathArg, Handler<AsyncResult<String>> pathHandler) {
-    Path base = currentPath != null ? new File(currentPath).toPath() : rootDir;
-    String path = base.resolve(pathArg).toAbsolutePath().normalize().toString();
+    String path;
+    try {
+      path = resolve(currentPath, pathArg).toString();
+    } catch (IllegalArgumentException e) {
+      pathHandler.handle(Future.failedFuture(e));
+      return;
+    }
     fs.props(path)
       .onComplete(ar -> {
       if (ar.succeeded() && ar.result().isDirectory()) {
@@ -73,21 +80,27 @@ class FsHelper {
     });
   }
 
-  void ls(Vertx vertx, String currentFile, String pathArg, Handler<AsyncResult<Map<String, FileProps>>> filesHandler) {
-    Path base = currentFile != null ? new File(currentFile).toPath() : rootDir;
-    String path = base.resolve(pathArg).toAbsolutePath().normalize().toString();
-    vertx.<Map<String, FileProps>>executeBlocking(() -> {
-      FileSystem fs = vertx.fileSystem();
-      if (fs.propsBlocking(path).isDirectory()) {
-        LinkedHashMap<String, FileProps> result = new LinkedHashMap<>();
-        for (String file : fs.readDirBlocking(path)) {
-          result.put(file, fs.propsBlocking(file));
-        }
-        return result;
-      } else {
-        throw new RuntimeException(path + ": No such file or directory");
-      }
-    }).onComplete(filesHandler);
+  /**
+   * @return the absolute path of a path argument resolved against the current directory or the root directory
+   * @throws IllegalArgumentException when the path is outside of the root directory
+   */
+  Path resolve(String currentPath, String pathArg) {
+    return FsRoot.resolve(currentPath, pathArg);
+  }
+
+  /**
+   * Create a listing streaming the entries of a directory by chunks.
+   *
+   * @param vertx the vertx instance
+   * @param currentFile the current directory or null
+   * @param pathArg the directory to list
+   * @param all whether to include the entries starting with {@code .}
+   * @param attributes whether to read the entries attributes
+   * @param parallel whether to read the attributes in parallel
+   * @throws IllegalArgumentException when the directory is outside of the root directory
+   */
+  DirectoryListing list(Vertx vertx, String currentFile, String pathArg, boolean all, boolean attributes, boolean parallel) {
+    return new DirectoryListing(vertx, resolve(currentFile, pathArg), all, attributes, parallel);
   }
 
   Handler<Completion> completionHandler() {
@@ -121,47 +134,64 @@ class FsHelper {
     };
   }
 
+  /**
+   * Complete a path against the cached listing of its directory, when the entries matching the prefix have no
+   * longer common prefix, at most {@link DirectoryCache#MAX_CANDIDATES} candidates are returned. A cached listing
+   * is used on the caller thread, otherwise the directory is listed on a worker thread.
+   */
   void complete(Vertx vertx, String currentPath, String _prefix, Handler<AsyncResult<Map<String, Boolean>>> handler) {
-    vertx.<Map<String, Boolean>>executeBlocking(() -> {
-
-      FileSystem fs = vertx.fileSystem();
-      Path base = (currentPath != null ? new File(currentPath).toPath() : rootDir);
+    Path base = (currentPath != null ? new File(currentPath).toPath() : rootDir);
+    int index = _prefix.lastIndexOf('/');
+    String prefix;
+    if (index == 0) {
+      handler.handle(Future.failedFuture(new VertxException("todo")));
+      return;
+    } else if (index > 0) {
+      base = base.resolve(_prefix.substring(0, index));
+      prefix = _prefix.substring(index + 1);
+    } else {
+      prefix = _prefix;
+    }
+    Path dir = base.toAbsolutePath().normalize();
+    if (!dir.startsWith(rootDir)) {
+      handler.handle(Future.succeededFuture(Collections.emptyMap()));
+      return;
+    }
+    DirectoryCache cache = DirectoryCache.get(vertx);
+    NavigableMap<String, DirectoryCache.Kind> cached = cache.cached(dir);
+    if (cached != null) {
+      handler.handle(Future.succeededFuture(matches(cached, prefix)));
+    } else {
+      vertx.<Map<String, Boolean>>executeBlocking(() -> matches(cache.list(dir), prefix)).onComplete(handler);
+    }
+  }
 
-      int index = _prefix.lastIndexOf('/');
-      String prefix;
-      if (index == 0) {
-        throw new VertxException("todo");
-      } else if (index > 0) {
-        base = base.resolve(_prefix.substring(0, index));
-        prefix = _prefix.substring(index + 1);
+  private static Map<String, Boolean> matches(NavigableMap<String, DirectoryCache.Kind> entries, String prefix) {
+    NavigableMap<String, DirectoryCache.Kind> candidates = entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    LinkedHashMap<String, Boolean> matches = new LinkedHashMap<>();
+    if (candidates.isEmpty()) {
+      return matches;
+    }
+    String first = candidates.firstKey();
+    String last = candidates.lastKey();
+    if (first.equals(last)) {
+      DirectoryCache.Kind kind = candidates.get(first);
+      matches.put(first.substring(prefix.length()) + (kind == DirectoryCache.Kind.DIRECTORY ? "/" : ""), kind == DirectoryCache.Kind.FILE);
+    } else {
+      // The entries are sorted, so the longest common prefix is the one of the first and last entries
+      String common = Completion.findLongestCommonPrefix(Arrays.asList(first, last)).substring(prefix.length());
+      if (common.length() > 0) {
+        matches.put(common, false);
       } else {
-        prefix = _prefix;
-      }
-
-      LinkedHashMap<String, Boolean> matches = new LinkedHashMap<>();
-      for (String path : fs.readDirBlocking(base.toAbsolutePath().normalize().toString())) {
-        String name = path.substring(path.lastIndexOf('/') + 1);
-        if (name.startsWith(prefix)) {
-          FileProps props = fs.propsBlocking(path);
-          matches.put(name.substring(prefix.length()) + (props.isDirectory() ? "/" : ""), props.isRegularFile());
-        }
-      }
-
-      if (matches.size() > 1) {
-        String common = Completion.findLongestCommonPrefix(matches.keySet());
-        if (common.length() > 0) {
-          matches.clear();
-          matches.put(common, false);
-        } else {
-          LinkedHashMap<String, Boolean> tmp = new LinkedHashMap<>();
-          matches.forEach((suffix, terminal) -> tmp.put(prefix + suffix, terminal));
-          matches = tmp;
+        for (Map.Entry<String, DirectoryCache.Kind> candidate : candidates.entrySet()) {
+          if (matches.size() >= DirectoryCache.MAX_CANDIDATES) {
+            break;
+          }
+          DirectoryCache.Kind kind = candidate.getValue();
+          matches.put(candidate.getKey() + (kind == DirectoryCache.Kind.DIRECTORY ? "/" : ""), kind == DirectoryCache.Kind.FILE);
         }
       }
-
-      return matches;
-    }).onComplete(handler);
-
-
+    }
+    return matches;
   }
 }
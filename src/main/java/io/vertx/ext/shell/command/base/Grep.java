@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.cli.annotations.Argument;
+import io.vertx.core.cli.annotations.Description;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.command.CommandProcess;
+
+import java.util.regex.Pattern;
+
+@Name("grep")
+@Summary("Print the lines of the standard input matching a pattern")
+public class Grep extends LineFilter {
+
+  private String pattern;
+  private boolean invert;
+  private boolean ignoreCase;
+  private Pattern compiled;
+  private boolean matched;
+
+  @Argument(index = 0, argName = "pattern")
+  @Description("the regular expression to match")
+  public void setPattern(String pattern) {
+    this.pattern = pattern;
+  }
+
+  @Option(longName = "invert-match", shortName = "v", flag = true)
+  @Description("select the lines not matching the pattern")
+  public void setInvert(boolean invert) {
+    this.invert = invert;
+  }
+
+  @Option(longName = "ignore-case", shortName = "i", flag = true)
+  @Description("ignore case distinctions")
+  public void setIgnoreCase(boolean ignoreCase) {
+    this.ignoreCase = ignoreCase;
+  }
+
+  @Override
+  public void process(CommandProcess process) {
+    try {
+      compiled = Pattern.compile(pattern, ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+    } catch (Exception e) {
+      process.write("grep: " + e.getMessage() + "\n");
+      process.end(2);
+      return;
+    }
+    super.process(process);
+  }
+
+  @Override
+  protected boolean handleLine(CommandProcess process, String line) {
+    if (compiled.matcher(line).find() != invert) {
+      matched = true;
+      process.write(line + "\n");
+    }
+    return true;
+  }
+
+  @Override
+  protected void handleEnd(CommandProcess process) {
+    process.end(matched ? 0 : 1);
+  }
+}
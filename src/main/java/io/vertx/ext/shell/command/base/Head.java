@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.cli.annotations.DefaultValue;
+import io.vertx.core.cli.annotations.Description;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.command.CommandProcess;
+
+@Name("head")
+@Summary("Print the first lines of the standard input")
+public class Head extends LineFilter {
+
+  private int lines;
+  private int count;
+
+  @Option(longName = "lines", shortName = "n")
+  @Description("the number of lines to print")
+  @DefaultValue("10")
+  public void setLines(int lines) {
+    this.lines = lines;
+  }
+
+  @Override
+  public void process(CommandProcess process) {
+    if (lines <= 0) {
+      process.end();
+      return;
+    }
+    super.process(process);
+  }
+
+  @Override
+  protected boolean handleLine(CommandProcess process, String line) {
+    process.write(line + "\n");
+    return ++count < lines;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.command.AnnotatedCommand;
+import io.vertx.ext.shell.command.CommandProcess;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base class of the commands filtering the lines of their standard input, usually the output of the previous
+ * stage of a pipeline.<p/>
+ *
+ * The input bytes are split on {@code \n} before being decoded so a multi-byte character split between two
+ * chunks is decoded correctly. The standard input is paused while the standard output is full.
+ */
+abstract class LineFilter extends AnnotatedCommand {
+
+  private Buffer partial;
+  private boolean done;
+
+  @Override
+  public void process(CommandProcess process) {
+    process.interruptHandler(v -> {
+      // The input did not end, the lines read so far are discarded
+      if (!done) {
+        done = true;
+        process.end();
+      }
+    });
+    process.drainHandler(v -> process.resumeStdin());
+    process.stdinEndHandler(v -> {
+      if (!done && partial != null) {
+        String line = decode(partial);
+        partial = null;
+        handleLine(process, line);
+      }
+      finish(process);
+    });
+    process.stdinBufferHandler(data -> handleData(process, data));
+  }
+
+  private void handleData(CommandProcess process, Buffer data) {
+    int from = 0;
+    int len = data.length();
+    for (int i = 0; i < len && !done; i++) {
+      if (data.getByte(i) == '\n') {
+        String line;
+        if (partial != null) {
+          partial.appendBuffer(data, from, i - from);
+          line = decode(partial);
+          partial = null;
+        } else {
+          line = decode(data.slice(from, i));
+        }
+        from = i + 1;
+        if (!handleLine(process, line)) {
+          finish(process);
+        }
+      }
+    }
+    if (!done) {
+      if (from < len) {
+        if (partial == null) {
+          partial = Buffer.buffer(len - from);
+        }
+        partial.appendBuffer(data, from, len - from);
+      }
+      if (process.writeQueueFull()) {
+        process.pauseStdin();
+        if (!process.writeQueueFull()) {
+          // Drained in the meantime
+          process.resumeStdin();
+        }
+      }
+    }
+  }
+
+  private void finish(CommandProcess process) {
+    if (!done) {
+      done = true;
+      handleEnd(process);
+    }
+  }
+
+  private static String decode(Buffer line) {
+    int len = line.length();
+    if (len > 0 && line.getByte(len - 1) == '\r') {
+      len--;
+    }
+    return line.getString(0, len, StandardCharsets.UTF_8.name());
+  }
+
+  /**
+   * Handle a line of the standard input.
+   *
+   * @param process the process
+   * @param line the line without its terminator
+   * @return {@code false} when no more lines are needed
+   */
+  protected abstract boolean handleLine(CommandProcess process, String line);
+
+  /**
+   * Called at the end of the standard input or when the filter does not need more lines, the implementation
+   * must end the process. It is not called when the process is interrupted.
+   *
+   * @param process the process
+   */
+  protected void handleEnd(CommandProcess process) {
+    process.end();
+  }
+}
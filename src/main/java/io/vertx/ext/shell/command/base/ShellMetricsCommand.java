@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.command.AnnotatedCommand;
+import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.impl.ShellMetricsImpl;
+
+@Name("shell-metrics")
+@Summary("Display the shell metrics: sessions per transport, jobs, commands and bytes written per transport")
+public class ShellMetricsCommand extends AnnotatedCommand {
+
+  @Override
+  public void process(CommandProcess process) {
+    process.write(ShellMetricsImpl.get(process.vertx()).snapshot().encodePrettily() + "\n");
+    process.end();
+  }
+}
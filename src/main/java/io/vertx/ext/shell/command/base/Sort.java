@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.base;
+
+import io.vertx.core.Handler;
+import io.vertx.core.cli.annotations.Description;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.command.CommandProcess;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Name("sort")
+@Summary("Print the sorted lines of the standard input")
+public class Sort extends LineFilter {
+
+  private static final int CHUNK_SIZE = 1024;
+
+  private final List<String> lines = new ArrayList<>();
+  private boolean reverse;
+  private boolean ended;
+
+  @Option(longName = "reverse", shortName = "r", flag = true)
+  @Description("reverse the result of comparisons")
+  public void setReverse(boolean reverse) {
+    this.reverse = reverse;
+  }
+
+  @Override
+  protected boolean handleLine(CommandProcess process, String line) {
+    lines.add(line);
+    return true;
+  }
+
+  @Override
+  protected void handleEnd(CommandProcess process) {
+    lines.sort(reverse ? Comparator.reverseOrder() : Comparator.naturalOrder());
+    process.interruptHandler(v -> {
+      ended = true;
+      process.end();
+    });
+    writeSorted(process, 0);
+  }
+
+  /**
+   * Write the sorted lines by chunks, waiting for the output to drain between two chunks.
+   */
+  private void writeSorted(CommandProcess process, int from) {
+    if (ended) {
+      return;
+    }
+    if (from < lines.size()) {
+      int to = Math.min(from + CHUNK_SIZE, lines.size());
+      StringBuilder buffer = new StringBuilder();
+      for (String line : lines.subList(from, to)) {
+        buffer.append(line).append('\n');
+      }
+      process.write(buffer.toString());
+      whenWritable(process, v -> writeSorted(process, to));
+    } else {
+      process.end();
+    }
+  }
+
+  private void whenWritable(CommandProcess process, Handler<Void> handler) {
+    if (process.writeQueueFull()) {
+      AtomicBoolean resumed = new AtomicBoolean();
+      Handler<Void> resume = v -> {
+        if (resumed.compareAndSet(false, true)) {
+          process.drainHandler(null);
+          handler.handle(null);
+        }
+      };
+      process.drainHandler(resume);
+      if (!process.writeQueueFull()) {
+        // Drained in the meantime
+        resume.handle(null);
+      }
+    } else {
+      handler.handle(null);
+    }
+  }
+}
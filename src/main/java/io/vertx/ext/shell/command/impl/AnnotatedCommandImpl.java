@@ -0,0 +1,296 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.Argument;
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.CLIException;
+import io.vertx.core.cli.CommandLine;
+import io.vertx.core.cli.Option;
+import io.vertx.core.cli.annotations.CLIConfigurator;
+import io.vertx.ext.shell.cli.CliToken;
+import io.vertx.ext.shell.cli.Completion;
+import io.vertx.ext.shell.command.AnnotatedCommand;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.command.ProcessPlacement;
+import io.vertx.ext.shell.system.Process;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A command created from an {@link AnnotatedCommand} class, the class metadata (name, cli, constructor and option
+ * setters) is computed once per class.
+ */
+public class AnnotatedCommandImpl implements Command {
+
+  private static final ClassValue<Metadata> METADATA = new ClassValue<Metadata>() {
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Metadata computeValue(Class<?> type) {
+      return new Metadata((Class<? extends AnnotatedCommand>) type);
+    }
+  };
+
+  private final Vertx vertx;
+  private final Context context;
+  private final ProcessPlacement placement;
+  private final Metadata metadata;
+
+  public AnnotatedCommandImpl(Vertx vertx, Class<? extends AnnotatedCommand> clazz) {
+    this(vertx, clazz, ProcessPlacement.COMMAND);
+  }
+
+  public AnnotatedCommandImpl(Vertx vertx, Class<? extends AnnotatedCommand> clazz, ProcessPlacement placement) {
+    this.vertx = vertx;
+    this.context = vertx.getOrCreateContext();
+    this.placement = Objects.requireNonNull(placement);
+    this.metadata = METADATA.get(clazz);
+  }
+
+  @Override
+  public String name() {
+    return metadata.name;
+  }
+
+  @Override
+  public CLI cli() {
+    return metadata.cli;
+  }
+
+  private void process(CommandProcess process) {
+    AnnotatedCommand instance;
+    try {
+      instance = metadata.newInstance();
+    } catch (Throwable e) {
+      process.end();
+      return;
+    }
+    metadata.inject(process.commandLine(), instance);
+    instance.process(process);
+  }
+
+  @Override
+  public Process createProcess(List<CliToken> args) {
+    return new ProcessImpl(vertx, ProcessContexts.select(vertx, placement, context), this, args, this::process);
+  }
+
+  @Override
+  public void complete(Completion completion) {
+    AnnotatedCommand instance;
+    try {
+      instance = metadata.newInstance();
+    } catch (Throwable e) {
+      Command.super.complete(completion);
+      return;
+    }
+    ProcessContexts.select(vertx, placement, context).runOnContext(v -> {
+      try {
+        instance.complete(completion);
+      } catch (Throwable t) {
+        completion.complete(Collections.emptyList());
+        throw t;
+      }
+    });
+  }
+
+  private static class Metadata {
+
+    private final Class<? extends AnnotatedCommand> clazz;
+    private final MethodHandle constructor; // Null when the constructor cannot be accessed
+    private final String name;
+    private final CLI cli;
+    private final List<Binding> bindings;
+
+    Metadata(Class<? extends AnnotatedCommand> clazz) {
+      this.clazz = clazz;
+
+      MethodHandle ctor;
+      try {
+        Constructor<? extends AnnotatedCommand> c = clazz.getDeclaredConstructor();
+        ctor = MethodHandles.lookup().unreflectConstructor(c).asType(MethodType.methodType(AnnotatedCommand.class));
+      } catch (Exception ignore) {
+        ctor = null;
+      }
+      constructor = ctor;
+
+      CLI defined = CLIConfigurator.define(clazz);
+      defined.addOption(new Option().setArgName("help").setFlag(true).setShortName("h").setLongName("help").setDescription("this help").setHelp(true));
+
+      AnnotatedCommand instance = null;
+      if (overrides(clazz, "name") || overrides(clazz, "cli")) {
+        try {
+          instance = newInstance();
+        } catch (Throwable ignore) {
+          // Use the defined cli instead
+        }
+      }
+      name = instance != null && overrides(clazz, "name") ? instance.name() : defined.getName();
+      cli = instance != null && overrides(clazz, "cli") ? instance.cli() : defined;
+
+      bindings = new ArrayList<>();
+      for (Method method : clazz.getMethods()) {
+        if (method.getName().startsWith("set") && method.getParameterCount() == 1) {
+          io.vertx.core.cli.annotations.Option option = method.getAnnotation(io.vertx.core.cli.annotations.Option.class);
+          io.vertx.core.cli.annotations.Argument argument = method.getAnnotation(io.vertx.core.cli.annotations.Argument.class);
+          if (option != null || argument != null) {
+            MethodHandle setter = setter(method);
+            if (option != null) {
+              String optionName = option.longName();
+              if (optionName.equals(io.vertx.core.cli.annotations.Option.NO_NAME)) {
+                optionName = option.shortName();
+              }
+              bindings.add(new Binding(optionName, -1, method.getParameterTypes()[0], setter));
+            }
+            if (argument != null) {
+              bindings.add(new Binding(null, argument.index(), method.getParameterTypes()[0], setter));
+            }
+          }
+        }
+      }
+    }
+
+    private static boolean overrides(Class<?> clazz, String method) {
+      try {
+        clazz.getDeclaredMethod(method);
+        return true;
+      } catch (NoSuchMethodException ignore) {
+        return false;
+      }
+    }
+
+    private static MethodHandle setter(Method method) {
+      try {
+        method.setAccessible(true);
+      } catch (RuntimeException ignore) {
+        // Try without
+      }
+      MethodHandle handle;
+      try {
+        handle = MethodHandles.lookup().unreflect(method);
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException("Cannot access setter " + method, e);
+      }
+      return handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+    }
+
+    AnnotatedCommand newInstance() throws Throwable {
+      if (constructor != null) {
+        return (AnnotatedCommand) constructor.invokeExact();
+      }
+      return clazz.getDeclaredConstructor().newInstance();
+    }
+
+    void inject(CommandLine commandLine, Object instance) {
+      for (Binding binding : bindings) {
+        binding.inject(commandLine, instance);
+      }
+    }
+  }
+
+  /**
+   * Injects an option or an argument value in a setter, like {@link CLIConfigurator#inject} does.
+   */
+  private static class Binding {
+
+    private final String option; // Null for an argument
+    private final int index;
+    private final Class<?> type;
+    private final boolean multiple;
+    private final MethodHandle setter;
+
+    Binding(String option, int index, Class<?> type, MethodHandle setter) {
+      this.option = option;
+      this.index = index;
+      this.type = type;
+      this.multiple = type.isArray() || Collection.class.isAssignableFrom(type);
+      this.setter = setter;
+    }
+
+    void inject(CommandLine commandLine, Object instance) {
+      Object value;
+      try {
+        if (option != null) {
+          if (commandLine.cli().getOption(option) == null) {
+            return;
+          }
+          value = multiple ? container(commandLine.getOptionValues(option)) : commandLine.getOptionValue(option);
+        } else {
+          Argument argument = commandLine.cli().getArgument(index);
+          if (argument == null) {
+            return;
+          }
+          value = multiple ? container(commandLine.getArgumentValues(argument.getIndex())) : commandLine.getArgumentValue(argument.getIndex());
+        }
+        if (value != null) {
+          setter.invokeExact(instance, value);
+        }
+      } catch (Throwable e) {
+        if (option != null) {
+          throw new CLIException("Cannot inject value for option '" + option + "'", e instanceof Exception ? (Exception) e : new Exception(e));
+        } else {
+          throw new CLIException("Cannot inject value for argument '" + index + "'", e instanceof Exception ? (Exception) e : new Exception(e));
+        }
+      }
+    }
+
+    private Object container(List<?> values) {
+      if (type.isArray()) {
+        Object array = Array.newInstance(type.getComponentType(), values.size());
+        for (int i = 0; i < values.size(); i++) {
+          Array.set(array, i, values.get(i));
+        }
+        return array;
+      } else if (Set.class.isAssignableFrom(type)) {
+        return new LinkedHashSet<>(values);
+      } else if (List.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)) {
+        return new ArrayList<>(values);
+      }
+      return null;
+    }
+  }
+}
@@ -41,10 +41,12 @@ import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandBuilder;
 import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.command.ProcessPlacement;
 import io.vertx.ext.shell.system.Process;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -55,6 +57,7 @@ public class CommandBuilderImpl implements CommandBuilder {
   final CLI cli;
   public Handler<CommandProcess> processHandler;
   public Handler<Completion> completeHandler;
+  public ProcessPlacement placement = ProcessPlacement.COMMAND;
 
   public CommandBuilderImpl(String name, CLI cli) {
     this.name = name;
@@ -73,9 +76,16 @@ public class CommandBuilderImpl implements CommandBuilder {
     return this;
   }
 
+  @Override
+  public CommandBuilderImpl placement(ProcessPlacement placement) {
+    this.placement = Objects.requireNonNull(placement);
+    return this;
+  }
+
   @Override
   public Command build(Vertx vertx) {
     Context context = vertx.getOrCreateContext();
+    ProcessPlacement placement = this.placement;
     return new Command() {
       @Override
       public String name() {
@@ -88,13 +98,13 @@ public class CommandBuilderImpl implements CommandBuilder {
 
       @Override
       public Process createProcess(List<CliToken> args) {
-        return new ProcessImpl(vertx, context, this, args, processHandler);
+        return new ProcessImpl(vertx, ProcessContexts.select(vertx, placement, context), this, args, processHandler);
       }
 
       @Override
       public void complete(Completion completion) {
         if (completeHandler != null) {
-          context.runOnContext(v -> {
+          ProcessContexts.select(vertx, placement, context).runOnContext(v -> {
             try {
               completeHandler.handle(completion);
             } catch (Throwable t) {
@@ -40,12 +40,13 @@ import io.vertx.ext.shell.command.CommandRegistry;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
-public class CommandRegistryImpl implements CommandRegistry {
+public class CommandRegistryImpl implements CommandRegistry, IndexableCommandResolver {
 
   private static final Map<Vertx, CommandRegistryImpl> registries = new ConcurrentHashMap<>();
 
@@ -56,6 +57,7 @@ public class CommandRegistryImpl implements CommandRegistry {
   final VertxInternal vertx;
   final ConcurrentHashMap<String, CommandRegistration> commandMap = new ConcurrentHashMap<>();
   final Closeable hook;
+  private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
   private volatile boolean closed;
 
   public CommandRegistryImpl(VertxInternal vertx) {
@@ -85,6 +87,26 @@ public class CommandRegistryImpl implements CommandRegistry {
     return new ArrayList<>(commandMap.values().stream().map(reg -> reg.command).collect(Collectors.toList()));
   }
 
+  @Override
+  public Command getCommand(String name) {
+    CommandRegistration registration = commandMap.get(name);
+    return registration != null ? registration.command : null;
+  }
+
+  @Override
+  public void addChangeListener(Runnable listener) {
+    changeListeners.add(listener);
+  }
+
+  @Override
+  public void removeChangeListener(Runnable listener) {
+    changeListeners.remove(listener);
+  }
+
+  private void commandsChanged() {
+    changeListeners.forEach(Runnable::run);
+  }
+
   @Override
   public Future<Command> registerCommand(Class<? extends AnnotatedCommand> command) {
     return registerCommand(Command.create(vertx, command));
@@ -138,12 +160,15 @@ public class CommandRegistryImpl implements CommandRegistry {
             newReg.put(name, registration);
           }
           commandMap.putAll(newReg);
+          commandsChanged();
         }
 
         @Override
         public void stop() throws Exception {
           String deploymentId = deploymentID();
-          commandMap.values().removeIf(reg -> deploymentId.equals(reg.deploymendID));
+          if (commandMap.values().removeIf(reg -> deploymentId.equals(reg.deploymendID))) {
+            commandsChanged();
+          }
         }
       })
       .onComplete(ar -> {
@@ -174,6 +199,7 @@ public class CommandRegistryImpl implements CommandRegistry {
     }
     CommandRegistration registration = commandMap.remove(name);
     if (registration != null) {
+      commandsChanged();
       String deploymendID = registration.deploymendID;
       if (deploymendID != null) {
         if (commandMap.values().stream().noneMatch(reg -> deploymendID.equals(reg.deploymendID))) {
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command.impl;
+
+import io.vertx.ext.shell.command.CommandResolver;
+
+/**
+ * A command resolver whose commands only change when it notifies its change listeners, allowing its commands
+ * to be indexed by name. The default implementation is a resolver whose commands never change.
+ */
+@FunctionalInterface
+public interface IndexableCommandResolver extends CommandResolver {
+
+  /**
+   * Add a listener called after the commands of this resolver changed.
+   *
+   * @param listener the listener
+   */
+  default void addChangeListener(Runnable listener) {
+  }
+
+  /**
+   * Remove a change listener.
+   *
+   * @param listener the listener
+   */
+  default void removeChangeListener(Runnable listener) {
+  }
+}
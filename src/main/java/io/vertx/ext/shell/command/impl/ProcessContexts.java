@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.command.impl;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.VertxInternal;
+import io.vertx.ext.shell.command.ProcessPlacement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Select the context of a command process according to a {@link ProcessPlacement}.<p/>
+ *
+ * The contexts are created once per Vert.x instance and reused: one context per event loop for
+ * {@link ProcessPlacement#LEAST_LOADED} and as many worker contexts as event loops for {@link ProcessPlacement#WORKER},
+ * the worker contexts are picked in round robin.
+ */
+class ProcessContexts {
+
+  private static final Map<Vertx, ProcessContexts> contextsMap = new ConcurrentHashMap<>();
+
+  /**
+   * @param vertx the vertx instance
+   * @param placement the placement
+   * @param commandContext the context of the command
+   * @return the context for a new process or completion
+   */
+  static Context select(Vertx vertx, ProcessPlacement placement, Context commandContext) {
+    switch (placement) {
+      case SESSION:
+        return vertx.getOrCreateContext();
+      case LEAST_LOADED:
+        return get(vertx).leastLoaded();
+      case WORKER:
+        return get(vertx).worker();
+      default:
+        return commandContext;
+    }
+  }
+
+  private static ProcessContexts get(Vertx vertx) {
+    return contextsMap.computeIfAbsent(vertx, v -> {
+      ((VertxInternal) v).addCloseHook(completionHandler -> {
+        contextsMap.remove(v);
+        completionHandler.handle(Future.succeededFuture());
+      });
+      return new ProcessContexts((VertxInternal) v);
+    });
+  }
+
+  private final VertxInternal vertx;
+  private final EventLoop[] eventLoops;
+  private final AtomicReferenceArray<Context> eventLoopContexts;
+  private final AtomicReferenceArray<Context> workerContexts;
+  private final AtomicInteger nextEventLoop = new AtomicInteger();
+  private final AtomicInteger nextWorker = new AtomicInteger();
+
+  private ProcessContexts(VertxInternal vertx) {
+    List<EventLoop> list = new ArrayList<>();
+    for (EventExecutor executor : vertx.nettyEventLoopGroup()) {
+      if (executor instanceof EventLoop) {
+        list.add((EventLoop) executor);
+      }
+    }
+    this.vertx = vertx;
+    this.eventLoops = list.toArray(new EventLoop[0]);
+    this.eventLoopContexts = new AtomicReferenceArray<>(eventLoops.length);
+    this.workerContexts = new AtomicReferenceArray<>(Math.max(1, eventLoops.length));
+  }
+
+  private Context leastLoaded() {
+    if (eventLoops.length == 0) {
+      return vertx.createEventLoopContext(vertx.nettyEventLoopGroup().next(), null, Thread.currentThread().getContextClassLoader());
+    }
+    int selected = 0;
+    int min = Integer.MAX_VALUE;
+    // Iterate from a rotating position so that idle event loops are picked in a round robin fashion
+    int start = nextEventLoop.getAndIncrement();
+    for (int i = 0; i < eventLoops.length; i++) {
+      int index = Math.floorMod(start + i, eventLoops.length);
+      EventLoop eventLoop = eventLoops[index];
+      int pending = eventLoop instanceof SingleThreadEventExecutor ? ((SingleThreadEventExecutor) eventLoop).pendingTasks() : 0;
+      if (pending < min) {
+        min = pending;
+        selected = index;
+      }
+    }
+    Context context = eventLoopContexts.get(selected);
+    if (context == null) {
+      context = vertx.createEventLoopContext(eventLoops[selected], null, Thread.currentThread().getContextClassLoader());
+      if (!eventLoopContexts.compareAndSet(selected, null, context)) {
+        context = eventLoopContexts.get(selected);
+      }
+    }
+    return context;
+  }
+
+  private Context worker() {
+    int index = Math.floorMod(nextWorker.getAndIncrement(), workerContexts.length());
+    Context context = workerContexts.get(index);
+    if (context == null) {
+      context = vertx.createWorkerContext();
+      if (!workerContexts.compareAndSet(index, null, context)) {
+        context = workerContexts.get(index);
+      }
+    }
+    return context;
+  }
+}
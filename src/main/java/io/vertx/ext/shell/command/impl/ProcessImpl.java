@@ -35,17 +35,26 @@ package io.vertx.ext.shell.command.impl;
 import io.vertx.core.Context;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.cli.CLI;
 import io.vertx.core.cli.CLIException;
 import io.vertx.core.cli.CommandLine;
 import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.impl.ShellMetricsImpl;
 import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.spi.ShellMetrics;
 import io.vertx.ext.shell.system.*;
 import io.vertx.ext.shell.system.Process;
 import io.vertx.ext.shell.term.Tty;
+import io.vertx.ext.shell.term.impl.DrainHandlers;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -53,12 +62,52 @@ import java.util.stream.Collectors;
  */
 public class ProcessImpl implements Process {
 
+  /**
+   * The number of chars or bytes accumulated by a process before its output is flushed to the tty.
+   */
+  static final int MAX_BATCH_SIZE = Integer.getInteger("vertx.shell.output.maxBatchSize", 8 * 1024);
+
+  /**
+   * The maximum time in ms the output of a process is accumulated before being flushed to the tty, {@code 0} flushes
+   * the output at the end of the current event loop tick.
+   */
+  static final long MAX_LATENCY = Long.getLong("vertx.shell.output.maxLatency", 0L);
+
+  /**
+   * The number of chars or bytes pending in the output of a process above which its write queue is reported full,
+   * the drain handler is called once the pending output is flushed.
+   */
+  static final int MAX_PENDING = Math.max(MAX_BATCH_SIZE, 8 * 1024);
+
+  // The usage text of each cli, rendered once
+  private static final Map<CLI, String> usages = Collections.synchronizedMap(new WeakHashMap<>());
+
+  private static String usage(CLI cli) {
+    return usages.computeIfAbsent(cli, key -> {
+      StringBuilder usage = new StringBuilder();
+      key.usage(usage);
+      return usage.append('\n').toString();
+    });
+  }
+
+  /**
+   * Parse again without validation only to check whether help was requested.
+   */
+  private static boolean isAskingForHelp(CLI cli, List<String> args) {
+    try {
+      return cli.parse(args, false).isAskingForHelp();
+    } catch (CLIException e) {
+      return false;
+    }
+  }
+
   private final Vertx vertx;
   private final Context context;
   private final Context processContext;
   private final Command commandContext;
   private final Handler<CommandProcess> handler;
   private final List<CliToken> args;
+  private final ShellMetrics metrics;
   private Tty tty;
   private Session session;
   private Handler<Void> interruptHandler;
@@ -76,8 +125,38 @@ public class ProcessImpl implements Process {
   private ExecStatus processStatus;
   private boolean processForeground;
   private Handler<String> stdinHandler;
+  private Handler<Buffer> stdinBufferHandler;
+  private Handler<Void> stdinEndHandler;
+  private boolean stdinPaused;
   private Handler<Void> resizeHandler;
+  private Handler<Void> drainHandler;
+  private boolean drainAdded; // Whether ttyDrainHandler is added to the drain handlers of the tty
   private Integer exitCode;
+  private long startTime; // System.nanoTime() when the process started running, 0 when it did not
+  private boolean outputStarted;
+
+  // Output written by the command and not yet flushed to the tty: the completed chunks (String or Buffer) followed
+  // by the text or the bytes being accumulated
+  private final List<Object> output = new ArrayList<>();
+  private final StringBuilder text = new StringBuilder();
+  private Buffer bytes;
+  private boolean bytesOwned;
+  private int outputSize;
+  private boolean flushScheduled;
+  private boolean flushTimer;
+  private boolean pendingFull;
+  private boolean drainMissed;
+
+  // The drain handler of this process among the drain handlers of the tty, the tty can be shared with other processes
+  private final Handler<Void> ttyDrainHandler = v -> {
+    Handler<Void> handler;
+    synchronized (ProcessImpl.this) {
+      handler = drainHandler;
+    }
+    if (handler != null) {
+      handler.handle(null);
+    }
+  };
 
   public ProcessImpl(Vertx vertx, Context context, Command commandContext, List<CliToken> args, Handler<CommandProcess> handler) {
     this.vertx = vertx;
@@ -87,6 +166,14 @@ public class ProcessImpl implements Process {
     this.args = args;
     processContext = vertx.getOrCreateContext();
     processStatus = ExecStatus.READY;
+    metrics = ShellMetricsImpl.get(vertx);
+  }
+
+  /**
+   * @return the context the command handlers are called on
+   */
+  public Context context() {
+    return context;
   }
 
   @Override
@@ -237,12 +324,18 @@ public class ProcessImpl implements Process {
   private void updateStatus(ExecStatus statusUpdate, Integer exitCodeUpdate, boolean foregroundUpdate, Handler<Void> handler, Handler<Integer> terminatedHandler, Handler<Void> completionHandler) {
     processStatus = statusUpdate;
     exitCode = exitCodeUpdate;
+    if (statusUpdate == ExecStatus.TERMINATED && startTime != 0) {
+      metrics.processTerminated(commandContext.name(), System.nanoTime() - startTime, exitCodeUpdate);
+    }
     if (!foregroundUpdate) {
       if (processForeground) {
         processForeground = false;
         if (stdinHandler != null) {
           tty.stdinHandler(null);
         }
+        if (stdinBufferHandler != null) {
+          tty.stdinBufferHandler(null);
+        }
         if (resizeHandler != null) {
           tty.resizehandler(null);
         }
@@ -253,11 +346,25 @@ public class ProcessImpl implements Process {
         if (stdinHandler != null) {
           tty.stdinHandler(stdinHandler);
         }
+        if (stdinBufferHandler != null) {
+          tty.stdinBufferHandler(stdinBufferHandler);
+        }
         if (resizeHandler != null) {
           tty.resizehandler(resizeHandler);
         }
       }
     }
+    if (statusUpdate == ExecStatus.TERMINATED) {
+      drainHandler = null;
+      if (drainAdded) {
+        drainAdded = false;
+        DrainHandlers.remove(tty, ttyDrainHandler);
+      }
+    }
+    if (statusUpdate == ExecStatus.TERMINATED && stdinEndHandler != null) {
+      stdinEndHandler = null;
+      tty.stdinEndHandler(null);
+    }
     context.runOnContext(v -> {
       foreground = foregroundUpdate;
       try {
@@ -270,11 +377,152 @@ public class ProcessImpl implements Process {
         }
       }
     });
-    if (terminatedHandler != null && statusUpdate == ExecStatus.TERMINATED) {
-      processContext.runOnContext(v -> terminatedHandler.handle(exitCodeUpdate));
+    if (statusUpdate == ExecStatus.TERMINATED) {
+      // Flush the pending output before the termination is signaled
+      processContext.runOnContext(v -> flushOutput());
+      if (terminatedHandler != null) {
+        processContext.runOnContext(v -> terminatedHandler.handle(exitCodeUpdate));
+      }
+    }
+  }
+
+  /**
+   * Schedule a flush of the accumulated output, the writes performed until the flush happens are coalesced into
+   * a single tty write.
+   */
+  private void scheduleFlush() {
+    if (flushScheduled) {
+      return;
+    }
+    if (MAX_LATENCY > 0 && outputSize < MAX_BATCH_SIZE) {
+      if (!flushTimer) {
+        flushTimer = true;
+        vertx.setTimer(MAX_LATENCY, id -> processContext.runOnContext(v -> {
+          synchronized (ProcessImpl.this) {
+            flushTimer = false;
+          }
+          flushOutput();
+        }));
+      }
+    } else {
+      flushScheduled = true;
+      processContext.runOnContext(v -> flushOutput());
+    }
+  }
+
+  private void appendText(String data) {
+    if (bytes != null) {
+      output.add(bytes);
+      bytes = null;
+    }
+    text.append(data);
+    outputSize += data.length();
+  }
+
+  private void appendBytes(Buffer data) {
+    if (text.length() > 0) {
+      output.add(completeText());
+    }
+    if (bytes == null) {
+      // Keep the buffer as is, it is copied only when another buffer is appended
+      bytes = data;
+      bytesOwned = false;
+    } else {
+      if (!bytesOwned) {
+        bytes = Buffer.buffer(bytes.length() + data.length()).appendBuffer(bytes);
+        bytesOwned = true;
+      }
+      bytes.appendBuffer(data);
+    }
+    outputSize += data.length();
+  }
+
+  private String completeText() {
+    String s = text.toString();
+    text.setLength(0);
+    if (text.capacity() > 2 * MAX_BATCH_SIZE) {
+      text.trimToSize();
+    }
+    return s;
+  }
+
+  /**
+   * @return whether the output should be flushed synchronously by the writer
+   */
+  private boolean outputAppended() {
+    if (!outputStarted) {
+      outputStarted = true;
+      metrics.processOutput(commandContext.name(), System.nanoTime() - startTime);
+    }
+    if (outputSize >= MAX_BATCH_SIZE && Vertx.currentContext() == processContext) {
+      return true;
+    }
+    scheduleFlush();
+    return false;
+  }
+
+  private void flushOutput() {
+    List<Object> chunks;
+    boolean drain;
+    Handler<Void> drainHandler;
+    synchronized (this) {
+      flushScheduled = false;
+      if (outputSize == 0) {
+        return;
+      }
+      if (text.length() > 0) {
+        output.add(completeText());
+      } else if (bytes != null) {
+        output.add(bytes);
+        bytes = null;
+      }
+      chunks = new ArrayList<>(output);
+      output.clear();
+      outputSize = 0;
+      drain = pendingFull;
+      pendingFull = false;
+      drainHandler = this.drainHandler;
+      // The writer might set its drain handler after it found the write queue full
+      drainMissed = drain && drainHandler == null;
+    }
+    for (Object chunk : chunks) {
+      if (chunk instanceof String) {
+        tty.write((String) chunk);
+      } else {
+        tty.write((Buffer) chunk);
+      }
+    }
+    // When the tty is full its own drain calls the handler
+    if (drain && drainHandler != null && !tty.writeQueueFull()) {
+      drainHandler.handle(null);
     }
   }
 
+  /**
+   * Wrap a standard input handler of the command, the tty is paused until the command has handled a chunk so a tty
+   * reading its input on demand does not read ahead of the command, e.g an SSH exec channel stops acknowledging its
+   * window while the command is paused.
+   */
+  private <T> Handler<T> deliverStdin(Handler<T> handler) {
+    return data -> {
+      Tty tty = getTty();
+      tty.pauseStdin();
+      context.runOnContext(v -> {
+        try {
+          handler.handle(data);
+        } finally {
+          boolean resume;
+          synchronized (ProcessImpl.this) {
+            resume = !stdinPaused;
+          }
+          if (resume) {
+            tty.resumeStdin();
+          }
+        }
+      });
+    };
+  }
+
   @Override
   public synchronized void run(boolean fg) {
     if (processStatus != ExecStatus.READY) {
@@ -283,6 +531,8 @@ public class ProcessImpl implements Process {
     processStatus = ExecStatus.RUNNING;
     processForeground = fg;
     foreground = fg;
+    startTime = System.nanoTime();
+    metrics.processStarted(commandContext.name());
 
     // Make a local copy
     Tty tty = this.tty;
@@ -292,23 +542,18 @@ public class ProcessImpl implements Process {
 
     CommandLine cl;
     final List<String> args2 = args.stream().filter(CliToken::isText).map(CliToken::value).collect(Collectors.toList());
-    if (commandContext.cli() != null) {
-
-      //
+    CLI cli = commandContext.cli();
+    if (cli != null) {
       try {
-        // Build to skip validation problems
-        if (commandContext.cli().parse(args2, false).isAskingForHelp()) {
-          StringBuilder usage = new StringBuilder();
-          commandContext.cli().usage(usage);
-          usage.append('\n');
-          tty.write(usage.toString());
-          terminate();
-          return;
-        }
-
-        cl = commandContext.cli().parse(args2);
+        // Validation is skipped by the parser when help is requested
+        cl = cli.parse(args2);
       } catch (CLIException e) {
-        tty.write(e.getMessage() + "\n");
+        tty.write(isAskingForHelp(cli, args2) ? usage(cli) : e.getMessage() + "\n");
+        terminate();
+        return;
+      }
+      if (cl.isAskingForHelp()) {
+        tty.write(usage(cli));
         terminate();
         return;
       }
@@ -366,7 +611,7 @@ public class ProcessImpl implements Process {
       @Override
       public CommandProcess stdinHandler(Handler<String> handler) {
         if (handler != null) {
-          stdinHandler = data -> context.runOnContext(v -> handler.handle(data));
+          stdinHandler = deliverStdin(handler);
         } else {
           stdinHandler = null;
         }
@@ -376,14 +621,123 @@ public class ProcessImpl implements Process {
         return this;
       }
 
+      @Override
+      public CommandProcess stdinBufferHandler(Handler<Buffer> handler) {
+        if (handler != null) {
+          stdinBufferHandler = deliverStdin(handler);
+        } else {
+          stdinBufferHandler = null;
+        }
+        if (processForeground && stdinBufferHandler != null) {
+          tty.stdinBufferHandler(stdinBufferHandler);
+        }
+        return this;
+      }
+
+      @Override
+      public CommandProcess pauseStdin() {
+        synchronized (ProcessImpl.this) {
+          stdinPaused = true;
+        }
+        tty.pauseStdin();
+        return this;
+      }
+
+      @Override
+      public CommandProcess resumeStdin() {
+        synchronized (ProcessImpl.this) {
+          stdinPaused = false;
+        }
+        tty.resumeStdin();
+        return this;
+      }
+
+      @Override
+      public CommandProcess stdinEndHandler(Handler<Void> handler) {
+        synchronized (ProcessImpl.this) {
+          if (handler != null) {
+            stdinEndHandler = v -> context.runOnContext(handler::handle);
+          } else {
+            stdinEndHandler = null;
+          }
+          tty.stdinEndHandler(stdinEndHandler);
+        }
+        return this;
+      }
+
       @Override
       public CommandProcess write(String data) {
+        boolean flush;
         synchronized (ProcessImpl.this) {
           if (processStatus != ExecStatus.RUNNING) {
             throw new IllegalStateException("Cannot write to standard output when " + status().name().toLowerCase());
           }
+          appendText(data);
+          flush = outputAppended();
+        }
+        if (flush) {
+          flushOutput();
+        }
+        return this;
+      }
+
+      @Override
+      public CommandProcess write(Buffer data) {
+        boolean flush;
+        synchronized (ProcessImpl.this) {
+          if (processStatus != ExecStatus.RUNNING) {
+            throw new IllegalStateException("Cannot write to standard output when " + status().name().toLowerCase());
+          }
+          appendBytes(data);
+          flush = outputAppended();
+        }
+        if (flush) {
+          flushOutput();
+        }
+        return this;
+      }
+
+      @Override
+      public boolean writeQueueFull() {
+        synchronized (ProcessImpl.this) {
+          if (outputSize >= MAX_PENDING) {
+            pendingFull = true;
+            drainMissed = false;
+            return true;
+          }
+        }
+        return tty.writeQueueFull();
+      }
+
+      @Override
+      public CommandProcess drainHandler(Handler<Void> handler) {
+        synchronized (ProcessImpl.this) {
+          if (handler != null) {
+            drainHandler = v -> context.runOnContext(handler::handle);
+            if (drainMissed) {
+              drainMissed = false;
+              processContext.runOnContext(v -> {
+                Handler<Void> drain;
+                synchronized (ProcessImpl.this) {
+                  drain = outputSize < MAX_PENDING ? drainHandler : null;
+                }
+                if (drain != null && !tty.writeQueueFull()) {
+                  drain.handle(null);
+                }
+              });
+            }
+            if (!drainAdded && processStatus != ExecStatus.TERMINATED) {
+              drainAdded = true;
+              DrainHandlers.add(tty, ttyDrainHandler);
+            }
+          } else {
+            drainHandler = null;
+            if (drainAdded) {
+              drainAdded = false;
+              DrainHandlers.remove(tty, ttyDrainHandler);
+            }
+          }
         }
-        processContext.runOnContext(v -> tty.write(data));
         return this;
       }
 
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.impl;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * The root directory of the shell file system, shared by the file system commands, the output redirections and
+ * the file transfers.
+ */
+public class FsRoot {
+
+  private FsRoot() {
+  }
+
+  /**
+   * @return the root directory, configured with the {@code vertx.cwd} system property
+   */
+  public static Path rootPath() {
+    return new File(System.getProperty("vertx.cwd", ".")).getAbsoluteFile().toPath().normalize();
+  }
+
+  /**
+   * Resolve a path against a directory, or against the root directory when the directory is null.
+   *
+   * @param dir the directory or null
+   * @param path the path to resolve
+   * @return the absolute normalized path
+   * @throws IllegalArgumentException when the resolved path is outside of the root directory
+   */
+  public static Path resolve(String dir, String path) {
+    Path root = rootPath();
+    Path base = dir != null ? new File(dir).toPath() : root;
+    Path resolved = base.resolve(path).toAbsolutePath().normalize();
+    if (!resolved.startsWith(root)) {
+      throw new IllegalArgumentException(path + ": Permission denied");
+    }
+    return resolved;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in microseconds with a log-linear bucketing in the style of HdrHistogram.<p/>
+ *
+ * Values below {@code 64} have their own bucket, above each power of two is split in {@code 64} buckets so the
+ * recorded values are kept with a relative precision better than {@code 1/64}. Values above {@link #MAX_VALUE}
+ * are recorded as {@link #MAX_VALUE}. Recording is a single atomic increment, reading a percentile scans the
+ * buckets and may not reflect the values recorded concurrently.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 39;
+
+  /**
+   * The highest trackable value, about 12 days in microseconds.
+   */
+  public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+  private final LongAdder total = new LongAdder();
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) Math.max(value, 0);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+  }
+
+  /**
+   * @return the highest value recorded in the bucket at {@code index}
+   */
+  static long highestValueAt(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long sub = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  /**
+   * Record a value.
+   *
+   * @param micros the value in microseconds
+   */
+  public void record(long micros) {
+    counts.incrementAndGet(indexOf(Math.min(micros, MAX_VALUE)));
+    total.increment();
+  }
+
+  /**
+   * @return the number of recorded values
+   */
+  public long count() {
+    return total.sum();
+  }
+
+  /**
+   * Compute the value at a percentile, the returned value is the highest value equivalent to the actual value
+   * within the histogram precision.
+   *
+   * @param percentile the percentile between {@code 0} and {@code 100}
+   * @return the value in microseconds or {@code 0} when no value is recorded
+   */
+  public long valueAtPercentile(double percentile) {
+    int length = counts.length();
+    long[] snapshot = new long[length];
+    long count = 0;
+    for (int i = 0; i < length; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+    long cumulated = 0;
+    for (int i = 0; i < length; i++) {
+      cumulated += snapshot[i];
+      if (cumulated >= rank) {
+        return highestValueAt(i);
+      }
+    }
+    return highestValueAt(length - 1);
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.impl;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * A hashed timing wheel tracking the idle deadline of sessions.<p/>
+ *
+ * Each session is stored in the bucket of the tick at which it would expire if it stayed idle. On each tick
+ * only the due buckets are visited: the last accessed time of a due session is read again and the session is
+ * either expired or moved to the bucket of its new deadline. Terminal activity therefore does not need to
+ * update the wheel, an active session is simply rescheduled when its previous deadline comes due.
+ */
+public class SessionTimeoutWheel<S> {
+
+  private static final int DEFAULT_WHEEL_SIZE = 512;
+
+  private static class Entry<S> {
+
+    final S session;
+    long deadline;
+    int bucket;
+
+    Entry(S session, long deadline) {
+      this.session = session;
+      this.deadline = deadline;
+    }
+  }
+
+  private final long tickMillis;
+  private final long timeoutMillis;
+  private final ToLongFunction<S> lastAccessedTime;
+  private final List<Entry<S>>[] buckets;
+  private final int mask;
+  private final Map<S, Entry<S>> entries = new IdentityHashMap<>();
+  private long currentTick = -1;
+
+  public SessionTimeoutWheel(long tickMillis, long timeoutMillis, ToLongFunction<S> lastAccessedTime) {
+    this(tickMillis, timeoutMillis, lastAccessedTime, DEFAULT_WHEEL_SIZE);
+  }
+
+  @SuppressWarnings("unchecked")
+  public SessionTimeoutWheel(long tickMillis, long timeoutMillis, ToLongFunction<S> lastAccessedTime, int wheelSize) {
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("Tick must be > 0");
+    }
+    if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+      throw new IllegalArgumentException("Wheel size must be a power of two");
+    }
+    this.tickMillis = tickMillis;
+    this.timeoutMillis = timeoutMillis;
+    this.lastAccessedTime = lastAccessedTime;
+    this.buckets = new List[wheelSize];
+    this.mask = wheelSize - 1;
+    for (int i = 0; i < wheelSize; i++) {
+      buckets[i] = new ArrayList<>();
+    }
+  }
+
+  /**
+   * Start tracking a session.
+   *
+   * @param session the session
+   */
+  public synchronized void add(S session) {
+    if (!entries.containsKey(session)) {
+      Entry<S> entry = new Entry<>(session, lastAccessedTime.applyAsLong(session) + timeoutMillis);
+      entries.put(session, entry);
+      schedule(entry);
+    }
+  }
+
+  /**
+   * Stop tracking a session.
+   *
+   * @param session the session
+   */
+  public synchronized void remove(S session) {
+    Entry<S> entry = entries.remove(session);
+    if (entry != null) {
+      buckets[entry.bucket].remove(entry);
+    }
+  }
+
+  /**
+   * @return the number of tracked sessions
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Advance the wheel to {@code now} and return the sessions that have been idle for more than the timeout,
+   * those sessions are not tracked anymore.
+   *
+   * @param now the current time
+   * @return the expired sessions
+   */
+  public synchronized List<S> expire(long now) {
+    List<S> expired = new ArrayList<>();
+    long tick = now / tickMillis;
+    if (currentTick < 0 || tick - currentTick > buckets.length) {
+      // Visit each bucket at most once when the wheel is late by more than a revolution
+      currentTick = tick - buckets.length;
+    }
+    while (currentTick < tick) {
+      currentTick++;
+      List<Entry<S>> bucket = buckets[(int) (currentTick & mask)];
+      if (bucket.isEmpty()) {
+        continue;
+      }
+      List<Entry<S>> due = new ArrayList<>(bucket);
+      bucket.clear();
+      for (Entry<S> entry : due) {
+        if (entry.deadline / tickMillis > tick) {
+          // Due in a later revolution
+          bucket.add(entry);
+        } else if (entry.deadline < now) {
+          entry.deadline = lastAccessedTime.applyAsLong(entry.session) + timeoutMillis;
+          if (entry.deadline < now) {
+            entries.remove(entry.session);
+            expired.add(entry.session);
+          } else {
+            schedule(entry);
+          }
+        } else {
+          schedule(entry);
+        }
+      }
+    }
+    return expired;
+  }
+
+  private void schedule(Entry<S> entry) {
+    // Never schedule in a bucket already visited for the current tick
+    long tick = Math.max(entry.deadline / tickMillis, currentTick + 1);
+    entry.bucket = (int) (tick & mask);
+    buckets[entry.bucket].add(entry);
+  }
+}
@@ -34,21 +34,25 @@ package io.vertx.ext.shell.impl;
 
 import io.termd.core.util.Helper;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.ext.shell.Shell;
 import io.vertx.ext.shell.session.Session;
 import io.vertx.ext.shell.session.impl.SessionImpl;
+import io.vertx.ext.shell.spi.ShellMetrics;
 import io.vertx.ext.shell.system.*;
 import io.vertx.ext.shell.system.Process;
 import io.vertx.ext.shell.system.impl.InternalCommandManager;
+import io.vertx.ext.shell.system.impl.DetachedJobs;
 import io.vertx.ext.shell.system.impl.JobControllerImpl;
+import io.vertx.ext.shell.system.impl.JobImpl;
 import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.term.Term;
 
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * The shell session as seen from the shell server perspective.
@@ -59,6 +63,7 @@ public class ShellImpl implements Shell {
 
   final String id;
   final Promise<Void> closedPromise;
+  private final Vertx vertx;
   private final InternalCommandManager commandManager;
   private final Session session = new SessionImpl();
   private final JobControllerImpl jobController;
@@ -66,12 +71,21 @@ public class ShellImpl implements Shell {
   private String welcome;
   private Function<Session, String> promptFunc = s -> "% ";
 
-  public ShellImpl(Term term, InternalCommandManager commandManager) {
+  public ShellImpl(Vertx vertx, Term term, InternalCommandManager commandManager) {
+    this(vertx, term, commandManager, new ShellMetrics() {});
+  }
+
+  public ShellImpl(Vertx vertx, Term term, InternalCommandManager commandManager, ShellMetrics metrics) {
+    this(vertx, term, commandManager, metrics, null);
+  }
+
+  public ShellImpl(Vertx vertx, Term term, InternalCommandManager commandManager, ShellMetrics metrics, DetachedJobs detachedJobs) {
 
     session.put("vert.x-command-manager", commandManager);
 
+    this.vertx = vertx;
     this.id = UUID.randomUUID().toString();
-    this.jobController = new JobControllerImpl();
+    this.jobController = new JobControllerImpl(metrics, detachedJobs);
     this.commandManager = commandManager;
     this.closedPromise = Promise.promise();
     this.term = term;
@@ -94,8 +108,43 @@ public class ShellImpl implements Shell {
   public synchronized Job createJob(List<CliToken> args) {
     StringBuilder line = new StringBuilder();
     args.stream().map(CliToken::raw).forEach(line::append);
-    Process process = commandManager.createProcess(args);
-    return jobController.createJob(process, line.toString());
+    List<CliToken> command = args;
+    String output = null;
+    boolean append = false;
+    for (int i = 0; i < args.size(); i++) {
+      CliToken token = args.get(i);
+      if (isOperator(token, "&")) {
+        throw new IllegalArgumentException("syntax error near unexpected token `&'");
+      } else if (isOperator(token, ">") || isOperator(token, ">>")) {
+        // The redirection ends the line and applies to the output of the job
+        List<CliToken> target = args.subList(i + 1, args.size()).stream().filter(CliToken::isText).collect(Collectors.toList());
+        if (target.size() != 1 || isOperator(target.get(0), "|")) {
+          throw new IllegalArgumentException("syntax error near unexpected token `" + token.raw() + "'");
+        }
+        command = args.subList(0, i);
+        output = resolvePath(target.get(0).value());
+        append = token.raw().equals(">>");
+        break;
+      }
+    }
+    Process process = commandManager.createProcess(command);
+    Job job = jobController.createJob(process, line.toString().trim());
+    if (output != null) {
+      ((JobImpl) job).redirectOutput(vertx, output, append);
+    }
+    return job;
+  }
+
+  private static boolean isOperator(CliToken token, String operator) {
+    return token.isText() && token.raw().equals(operator);
+  }
+
+  /**
+   * Resolve a path against the current directory of the session, like the file system commands, the path must be
+   * in the root directory.
+   */
+  private String resolvePath(String path) {
+    return FsRoot.resolve(session.get("cwd"), path).toString();
   }
 
   @Override
@@ -155,10 +204,7 @@ public class ShellImpl implements Shell {
   }
 
   private Job findJob() {
-    Job foregroundJob = jobController.foregroundJob();
-    return jobController().jobs().
-      stream().
-      filter(job -> job != foregroundJob).min(Comparator.comparingLong(Job::lastStopped)).orElse(null);
+    return jobController.currentJob();
   }
 
   public void readline() {
@@ -233,6 +279,19 @@ public class ShellImpl implements Shell {
         }
       }
 
+      // A trailing & runs the job in background
+      boolean foreground = true;
+      for (int i = tokens.size() - 1; i >= 0; i--) {
+        CliToken token = tokens.get(i);
+        if (token.isText()) {
+          if (isOperator(token, "&")) {
+            foreground = false;
+            tokens = tokens.subList(0, i);
+          }
+          break;
+        }
+      }
+
       Job job;
       try {
         job = createJob(tokens);
@@ -243,7 +302,11 @@ public class ShellImpl implements Shell {
       }
       job.setTty(term);
       job.setSession(session);
-      job.run();
+      ((JobImpl) job).run(foreground);
+      if (!foreground) {
+        term.echo("[" + job.id() + "] " + job.line() + "\n");
+        readline();
+      }
     }, commandManager::complete);
   }
 
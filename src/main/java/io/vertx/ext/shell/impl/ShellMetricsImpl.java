@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.VertxInternal;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.shell.spi.ShellMetrics;
+import io.vertx.ext.shell.spi.ShellMetricsFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The in-memory shell metrics, based on striped counters.<p/>
+ *
+ * The metrics of a Vert.x instance are obtained with {@link #get(Vertx)}, a {@link ShellMetricsFactory} found by the
+ * {@link ServiceLoader} replaces this implementation. The snapshot of the metrics is sent as a reply to any
+ * message sent to the {@link #ADDRESS} local event bus address.
+ */
+public class ShellMetricsImpl implements ShellMetrics {
+
+  /**
+   * The event bus address replying with the JSON snapshot of the metrics.
+   */
+  public static final String ADDRESS = "vertx.shell.metrics";
+
+  private static final Map<Vertx, ShellMetrics> metricsMap = new ConcurrentHashMap<>();
+
+  /**
+   * @param vertx the vertx instance
+   * @return the metrics of the Vert.x instance
+   */
+  public static ShellMetrics get(Vertx vertx) {
+    ShellMetrics metrics = metricsMap.get(vertx);
+    if (metrics == null) {
+      ShellMetrics created = create(vertx);
+      metrics = metricsMap.putIfAbsent(vertx, created);
+      if (metrics == null) {
+        // Registered once, outside of the map update, the snapshot is only available to this node
+        metrics = created;
+        vertx.eventBus().localConsumer(ADDRESS, msg -> msg.reply(created.snapshot()));
+        ((VertxInternal) vertx).addCloseHook(completionHandler -> {
+          metricsMap.remove(vertx);
+          completionHandler.handle(Future.succeededFuture());
+        });
+      }
+    }
+    return metrics;
+  }
+
+  private static ShellMetrics create(Vertx vertx) {
+    Iterator<ShellMetricsFactory> it = ServiceLoader.load(ShellMetricsFactory.class).iterator();
+    if (it.hasNext()) {
+      ShellMetrics metrics = it.next().metrics(vertx);
+      if (metrics != null) {
+        return metrics;
+      }
+    }
+    return new ShellMetricsImpl();
+  }
+
+  private static class Sessions {
+    final LongAdder open = new LongAdder();
+    final LongAdder total = new LongAdder();
+  }
+
+  private static class CommandStats {
+    final LongAdder running = new LongAdder();
+    final LongAdder count = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder totalNanos = new LongAdder();
+    final AtomicLong maxNanos = new AtomicLong();
+    final LatencyHistogram duration = new LatencyHistogram();
+    final LatencyHistogram firstOutput = new LatencyHistogram();
+    final ConcurrentHashMap<Integer, LongAdder> exitCodes = new ConcurrentHashMap<>();
+  }
+
+  private final ConcurrentHashMap<String, Sessions> sessions = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, LongAdder> bytesWritten = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, CommandStats> commands = new ConcurrentHashMap<>();
+  private final LongAdder jobsRunning = new LongAdder();
+  private final LongAdder jobsTotal = new LongAdder();
+
+  private CommandStats command(String name) {
+    String key = name != null ? name : "";
+    CommandStats stats = commands.get(key);
+    return stats != null ? stats : commands.computeIfAbsent(key, n -> new CommandStats());
+  }
+
+  private Sessions sessions(String transport) {
+    Sessions s = sessions.get(transport);
+    return s != null ? s : sessions.computeIfAbsent(transport, t -> new Sessions());
+  }
+
+  @Override
+  public void sessionOpened(String transport) {
+    Sessions s = sessions(transport);
+    s.open.increment();
+    s.total.increment();
+  }
+
+  @Override
+  public void sessionClosed(String transport) {
+    sessions(transport).open.decrement();
+  }
+
+  @Override
+  public void jobCreated() {
+    jobsRunning.increment();
+    jobsTotal.increment();
+  }
+
+  @Override
+  public void jobTerminated() {
+    jobsRunning.decrement();
+  }
+
+  @Override
+  public void processStarted(String command) {
+    command(command).running.increment();
+  }
+
+  @Override
+  public void processTerminated(String command, long durationNanos, int exitCode) {
+    CommandStats stats = command(command);
+    stats.running.decrement();
+    stats.count.increment();
+    if (exitCode != 0) {
+      stats.failures.increment();
+    }
+    stats.totalNanos.add(durationNanos);
+    stats.maxNanos.accumulateAndGet(durationNanos, Math::max);
+    stats.duration.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    LongAdder exitCount = stats.exitCodes.get(exitCode);
+    if (exitCount == null) {
+      exitCount = stats.exitCodes.computeIfAbsent(exitCode, code -> new LongAdder());
+    }
+    exitCount.increment();
+  }
+
+  @Override
+  public void processOutput(String command, long durationNanos) {
+    command(command).firstOutput.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+  }
+
+  /**
+   * @return the p50, p99 and p999 of a histogram in microseconds
+   */
+  private static JsonObject percentiles(LatencyHistogram histogram) {
+    return new JsonObject()
+      .put("count", histogram.count())
+      .put("p50", histogram.valueAtPercentile(50))
+      .put("p99", histogram.valueAtPercentile(99))
+      .put("p999", histogram.valueAtPercentile(99.9));
+  }
+
+  @Override
+  public void bytesWritten(String transport, long bytes) {
+    LongAdder adder = bytesWritten.get(transport);
+    if (adder == null) {
+      adder = bytesWritten.computeIfAbsent(transport, t -> new LongAdder());
+    }
+    adder.add(bytes);
+  }
+
+  @Override
+  public JsonObject snapshot() {
+    JsonObject sessionsJson = new JsonObject();
+    sessions.forEach((transport, s) -> sessionsJson.put(transport, new JsonObject()
+      .put("open", s.open.sum())
+      .put("total", s.total.sum())));
+    JsonObject bytesJson = new JsonObject();
+    bytesWritten.forEach((transport, bytes) -> bytesJson.put(transport, bytes.sum()));
+    JsonObject commandsJson = new JsonObject();
+    commands.forEach((name, stats) -> {
+      JsonObject exitCodesJson = new JsonObject();
+      stats.exitCodes.forEach((code, count) -> exitCodesJson.put(String.valueOf(code), count.sum()));
+      commandsJson.put(name, new JsonObject()
+        .put("running", stats.running.sum())
+        .put("count", stats.count.sum())
+        .put("failures", stats.failures.sum())
+        .put("totalTime", TimeUnit.NANOSECONDS.toMillis(stats.totalNanos.sum()))
+        .put("maxTime", TimeUnit.NANOSECONDS.toMillis(stats.maxNanos.get()))
+        .put("duration", percentiles(stats.duration))
+        .put("firstOutput", percentiles(stats.firstOutput))
+        .put("exitCodes", exitCodesJson));
+    });
+    return new JsonObject()
+      .put("sessions", sessionsJson)
+      .put("jobs", new JsonObject().put("running", jobsRunning.sum()).put("total", jobsTotal.sum()))
+      .put("commands", commandsJson)
+      .put("bytesWritten", bytesJson);
+  }
+}
@@ -33,31 +33,41 @@
 package io.vertx.ext.shell.impl;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Closeable;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.internal.VertxInternal;
 import io.vertx.ext.shell.Shell;
 import io.vertx.ext.shell.ShellServer;
 import io.vertx.ext.shell.ShellServerOptions;
+import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.command.CommandProcess;
 import io.vertx.ext.shell.command.CommandResolver;
+import io.vertx.ext.shell.command.impl.IndexableCommandResolver;
 import io.vertx.ext.shell.session.impl.SessionImpl;
+import io.vertx.ext.shell.spi.ShellMetrics;
 import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.system.impl.DetachedJobs;
 import io.vertx.ext.shell.system.impl.InternalCommandManager;
 import io.vertx.ext.shell.term.Term;
 import io.vertx.ext.shell.term.TermServer;
+import io.vertx.ext.shell.term.impl.HttpTermServer;
 import io.vertx.ext.shell.term.impl.SSHServer;
+import io.vertx.ext.shell.term.impl.TelnetTermServer;
+import io.vertx.ext.shell.term.impl.TermImpl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -66,6 +76,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class ShellServerImpl implements ShellServer {
 
+  // The listening servers of each Vert.x instance, e.g the instances of a shell verticle
+  private static final Map<Vertx, Set<ShellServerImpl>> servers = new ConcurrentHashMap<>();
+
   private final Vertx vertx;
   private final CopyOnWriteArrayList<CommandResolver> resolvers;
   private final InternalCommandManager commandManager;
@@ -76,8 +89,18 @@ public class ShellServerImpl implements ShellServer {
   private boolean closed = true;
   private long timerID = -1;
   private final Map<String, ShellImpl> sessions;
+  private final ShellMetrics metrics;
+  private final SessionTimeoutWheel<ShellImpl> sessionTimeouts;
   private final Promise<Void> sessionsClosed = Promise.promise();
+  private final DetachedJobs detachedJobs = new DetachedJobs();
   private Handler<Shell> shellHandler;
+  private final Closeable closeHook = completionHandler -> {
+    servers.computeIfPresent(vertx, (v, set) -> {
+      set.remove(this);
+      return set.isEmpty() ? null : set;
+    });
+    completionHandler.handle(Future.succeededFuture());
+  };
 
   public ShellServerImpl(Vertx vertx, ShellServerOptions options) {
     this.vertx = vertx;
@@ -86,22 +109,27 @@ public class ShellServerImpl implements ShellServer {
     this.timeoutMillis = options.getSessionTimeout();
     this.sessions = new ConcurrentHashMap<>();
     this.reaperInterval = options.getReaperInterval();
+    this.sessionTimeouts = reaperInterval > 0 ? new SessionTimeoutWheel<>(reaperInterval, timeoutMillis, ShellImpl::lastAccessedTime) : null;
     this.resolvers = new CopyOnWriteArrayList<>();
     this.commandManager = new InternalCommandManager(resolvers);
+    this.metrics = ShellMetricsImpl.get(vertx);
 
     // Register builtin commands so they are listed in help
-    resolvers.add(() -> Arrays.asList(
+    List<Command> builtins = Arrays.asList(
         CommandBuilder.command("exit").processHandler(process -> {}).build(vertx),
         CommandBuilder.command("logout").processHandler(process -> {}).build(vertx),
         CommandBuilder.command("jobs").processHandler(process -> {}).build(vertx),
         CommandBuilder.command("fg").processHandler(process -> {}).build(vertx),
-        CommandBuilder.command("bg").processHandler(process -> {}).build(vertx)
-    ));
+        CommandBuilder.command("bg").processHandler(process -> {}).build(vertx),
+        CommandBuilder.command("sessions").processHandler(this::listSessions).build(vertx)
+    );
+    resolvers.add((IndexableCommandResolver) () -> builtins);
   }
 
   @Override
   public synchronized ShellServer registerCommandResolver(CommandResolver resolver) {
     resolvers.add(0, resolver);
+    commandManager.invalidate();
     return this;
   }
 
@@ -111,7 +139,22 @@ public class ShellServerImpl implements ShellServer {
     return this;
   }
 
-  private void handleTerm(Term term) {
+  /**
+   * @return the transport name of a term server reported to the metrics
+   */
+  private static String transportName(TermServer termServer) {
+    if (termServer instanceof SSHServer) {
+      return "ssh";
+    } else if (termServer instanceof TelnetTermServer) {
+      return "telnet";
+    } else if (termServer instanceof HttpTermServer) {
+      return "http";
+    } else {
+      return termServer.getClass().getSimpleName();
+    }
+  }
+
+  private void handleTerm(String transport, Term term) {
     synchronized (this) {
       // That might happen with multiple ser
       if (closed) {
@@ -121,10 +164,18 @@ public class ShellServerImpl implements ShellServer {
     }
     ShellImpl session = createShell(term);
     session.setWelcome(welcomeMessage);
+    if (term instanceof TermImpl) {
+      ((TermImpl) term).metrics(metrics, transport);
+    }
+    metrics.sessionOpened(transport);
     session.closedPromise.future().onComplete(ar -> {
+      metrics.sessionClosed(transport);
       boolean completeSessionClosed;
       synchronized (ShellServerImpl.this) {
         sessions.remove(session.id);
+        if (sessionTimeouts != null) {
+          sessionTimeouts.remove(session);
+        }
         completeSessionClosed = sessions.isEmpty() && closed;
       }
       if (completeSessionClosed) {
@@ -136,6 +187,9 @@ public class ShellServerImpl implements ShellServer {
       shellHandler.handle(session);
     }
     sessions.put(session.id, session); // Put after init so the close handler on the connection is set
+    if (sessionTimeouts != null) {
+      sessionTimeouts.add(session);
+    }
     session.readline(); // Now readline
   }
 
@@ -153,6 +207,7 @@ public class ShellServerImpl implements ShellServer {
       synchronized (this) {
         closed = false;
       }
+      register();
       return Future.succeededFuture();
     }
     Promise<Void> p = Promise.promise();
@@ -169,14 +224,17 @@ public class ShellServerImpl implements ShellServer {
           synchronized (this) {
             closed = false;
           }
+          register();
           setTimer();
           p.handle(Future.succeededFuture());
         }
       }
     };
     toStart.forEach(termServer -> {
+      String transport = transportName(termServer);
       if (termServer instanceof SSHServer) {
         ((SSHServer)termServer).setExecHandler(exec -> {
+          exec.metrics(metrics, transport);
           Process process = commandManager.createProcess(exec.command());
           process.setSession(new SessionImpl());
           process.setTty(exec);
@@ -184,23 +242,55 @@ public class ShellServerImpl implements ShellServer {
           process.run(true);
         });
       }
-      termServer.termHandler(this::handleTerm);
+      termServer.termHandler(term -> handleTerm(transport, term));
       termServer.listen()
         .onComplete(handler);
     });
     return p.future();
   }
 
-  private void evictSessions(long timerID) {
+  private void register() {
+    servers.compute(vertx, (v, set) -> {
+      if (set == null) {
+        set = new CopyOnWriteArraySet<>();
+      }
+      set.add(this);
+      return set;
+    });
+    // A server not closed before Vert.x is removed from the servers when Vert.x closes
+    ((VertxInternal) vertx).addCloseHook(closeHook);
+  }
+
+  private void unregister() {
+    ((VertxInternal) vertx).removeCloseHook(closeHook);
+    servers.computeIfPresent(vertx, (v, set) -> {
+      set.remove(this);
+      return set.isEmpty() ? null : set;
+    });
+  }
+
+  /**
+   * List the sessions of all the servers of the Vert.x instance.
+   */
+  private void listSessions(CommandProcess process) {
     long now = System.currentTimeMillis();
-    Set<ShellImpl> toClose = new HashSet<>();
-    for (ShellImpl session: sessions.values()) {
-      if (now - session.lastAccessedTime() > timeoutMillis) {
-        toClose.add(session);
+    int instance = 0;
+    for (ShellServerImpl server : servers.getOrDefault(vertx, Collections.emptySet())) {
+      for (ShellImpl session : server.sessions.values()) {
+        process.write(session.id + " instance " + instance + " idle " + (now - session.lastAccessedTime()) / 1000 +
+          "s jobs " + session.jobController().jobs().size() + "\n");
       }
+      instance++;
     }
-    for (ShellImpl session: toClose) {
-      session.close();
+    process.end();
+  }
+
+  private void evictSessions(long timerID) {
+    long now = System.currentTimeMillis();
+    for (ShellImpl session: sessionTimeouts.expire(now)) {
+      if (sessions.get(session.id) == session) {
+        session.close();
+      }
     }
     setTimer();
   }
@@ -221,7 +311,7 @@ public class ShellServerImpl implements ShellServer {
     if (closed) {
       throw new IllegalStateException("Closed");
     }
-    return new ShellImpl(term, commandManager);
+    return new ShellImpl(vertx, term, commandManager, metrics, detachedJobs);
   }
 
   @Override
@@ -237,6 +327,8 @@ public class ShellServerImpl implements ShellServer {
         if (timerID != -1) {
           vertx.cancelTimer(timerID);
         }
+        commandManager.close();
+        unregister();
         toStop = termServers;
         toClose = new ArrayList<>(sessions.values());
         if (toClose.isEmpty()) {
@@ -245,7 +337,7 @@ public class ShellServerImpl implements ShellServer {
       }
     }
     if (toStop.isEmpty() && toClose.isEmpty()) {
-      return Future.succeededFuture();
+      return detachedJobs.close();
     } else {
       Promise<Void> p = Promise.promise();
       AtomicInteger count = new AtomicInteger(1 + toClose.size());
@@ -256,7 +348,8 @@ public class ShellServerImpl implements ShellServer {
       };
       toClose.forEach(ShellImpl::close);
       toStop.forEach(termServer -> termServer.close().onComplete(handler));
-      sessionsClosed.future().onComplete(handler);
+      // The sessions being closed detach their background jobs before the detached jobs are terminated
+      sessionsClosed.future().compose(v -> detachedJobs.close()).onComplete(handler);
       return p.future();
     }
   }
@@ -33,6 +33,7 @@
 package io.vertx.ext.shell.impl;
 
 import io.vertx.core.*;
+import io.vertx.core.internal.VertxInternal;
 import io.vertx.ext.shell.ShellServer;
 import io.vertx.ext.shell.ShellServerOptions;
 import io.vertx.ext.shell.command.CommandRegistry;
@@ -48,9 +49,13 @@ import io.vertx.ext.shell.term.impl.TelnetTermServer;
 import io.vertx.ext.shell.term.impl.HttpTermServer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -58,6 +63,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class ShellServiceImpl implements ShellService {
 
+  private static final Map<Vertx, List<CommandResolverFactory>> sharedFactories = new ConcurrentHashMap<>();
+
   private final Vertx vertx;
   private final ShellServiceOptions options;
   private final ShellServer server;
@@ -77,9 +84,54 @@ public class ShellServiceImpl implements ShellService {
 
   @Override
   public Future<Void> start() {
-
     Promise<Void> p = Promise.promise();
 
+    // The resolvers are created on the context of the service so the commands of each instance run on the context
+    // of the instance, the term servers are started from this context so that instances deployed on several event
+    // loops share the listening ports
+    Context context = vertx.getOrCreateContext();
+    List<CommandResolverFactory> factories = sharedFactories(vertx);
+
+    // When providers are registered we start the server
+    AtomicInteger count = new AtomicInteger(factories.size());
+    List<CommandResolver> resolvers = new CopyOnWriteArrayList<>();
+    resolvers.add(registry);
+    Handler<Void> startServer = v -> {
+      if (count.decrementAndGet() == 0) {
+        context.runOnContext(done -> startServer(resolvers, p));
+      }
+    };
+    context.runOnContext(v -> {
+      for (CommandResolverFactory factory : factories) {
+        factory.resolver(vertx, ar -> {
+          if (ar.succeeded()) {
+            resolvers.add(ar.result());
+          }
+          startServer.handle(null);
+        });
+      }
+    });
+
+    return p.future();
+  }
+
+  /**
+   * @return the {@link CommandResolverFactory} implementations, looked up once and shared by the services of a Vert.x
+   * instance
+   */
+  private static List<CommandResolverFactory> sharedFactories(Vertx vertx) {
+    return sharedFactories.computeIfAbsent(vertx, v -> {
+      VertxInternal vertxInternal = (VertxInternal) vertx;
+      vertxInternal.addCloseHook(completionHandler -> {
+        sharedFactories.remove(vertx);
+        completionHandler.handle(Future.succeededFuture());
+      });
+      return lookupFactories();
+    });
+  }
+
+  private static List<CommandResolverFactory> lookupFactories() {
+
     // Lookup providers
     ServiceLoader<CommandResolverFactory> loader = ServiceLoader.load(CommandResolverFactory.class);
     Iterator<CommandResolverFactory> it = loader.iterator();
@@ -96,26 +148,7 @@ public class ShellServiceImpl implements ShellService {
       } catch (Exception e) {
       }
     }
-
-    // When providers are registered we start the server
-    AtomicInteger count = new AtomicInteger(factories.size());
-    List<CommandResolver> resolvers = new ArrayList<>();
-    resolvers.add(registry);
-    Handler<Void> startServer = v -> {
-      if (count.decrementAndGet() == 0) {
-        startServer(resolvers, p);
-      }
-    };
-    for (CommandResolverFactory factory : factories) {
-      factory.resolver(vertx, ar -> {
-        if (ar.succeeded()) {
-          resolvers.add(ar.result());
-        }
-        startServer.handle(null);
-      });
-    }
-
-    return p.future();
+    return Collections.unmodifiableList(factories);
   }
 
   private void startServer(List<CommandResolver> resolvers, Completable<Void> startHandler) {
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.spi;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The SPI interface for the shell metrics, the methods are called from the event loop or the process threads and
+ * should be cheap.
+ */
+public interface ShellMetrics {
+
+  /**
+   * Called when a term server opens a shell session.
+   *
+   * @param transport the transport of the term server, e.g {@code ssh}
+   */
+  default void sessionOpened(String transport) {
+  }
+
+  /**
+   * Called when a shell session is closed.
+   *
+   * @param transport the transport of the term server
+   */
+  default void sessionClosed(String transport) {
+  }
+
+  /**
+   * Called when a job is created.
+   */
+  default void jobCreated() {
+  }
+
+  /**
+   * Called when a job is terminated.
+   */
+  default void jobTerminated() {
+  }
+
+  /**
+   * Called when a command process starts running.
+   *
+   * @param command the command name
+   */
+  default void processStarted(String command) {
+  }
+
+  /**
+   * Called when a command process writes its first output.
+   *
+   * @param command the command name
+   * @param durationNanos the time elapsed since the process started, in nanoseconds
+   */
+  default void processOutput(String command, long durationNanos) {
+  }
+
+  /**
+   * Called when a command process terminates.
+   *
+   * @param command the command name
+   * @param durationNanos the time elapsed since the process started, in nanoseconds
+   * @param exitCode the process exit code
+   */
+  default void processTerminated(String command, long durationNanos, int exitCode) {
+  }
+
+  /**
+   * Called when output is written to the transport of a terminal, the echo and the prompt included.
+   *
+   * @param transport the transport of the terminal
+   * @param bytes the number of encoded bytes
+   */
+  default void bytesWritten(String transport, long bytes) {
+  }
+
+  /**
+   * @return a snapshot of the metrics
+   */
+  default JsonObject snapshot() {
+    return new JsonObject();
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.spi;
+
+import io.vertx.core.Vertx;
+
+/**
+ * The SPI interface for providing the {@link ShellMetrics}, it is discovered with the {@link java.util.ServiceLoader}.
+ * When no factory is found, metrics are kept in memory.
+ */
+public interface ShellMetricsFactory {
+
+  /**
+   * Obtain the metrics of a Vert.x instance.
+   *
+   * @param vertx the vertx instance
+   * @return the metrics
+   */
+  ShellMetrics metrics(Vertx vertx);
+
+}
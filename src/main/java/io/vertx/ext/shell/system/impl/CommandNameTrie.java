@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.system.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A prefix trie of command names, used to complete the command name of a line. The names are returned in the order
+ * they were added, i.e the order of the resolvers and of their commands.
+ */
+class CommandNameTrie {
+
+  private static final char[] NO_KEYS = new char[0];
+  private static final Node[] NO_CHILDREN = new Node[0];
+
+  private static class Node {
+
+    char[] keys = NO_KEYS; // Sorted
+    Node[] children = NO_CHILDREN;
+    String name; // Not null when a name ends at this node
+    int order; // The insertion order of the name
+
+    Node child(char c) {
+      int index = Arrays.binarySearch(keys, c);
+      return index >= 0 ? children[index] : null;
+    }
+
+    Node getOrCreateChild(char c) {
+      int index = Arrays.binarySearch(keys, c);
+      if (index >= 0) {
+        return children[index];
+      }
+      index = -(index + 1);
+      Node child = new Node();
+      char[] newKeys = new char[keys.length + 1];
+      Node[] newChildren = new Node[children.length + 1];
+      System.arraycopy(keys, 0, newKeys, 0, index);
+      System.arraycopy(children, 0, newChildren, 0, index);
+      newKeys[index] = c;
+      newChildren[index] = child;
+      System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+      System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+      keys = newKeys;
+      children = newChildren;
+      return child;
+    }
+
+    void collect(List<Node> nodes) {
+      if (name != null) {
+        nodes.add(this);
+      }
+      for (Node child : children) {
+        child.collect(nodes);
+      }
+    }
+  }
+
+  private final Node root = new Node();
+  private int size;
+
+  /**
+   * Add a name to the trie, a name already added keeps its order.
+   *
+   * @param name the name
+   */
+  void add(String name) {
+    Node node = root;
+    for (int i = 0; i < name.length(); i++) {
+      node = node.getOrCreateChild(name.charAt(i));
+    }
+    if (node.name == null) {
+      node.name = name;
+      node.order = size++;
+    }
+  }
+
+  private Node find(String prefix) {
+    Node node = root;
+    for (int i = 0; i < prefix.length() && node != null; i++) {
+      node = node.child(prefix.charAt(i));
+    }
+    return node;
+  }
+
+  /**
+   * @param prefix the prefix
+   * @return the names starting with the prefix in the order they were added
+   */
+  List<String> names(String prefix) {
+    List<Node> nodes = new ArrayList<>();
+    Node node = find(prefix);
+    if (node != null) {
+      node.collect(nodes);
+      nodes.sort(Comparator.comparingInt(n -> n.order));
+    }
+    List<String> names = new ArrayList<>(nodes.size());
+    for (Node n : nodes) {
+      names.add(n.name);
+    }
+    return names;
+  }
+
+  /**
+   * Compute the longest common prefix of the names starting with the prefix, the result never ends in the middle
+   * of a surrogate pair.
+   *
+   * @param prefix the prefix
+   * @return the longest common prefix or {@code null} when no names start with the prefix
+   */
+  String longestCommonPrefix(String prefix) {
+    Node node = find(prefix);
+    if (node == null) {
+      return null;
+    }
+    StringBuilder lcp = new StringBuilder(prefix);
+    while (node.name == null && node.children.length == 1) {
+      lcp.append(node.keys[0]);
+      node = node.children[0];
+    }
+    int len = lcp.length();
+    if (len > prefix.length() && Character.isHighSurrogate(lcp.charAt(len - 1))) {
+      lcp.setLength(len - 1);
+    }
+    return lcp.toString();
+  }
+}
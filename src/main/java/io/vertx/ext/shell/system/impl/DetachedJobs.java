@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.system.impl;
+
+import io.vertx.core.Future;
+import io.vertx.ext.shell.system.Job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The jobs of a shell server that outlived their session, i.e background jobs with their output redirected to a
+ * file. The jobs are terminated when the server closes.
+ */
+public class DetachedJobs {
+
+  private final Set<JobImpl> jobs = ConcurrentHashMap.newKeySet();
+  private final Set<Job> jobsView = Collections.unmodifiableSet(jobs);
+  private boolean closed;
+
+  /**
+   * @return a live view of the detached jobs
+   */
+  public Set<Job> jobs() {
+    return jobsView;
+  }
+
+  /**
+   * Detach a job from its session, the job is terminated when the jobs are closed already.
+   */
+  void add(JobImpl job) {
+    synchronized (this) {
+      if (!closed) {
+        jobs.add(job);
+        job.terminatePromise.future().onComplete(v -> jobs.remove(job));
+        return;
+      }
+    }
+    job.terminate();
+  }
+
+  /**
+   * Terminate the detached jobs.
+   *
+   * @return a future completed when the jobs are terminated
+   */
+  public Future<Void> close() {
+    List<JobImpl> toTerminate;
+    synchronized (this) {
+      closed = true;
+      toTerminate = new ArrayList<>(jobs);
+    }
+    List<Future<Void>> terminated = new ArrayList<>();
+    for (JobImpl job : toTerminate) {
+      terminated.add(job.terminatePromise.future());
+      job.terminate();
+    }
+    return Future.all(terminated).mapEmpty();
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.system.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.ext.shell.term.Tty;
+
+/**
+ * The tty of a job which output is redirected to a file: the standard input and the size are the ones of the job
+ * tty and the output is written to an {@link AsyncFile}.<p/>
+ *
+ * The process output is already coalesced by the process before reaching the tty, the write queue of the file
+ * provides the back pressure to the process, no terminal encoding is applied.
+ */
+class FileOutputTty implements Tty {
+
+  private final Tty tty;
+  private final AsyncFile file;
+
+  FileOutputTty(Tty tty, AsyncFile file) {
+    this.tty = tty;
+    this.file = file;
+  }
+
+  @Override
+  public String type() {
+    return tty.type();
+  }
+
+  @Override
+  public int width() {
+    return tty.width();
+  }
+
+  @Override
+  public int height() {
+    return tty.height();
+  }
+
+  @Override
+  public Tty stdinHandler(Handler<String> handler) {
+    tty.stdinHandler(handler);
+    return this;
+  }
+
+  @Override
+  public Tty stdinBufferHandler(Handler<Buffer> handler) {
+    tty.stdinBufferHandler(handler);
+    return this;
+  }
+
+  @Override
+  public Tty pauseStdin() {
+    tty.pauseStdin();
+    return this;
+  }
+
+  @Override
+  public Tty resumeStdin() {
+    tty.resumeStdin();
+    return this;
+  }
+
+  @Override
+  public Tty stdinEndHandler(Handler<Void> handler) {
+    tty.stdinEndHandler(handler);
+    return this;
+  }
+
+  @Override
+  public Tty write(String data) {
+    file.write(Buffer.buffer(data));
+    return this;
+  }
+
+  @Override
+  public Tty write(Buffer data) {
+    file.write(data);
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return file.writeQueueFull();
+  }
+
+  @Override
+  public Tty drainHandler(Handler<Void> handler) {
+    file.drainHandler(handler);
+    return this;
+  }
+
+  @Override
+  public Tty resizehandler(Handler<Void> handler) {
+    tty.resizehandler(handler);
+    return this;
+  }
+
+  /**
+   * Close the file once the pending writes are done.
+   */
+  Future<Void> close() {
+    return file.close();
+  }
+}
@@ -38,16 +38,23 @@ import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandResolver;
+import io.vertx.ext.shell.command.base.BaseCommandPack;
+import io.vertx.ext.shell.command.impl.IndexableCommandResolver;
 import io.vertx.ext.shell.session.Session;
 import io.vertx.ext.shell.system.Process;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -55,6 +62,10 @@ import java.util.stream.Collectors;
 public class InternalCommandManager {
 
   private final List<CommandResolver> resolvers;
+  private final AtomicLong version = new AtomicLong();
+  private final Runnable invalidator = this::invalidate;
+  private final Set<IndexableCommandResolver> observed = Collections.newSetFromMap(new IdentityHashMap<>());
+  private volatile Index index;
 
   public InternalCommandManager(CommandResolver... resolvers) {
     this.resolvers = Arrays.asList(resolvers);
@@ -68,6 +79,131 @@ public class InternalCommandManager {
     return resolvers;
   }
 
+  /**
+   * Invalidate the command index, this must be called when the list of resolvers is modified.
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+  }
+
+  /**
+   * Stop observing the resolvers.
+   */
+  public void close() {
+    synchronized (observed) {
+      observed.forEach(resolver -> resolver.removeChangeListener(invalidator));
+      observed.clear();
+    }
+    invalidate();
+  }
+
+  /**
+   * Lookup a command by its name, respecting the order of the resolvers.
+   *
+   * @param name the command name
+   * @return the command or null
+   */
+  @SuppressWarnings("unchecked")
+  public Command getCommand(String name) {
+    for (Object segment : index().segments) {
+      Command command;
+      if (segment instanceof CommandResolver) {
+        command = ((CommandResolver) segment).getCommand(name);
+      } else {
+        command = ((Map<String, Command>) segment).get(name);
+      }
+      if (command != null) {
+        return command;
+      }
+    }
+    return null;
+  }
+
+  private Index index() {
+    Index current = index;
+    long v = version.get();
+    if (current == null || current.version != v) {
+      current = buildIndex(v);
+      index = current;
+    }
+    return current;
+  }
+
+  /**
+   * Build the lookup segments in resolver order: the commands of consecutive indexable resolvers are merged in a
+   * single map, other resolvers are queried when looking up a command. The names of the indexed commands are
+   * added to the completion trie in resolver order.<p/>
+   *
+   * The index is rebuilt by the first lookup following a change, so a burst of registrations rebuilds it once.
+   */
+  private Index buildIndex(long version) {
+    List<Object> segments = new ArrayList<>();
+    CommandNameTrie names = new CommandNameTrie();
+    boolean dynamic = false;
+    Map<String, Command> map = null;
+    Set<IndexableCommandResolver> indexables = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (CommandResolver resolver : resolvers) {
+      if (isIndexable(resolver)) {
+        if (resolver instanceof IndexableCommandResolver) {
+          IndexableCommandResolver indexable = (IndexableCommandResolver) resolver;
+          indexables.add(indexable);
+          synchronized (observed) {
+            if (observed.add(indexable)) {
+              indexable.addChangeListener(invalidator);
+            }
+          }
+        }
+        if (map == null) {
+          map = new HashMap<>();
+          segments.add(map);
+        }
+        for (Command command : resolver.commands()) {
+          if (map.putIfAbsent(command.name(), command) == null) {
+            names.add(command.name());
+          }
+        }
+      } else {
+        map = null;
+        segments.add(resolver);
+        dynamic = true;
+      }
+    }
+    // Stop observing the resolvers removed from the manager
+    synchronized (observed) {
+      observed.removeIf(resolver -> {
+        if (indexables.contains(resolver)) {
+          return false;
+        }
+        resolver.removeChangeListener(invalidator);
+        return true;
+      });
+    }
+    return new Index(version, segments, names, dynamic);
+  }
+
+  /**
+   * @return whether the commands of the resolver can be indexed, the commands of the base command pack never change
+   *         unless a subclass overrides them
+   */
+  private static boolean isIndexable(CommandResolver resolver) {
+    return resolver instanceof IndexableCommandResolver || resolver.getClass() == BaseCommandPack.class;
+  }
+
+  private static class Index {
+
+    final long version;
+    final List<Object> segments; // Map<String, Command> or CommandResolver
+    final CommandNameTrie names; // The names of the indexed commands
+    final boolean dynamic; // Whether some resolvers are not indexed
+
+    Index(long version, List<Object> segments, CommandNameTrie names, boolean dynamic) {
+      this.version = version;
+      this.segments = segments;
+      this.names = names;
+      this.dynamic = dynamic;
+    }
+  }
+
   /**
    * Parses a command line and try to create a process.
    *
@@ -79,33 +215,70 @@ public class InternalCommandManager {
   }
 
   /**
-   * Try to create a process from the command line tokens.
+   * Try to create a process from the command line tokens, a line with {@code |} tokens creates a pipeline process.
    *
    * @param line the command line tokens
    * @return the created process
    */
   public Process createProcess(List<CliToken> line) {
     try {
-      return makeRequest(line);
+      List<List<CliToken>> stages = splitPipeline(line);
+      if (stages.size() == 1) {
+        return makeRequest(stages.get(0));
+      }
+      List<Process> processes = new ArrayList<>(stages.size());
+      for (List<CliToken> stage : stages) {
+        processes.add(makeRequest(stage));
+      }
+      return new PipelineProcess(processes);
     } catch (Exception e) {
       throw new VertxException(e);
     }
   }
 
+  /**
+   * @return whether the token separates the stages of a pipeline, a quoted or escaped {@code |} is a plain argument
+   */
+  static boolean isPipe(CliToken token) {
+    return token.isText() && token.raw().equals("|");
+  }
+
+  private static List<List<CliToken>> splitPipeline(List<CliToken> line) {
+    List<List<CliToken>> stages = new ArrayList<>();
+    int from = 0;
+    for (int i = 0; i < line.size(); i++) {
+      if (isPipe(line.get(i))) {
+        stages.add(pipelineStage(line.subList(from, i)));
+        from = i + 1;
+      }
+    }
+    if (from == 0) {
+      stages.add(line);
+    } else {
+      stages.add(pipelineStage(line.subList(from, line.size())));
+    }
+    return stages;
+  }
+
+  private static List<CliToken> pipelineStage(List<CliToken> tokens) {
+    if (tokens.stream().noneMatch(CliToken::isText)) {
+      throw new IllegalArgumentException("syntax error near unexpected token `|'");
+    }
+    return tokens;
+  }
+
   private Process makeRequest(List<CliToken> s) {
     ListIterator<CliToken> tokens = s.listIterator();
     while (tokens.hasNext()) {
       CliToken token = tokens.next();
       if (token.isText()) {
-        for (CommandResolver resolver : resolvers) {
-          Command command = resolver.getCommand(token.value());
-          if (command != null) {
-            List<CliToken> remaining = new ArrayList<>();
-            while (tokens.hasNext()) {
-              remaining.add(tokens.next());
-            }
-            return command.createProcess(remaining);
+        Command command = getCommand(token.value());
+        if (command != null) {
+          List<CliToken> remaining = new ArrayList<>();
+          while (tokens.hasNext()) {
+            remaining.add(tokens.next());
           }
+          return command.createProcess(remaining);
         }
         throw new IllegalArgumentException(token.value() + ": command not found");
       }
@@ -121,6 +294,14 @@ public class InternalCommandManager {
   public void complete(Completion completion) {
     LinkedList<CliToken> tokens = new LinkedList<>(completion.lineTokens());
 
+    // Complete the last stage of a pipeline
+    for (int i = tokens.size() - 1; i >= 0; i--) {
+      if (isPipe(tokens.get(i))) {
+        tokens.subList(0, i + 1).clear();
+        break;
+      }
+    }
+
     // Remove any leading white space
     while (tokens.size() > 0 && tokens.getFirst().isBlank()) {
       tokens.removeFirst();
@@ -140,53 +321,63 @@ public class InternalCommandManager {
           StringBuilder tmp = new StringBuilder();
           newTokens.stream().forEach(token -> tmp.append(token.raw()));
           String line = tmp.toString();
-          for (CommandResolver resolver : resolvers) {
-            Command command = resolver.getCommand(ct.value());
-            if (command != null) {
-              command.complete(new Completion() {
-                @Override
-                public Vertx vertx() {
-                  return completion.vertx();
-                }
-                @Override
-                public Session session() {
-                  return completion.session();
-                }
-                @Override
-                public String rawLine() {
-                  return line;
-                }
-                @Override
-                public List<CliToken> lineTokens() {
-                  return newTokens;
-                }
-                @Override
-                public void complete(List<String> candidates) {
-                  completion.complete(candidates);
-                }
-                @Override
-                public void complete(String value, boolean terminal) {
-                  completion.complete(value, terminal);
-                }
-              });
-              return;
-            }
+          Command command = getCommand(ct.value());
+          if (command != null) {
+            command.complete(new Completion() {
+              @Override
+              public Vertx vertx() {
+                return completion.vertx();
+              }
+              @Override
+              public Session session() {
+                return completion.session();
+              }
+              @Override
+              public String rawLine() {
+                return line;
+              }
+              @Override
+              public List<CliToken> lineTokens() {
+                return newTokens;
+              }
+              @Override
+              public void complete(List<String> candidates) {
+                completion.complete(candidates);
+              }
+              @Override
+              public void complete(String value, boolean terminal) {
+                completion.complete(value, terminal);
+              }
+            });
+            return;
           }
           completion.complete(Collections.emptyList());
         }
       }
     } else {
       String prefix = tokens.size() > 0 ? tokens.getFirst().value() : "";
-      List<String> names = resolvers.stream().
-          flatMap(res -> res.commands().stream()).
-          map(Command::name).
-          filter(name -> name.startsWith(prefix)).
-          distinct().
-          collect(Collectors.toList());
+      Index index = index();
+      List<String> names;
+      String commonPrefix;
+      if (index.dynamic) {
+        // The resolvers that are not indexed are queried in resolver order
+        LinkedHashSet<String> all = new LinkedHashSet<>();
+        for (CommandResolver resolver : resolvers) {
+          for (Command command : resolver.commands()) {
+            if (command.name().startsWith(prefix)) {
+              all.add(command.name());
+            }
+          }
+        }
+        names = new ArrayList<>(all);
+        commonPrefix = Completion.findLongestCommonPrefix(names);
+      } else {
+        names = index.names.names(prefix);
+        commonPrefix = names.isEmpty() ? prefix : index.names.longestCommonPrefix(prefix);
+      }
       if (names.size() == 1) {
         completion.complete(names.get(0).substring(prefix.length()), true);
       } else {
-        String commonPrefix = Completion.findLongestCommonPrefix(names);
         if (commonPrefix.length() > prefix.length()) {
           completion.complete(commonPrefix.substring(prefix.length()), false);
         } else {
@@ -33,18 +33,21 @@
 package io.vertx.ext.shell.system.impl;
 
 import io.vertx.core.Handler;
+import io.vertx.ext.shell.spi.ShellMetrics;
 import io.vertx.ext.shell.system.Process;
 import io.vertx.ext.shell.system.Job;
 import io.vertx.ext.shell.system.JobController;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -53,26 +56,94 @@ public class JobControllerImpl implements JobController {
 
   Handler<Job> foregroundUpdatedHandler;
   Job foregroundJob; // The currently running job
-  private final SortedMap<Integer, JobImpl> jobs = new TreeMap<>();
-  private boolean closed = false;
+  private final ConcurrentSkipListMap<Integer, JobImpl> jobs = new ConcurrentSkipListMap<>();
+  private final ConcurrentSkipListMap<Long, JobImpl> stopped = new ConcurrentSkipListMap<>(); // Jobs out of the foreground, by recency
+  private final AtomicLong sequence = new AtomicLong();
+  private final Set<Job> jobsView = Collections.unmodifiableSet(new AbstractSet<Job>() {
+    @Override
+    public Iterator<Job> iterator() {
+      return Collections.<Job>unmodifiableCollection(jobs.values()).iterator();
+    }
+    @Override
+    public int size() {
+      return jobs.size();
+    }
+  });
+  private final ShellMetrics metrics;
+  private final DetachedJobs detachedJobs;
+  private volatile boolean closed = false;
 
   public JobControllerImpl() {
+    this(new ShellMetrics() {});
+  }
+
+  public JobControllerImpl(ShellMetrics metrics) {
+    this(metrics, null);
+  }
+
+  /**
+   * @param metrics the shell metrics
+   * @param detachedJobs the jobs outliving their session, or {@code null} when such jobs are left running untracked
+   */
+  public JobControllerImpl(ShellMetrics metrics, DetachedJobs detachedJobs) {
+    this.metrics = metrics;
+    this.detachedJobs = detachedJobs;
   }
 
   public Job foregroundJob() {
     return foregroundJob;
   }
 
-  public synchronized Set<Job> jobs() {
-    return new HashSet<>(jobs.values());
+  /**
+   * @return a live view of the active jobs
+   */
+  public Set<Job> jobs() {
+    return jobsView;
   }
 
-  public synchronized Job getJob(int id) {
+  public Job getJob(int id) {
     return jobs.get(id);
   }
 
-  synchronized boolean removeJob(int id) {
-    return jobs.remove(id) != null;
+  /**
+   * @return the most recently stopped or backgrounded job, i.e the job {@literal fg} and {@literal bg} act on
+   */
+  public Job currentJob() {
+    Map.Entry<Long, JobImpl> entry = stopped.lastEntry();
+    return entry != null ? entry.getValue() : null;
+  }
+
+  /**
+   * Signal the job left the foreground.
+   */
+  void jobStopped(JobImpl job) {
+    long stamp = sequence.incrementAndGet();
+    long previous = job.stoppedSequence;
+    job.stoppedSequence = stamp;
+    if (previous != 0) {
+      stopped.remove(previous, job);
+    }
+    stopped.put(stamp, job);
+  }
+
+  /**
+   * Signal the job is back in the foreground or terminated.
+   */
+  void jobResumed(JobImpl job) {
+    long previous = job.stoppedSequence;
+    if (previous != 0) {
+      job.stoppedSequence = 0;
+      stopped.remove(previous, job);
+    }
+  }
+
+  boolean removeJob(JobImpl job) {
+    jobResumed(job);
+    if (jobs.remove(job.id, job)) {
+      metrics.jobTerminated();
+      return true;
+    }
+    return false;
   }
 
   public JobController foregroundUpdatedHandler(Handler<Job> handler) {
@@ -82,10 +153,16 @@ public class JobControllerImpl implements JobController {
 
   @Override
   public Job createJob(Process process, String line) {
-    int id = jobs.isEmpty() ? 1 : jobs.lastKey() + 1;
-    JobImpl job = new JobImpl(id, this, process, line);
-    jobs.put(id, job);
-    return job;
+    while (true) {
+      // Reuse the ids of the terminated jobs above the highest active id
+      Map.Entry<Integer, JobImpl> last = jobs.lastEntry();
+      int id = last == null ? 1 : last.getKey() + 1;
+      JobImpl job = new JobImpl(id, this, process, line);
+      if (jobs.putIfAbsent(id, job) == null) {
+        metrics.jobCreated();
+        return job;
+      }
+    }
   }
 
   @Override
@@ -96,6 +173,16 @@ public class JobControllerImpl implements JobController {
         jobs = Collections.emptyList();
       } else {
         jobs = new ArrayList<>(this.jobs.values());
+        // Background jobs writing to a file outlive the session, the server terminates them when it closes
+        jobs.removeIf(job -> {
+          if (job.isDetachable()) {
+            if (detachedJobs != null) {
+              detachedJobs.add(job);
+            }
+            return true;
+          }
+          return false;
+        });
         closed = true;
       }
     }
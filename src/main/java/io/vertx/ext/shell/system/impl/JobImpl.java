@@ -35,6 +35,9 @@ package io.vertx.ext.shell.system.impl;
 import io.vertx.core.Handler;
 
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.ext.shell.session.Session;
 import io.vertx.ext.shell.system.Process;
 import io.vertx.ext.shell.term.Tty;
@@ -52,10 +55,21 @@ public class JobImpl implements Job {
   final String line;
   private volatile ExecStatus actualStatus; // Used internally for testing only
   volatile long lastStopped; // When the job was last stopped
+  volatile long stoppedSequence; // The key of the job in the controller stopped jobs, 0 when not stopped
   volatile Tty tty;
   volatile Session session;
   volatile Handler<ExecStatus> statusUpdateHandler;
   final Promise<Void> terminatePromise;
+  private Vertx vertx;
+  private String outputPath; // The file the output is redirected to or null
+  private boolean appendOutput;
+  private volatile FileOutputTty outputTty;
+  // While the output file is opened the job is published but its process is not run yet, the signals received in
+  // the meantime are applied once the process runs
+  private boolean opening;
+  private boolean openingForeground;
+  private boolean pendingInterrupt;
+  private boolean pendingSuspend;
 
   JobImpl(int id, JobControllerImpl controller, Process process, String line) {
     this.id = id;
@@ -65,20 +79,53 @@ public class JobImpl implements Job {
     this.terminatePromise = Promise.promise();
 
     process.terminatedHandler(exitCode -> {
-      if (controller.foregroundJob == this) {
-        controller.foregroundJob = null;
-        if (controller.foregroundUpdatedHandler != null) {
-          controller.foregroundUpdatedHandler.handle(null);
-        }
-      }
-      controller.removeJob(JobImpl.this.id);
-      if (statusUpdateHandler != null) {
-        statusUpdateHandler.handle(ExecStatus.TERMINATED);
+      FileOutputTty output = outputTty;
+      if (output != null) {
+        // Signal the termination once the output is entirely written
+        output.close().onComplete(ar -> terminated());
+      } else {
+        terminated();
       }
-      terminatePromise.complete();
     });
   }
 
+  private void terminated() {
+    if (controller.foregroundJob == this) {
+      controller.foregroundJob = null;
+      if (controller.foregroundUpdatedHandler != null) {
+        controller.foregroundUpdatedHandler.handle(null);
+      }
+    }
+    controller.removeJob(JobImpl.this);
+    if (statusUpdateHandler != null) {
+      statusUpdateHandler.handle(ExecStatus.TERMINATED);
+    }
+    terminatePromise.complete();
+  }
+
+  /**
+   * Redirect the output of the job to a file, this must be called before the job runs.
+   *
+   * @param vertx the vertx instance opening the file
+   * @param path the file path
+   * @param append true to append the output to the file, false to truncate the file
+   * @return this object
+   */
+  public JobImpl redirectOutput(Vertx vertx, String path, boolean append) {
+    this.vertx = vertx;
+    this.outputPath = path;
+    this.appendOutput = append;
+    return this;
+  }
+
+  /**
+   * @return whether the job can keep running when its session is closed, i.e it runs in background with its output
+   *         redirected to a file
+   */
+  boolean isDetachable() {
+    return outputPath != null && controller.foregroundJob != this && status() == ExecStatus.RUNNING;
+  }
+
   @Override
   public Job setSession(Session session) {
     this.session = session;
@@ -97,6 +144,12 @@ public class JobImpl implements Job {
 
   @Override
   public boolean interrupt() {
+    synchronized (this) {
+      if (opening) {
+        pendingInterrupt = true;
+        return true;
+      }
+    }
     return process.interrupt();
   }
 
@@ -105,29 +158,52 @@ public class JobImpl implements Job {
     if (controller.foregroundJob != null) {
       throw new IllegalStateException();
     }
-    try {
-      process.resume(foreground, v -> actualStatus = ExecStatus.RUNNING);
-    } catch (IllegalStateException ignore) {
+    boolean pending;
+    synchronized (this) {
+      pending = opening;
+      if (opening) {
+        pendingSuspend = false;
+        openingForeground = foreground;
+      }
+    }
+    if (!pending) {
+      try {
+        process.resume(foreground, v -> actualStatus = ExecStatus.RUNNING);
+      } catch (IllegalStateException ignore) {
+      }
     }
     if (foreground) {
+      controller.jobResumed(this);
       controller.foregroundJob = this;
       if (controller.foregroundUpdatedHandler != null) {
         controller.foregroundUpdatedHandler.handle(this);
       }
     }
     if (statusUpdateHandler != null) {
-      statusUpdateHandler.handle(process.status());
+      statusUpdateHandler.handle(status());
     }
     return this;
   }
 
   @Override
   public Job suspend() {
-    try {
-      process.suspend(v -> actualStatus = ExecStatus.STOPPED);
-    } catch (IllegalStateException ignore) {
-      return this;
+    boolean pending;
+    synchronized (this) {
+      pending = opening;
+      if (opening) {
+        pendingSuspend = true;
+        openingForeground = false;
+      }
     }
+    if (!pending) {
+      try {
+        process.suspend(v -> actualStatus = ExecStatus.STOPPED);
+      } catch (IllegalStateException ignore) {
+        return this;
+      }
+    }
+    lastStopped = System.currentTimeMillis();
+    controller.jobStopped(this);
     if (controller.foregroundJob == this) {
       controller.foregroundJob = null;
       if (controller.foregroundUpdatedHandler != null) {
@@ -135,7 +211,7 @@ public class JobImpl implements Job {
       }
     }
     if (statusUpdateHandler != null) {
-      statusUpdateHandler.handle(process.status());
+      statusUpdateHandler.handle(status());
     }
     return this;
   }
@@ -159,6 +235,11 @@ public class JobImpl implements Job {
   }
 
   public ExecStatus status() {
+    synchronized (this) {
+      if (opening) {
+        return pendingSuspend ? ExecStatus.STOPPED : ExecStatus.RUNNING;
+      }
+    }
     return process.status();
   }
 
@@ -170,9 +251,13 @@ public class JobImpl implements Job {
   public Job toBackground() {
     if (controller.foregroundJob == this) {
       controller.foregroundJob = null;
-      process.toBackground();
+      lastStopped = System.currentTimeMillis();
+      controller.jobStopped(this);
+      if (!pendingForeground(false)) {
+        process.toBackground();
+      }
       if (statusUpdateHandler != null) {
-        statusUpdateHandler.handle(process.status());
+        statusUpdateHandler.handle(status());
       }
     }
     return this;
@@ -183,17 +268,33 @@ public class JobImpl implements Job {
     if (controller.foregroundJob != null) {
       throw new IllegalStateException();
     }
+    controller.jobResumed(this);
     controller.foregroundJob = this;
     if (controller.foregroundUpdatedHandler != null) {
       controller.foregroundUpdatedHandler.handle(this);
     }
-    process.toForeground();
+    if (!pendingForeground(true)) {
+      process.toForeground();
+    }
     if (statusUpdateHandler != null) {
-      statusUpdateHandler.handle(process.status());
+      statusUpdateHandler.handle(status());
     }
     return this;
   }
 
+  /**
+   * Record whether the job runs in foreground while the output file is opened.
+   *
+   * @return whether the output file is opened, i.e the process does not run yet
+   */
+  private synchronized boolean pendingForeground(boolean foreground) {
+    if (opening) {
+      openingForeground = foreground;
+      return true;
+    }
+    return false;
+  }
+
   @Override
   public int id() {
     return id;
@@ -207,17 +308,86 @@ public class JobImpl implements Job {
 
   @Override
   public Job run() {
-    controller.foregroundJob = this;
-    if (controller.foregroundUpdatedHandler != null) {
-      controller.foregroundUpdatedHandler.handle(this);
+    return run(true);
+  }
+
+  /**
+   * Run the job, when the output is redirected the job is published running and its process runs once the file
+   * is opened.
+   *
+   * @param foreground true when the job is run in foreground, false when it is run in background
+   * @return this object
+   */
+  public Job run(boolean foreground) {
+    synchronized (this) {
+      opening = outputPath != null;
+      openingForeground = foreground;
+    }
+    if (foreground) {
+      controller.foregroundJob = this;
+      if (controller.foregroundUpdatedHandler != null) {
+        controller.foregroundUpdatedHandler.handle(this);
+      }
+    } else {
+      lastStopped = System.currentTimeMillis();
+      controller.jobStopped(this);
     }
     actualStatus = ExecStatus.RUNNING;
     if (statusUpdateHandler != null) {
       statusUpdateHandler.handle(ExecStatus.RUNNING);
     }
-    process.setTty(tty);
     process.setSession(session);
-    process.run();
+    if (outputPath != null) {
+      OpenOptions options = new OpenOptions().setWrite(true).setCreate(true)
+        .setAppend(appendOutput).setTruncateExisting(!appendOutput);
+      vertx.fileSystem().open(outputPath, options).onComplete(ar -> {
+        if (ar.succeeded()) {
+          start(ar.result());
+        } else {
+          synchronized (this) {
+            opening = false;
+          }
+          tty.write(outputPath + ": " + ar.cause().getMessage() + "\n");
+          terminated();
+        }
+      });
+    } else {
+      process.setTty(tty);
+      process.run(foreground);
+    }
     return this;
   }
+
+  /**
+   * Run the process once the output file is opened and apply the signals received while it was opened.
+   */
+  private void start(AsyncFile file) {
+    boolean foreground;
+    boolean interrupted;
+    boolean suspended;
+    synchronized (this) {
+      opening = false;
+      foreground = openingForeground;
+      interrupted = pendingInterrupt;
+      suspended = pendingSuspend;
+    }
+    if (process.status() == ExecStatus.TERMINATED) {
+      // Terminated while the file was opened
+      file.close();
+      return;
+    }
+    FileOutputTty output = new FileOutputTty(tty, file);
+    file.exceptionHandler(err -> terminate());
+    outputTty = output;
+    process.setTty(output);
+    if (interrupted) {
+      // The command never runs
+      process.terminate();
+      return;
+    }
+    process.run(foreground);
+    if (suspended) {
+      process.suspend(v -> actualStatus = ExecStatus.STOPPED);
+    }
+  }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.system.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+/**
+ * An in process pipe connecting the standard output of a pipeline stage to the standard input of the next stage.<p/>
+ *
+ * The chunks written are queued until the reader sets a handler and while the reader is paused, the writer
+ * is notified with the usual write queue full / drain handler protocol. A chunk handed to the reader remains
+ * accounted until the reader context has processed it, so a reader that cannot keep up applies back pressure even
+ * when it does not pause. Text and bytes are passed as is, no terminal encoding happens between the stages.
+ */
+class Pipe {
+
+  /**
+   * The amount of pending chars or bytes above which the write queue is considered full.
+   */
+  static final int MAX_PENDING = 64 * 1024;
+
+  private final Context readerContext;
+  private final ArrayDeque<Object> pending = new ArrayDeque<>(); // String or Buffer
+  private int pendingSize; // The size of the queued chunks and of the chunks not yet processed by the reader
+  private boolean full;
+  private boolean delivering;
+  private boolean paused;
+  private boolean ended;
+  private boolean endDelivered;
+  private boolean closed;
+  private Handler<String> textHandler;
+  private Handler<Buffer> bufferHandler;
+  private Handler<Void> endHandler;
+  private Handler<Void> drainHandler;
+
+  /**
+   * @param readerContext the context the reader handlers are called on, or {@code null} when the handlers are
+   *                      processed synchronously
+   */
+  Pipe(Context readerContext) {
+    this.readerContext = readerContext;
+  }
+
+  void write(Object chunk) {
+    synchronized (this) {
+      if (ended || closed) {
+        return;
+      }
+      pending.add(chunk);
+      pendingSize += sizeOf(chunk);
+      if (pendingSize >= MAX_PENDING) {
+        full = true;
+      }
+    }
+    deliver();
+  }
+
+  synchronized boolean writeQueueFull() {
+    return pendingSize >= MAX_PENDING;
+  }
+
+  synchronized void drainHandler(Handler<Void> handler) {
+    drainHandler = handler;
+  }
+
+  /**
+   * Signal the end of the stream to the reader once the pending chunks are delivered.
+   */
+  void end() {
+    synchronized (this) {
+      ended = true;
+    }
+    deliver();
+  }
+
+  /**
+   * Close the pipe when the reader is gone, the pending and further chunks are discarded.
+   */
+  synchronized void close() {
+    closed = true;
+    pending.clear();
+    pendingSize = 0;
+  }
+
+  void textHandler(Handler<String> handler) {
+    synchronized (this) {
+      textHandler = handler;
+    }
+    deliver();
+  }
+
+  void bufferHandler(Handler<Buffer> handler) {
+    synchronized (this) {
+      bufferHandler = handler;
+    }
+    deliver();
+  }
+
+  void endHandler(Handler<Void> handler) {
+    synchronized (this) {
+      endHandler = handler;
+    }
+    deliver();
+  }
+
+  synchronized void pause() {
+    paused = true;
+  }
+
+  void resume() {
+    synchronized (this) {
+      paused = false;
+    }
+    deliver();
+  }
+
+  /**
+   * Deliver the pending chunks in order, a single thread delivers at a time so a handler that writes to the pipe
+   * or resumes it does not reorder the chunks.
+   */
+  private void deliver() {
+    while (true) {
+      Object chunk = null;
+      Handler<String> text;
+      Handler<Buffer> buffer;
+      Handler<Void> end = null;
+      synchronized (this) {
+        if (delivering || closed) {
+          return;
+        }
+        text = textHandler;
+        buffer = bufferHandler;
+        if (!pending.isEmpty() && !paused && (text != null || buffer != null)) {
+          chunk = pending.poll();
+        } else if (pending.isEmpty() && ended && !endDelivered && endHandler != null) {
+          endDelivered = true;
+          end = endHandler;
+        } else {
+          return;
+        }
+        delivering = true;
+      }
+      try {
+        if (chunk != null) {
+          if (buffer != null) {
+            buffer.handle(chunk instanceof Buffer ? (Buffer) chunk : Buffer.buffer((String) chunk));
+          } else {
+            text.handle(chunk instanceof String ? (String) chunk : ((Buffer) chunk).toString(StandardCharsets.UTF_8));
+          }
+          int size = sizeOf(chunk);
+          if (readerContext != null) {
+            // Processed after the handler task scheduled on the reader context
+            readerContext.runOnContext(v -> processed(size));
+          } else {
+            processed(size);
+          }
+        }
+        if (end != null) {
+          end.handle(null);
+        }
+      } finally {
+        synchronized (this) {
+          delivering = false;
+        }
+      }
+    }
+  }
+
+  private void processed(int size) {
+    Handler<Void> drain = null;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      pendingSize -= size;
+      if (full && pendingSize <= MAX_PENDING / 2) {
+        full = false;
+        drain = drainHandler;
+      }
+    }
+    if (drain != null) {
+      drain.handle(null);
+    }
+  }
+
+  private static int sizeOf(Object chunk) {
+    return chunk instanceof String ? ((String) chunk).length() : ((Buffer) chunk).length();
+  }
+}
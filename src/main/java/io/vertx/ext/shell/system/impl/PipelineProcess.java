@@ -0,0 +1,392 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.system.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.command.impl.ProcessImpl;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.ExecStatus;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Tty;
+import io.vertx.ext.shell.term.impl.DrainHandlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * The process of a pipeline, the standard output of each stage is connected to the standard input of the next
+ * stage with a {@link Pipe}.<p/>
+ *
+ * The first stage reads the standard input of the tty and the last stage writes to the tty, the pipeline terminates
+ * with the exit code of the last stage once all the stages are terminated. When a stage terminates, the standard
+ * input of the next stage is ended and the previous stage is terminated since nobody reads its output anymore.
+ */
+public class PipelineProcess implements Process {
+
+  private final List<Process> stages;
+  private final List<Pipe> pipes;
+  private final AtomicInteger running;
+  private Tty tty;
+  private Session session;
+  private volatile Handler<Integer> terminatedHandler;
+
+  public PipelineProcess(List<Process> stages) {
+    if (stages.size() < 2) {
+      throw new IllegalArgumentException("A pipeline requires at least two stages");
+    }
+    this.stages = stages;
+    this.pipes = new ArrayList<>();
+    for (int i = 1; i < stages.size(); i++) {
+      pipes.add(new Pipe(readerContext(stages.get(i))));
+    }
+    this.running = new AtomicInteger(stages.size());
+  }
+
+  private static Context readerContext(Process stage) {
+    return stage instanceof ProcessImpl ? ((ProcessImpl) stage).context() : null;
+  }
+
+  private Process first() {
+    return stages.get(0);
+  }
+
+  private Process last() {
+    return stages.get(stages.size() - 1);
+  }
+
+  @Override
+  public ExecStatus status() {
+    return last().status();
+  }
+
+  @Override
+  public Integer exitCode() {
+    return last().exitCode();
+  }
+
+  @Override
+  public synchronized Process setTty(Tty tty) {
+    this.tty = tty;
+    return this;
+  }
+
+  @Override
+  public synchronized Tty getTty() {
+    return tty;
+  }
+
+  @Override
+  public synchronized Process setSession(Session session) {
+    this.session = session;
+    return this;
+  }
+
+  @Override
+  public synchronized Session getSession() {
+    return session;
+  }
+
+  @Override
+  public Process terminatedHandler(Handler<Integer> handler) {
+    terminatedHandler = handler;
+    return this;
+  }
+
+  @Override
+  public void run(boolean foreground) {
+    Tty tty;
+    Session session;
+    synchronized (this) {
+      tty = this.tty;
+      session = this.session;
+    }
+    if (tty == null) {
+      throw new IllegalStateException("Cannot execute process without a TTY set");
+    }
+    int size = stages.size();
+    for (int i = 0; i < size; i++) {
+      int index = i;
+      Process stage = stages.get(i);
+      Pipe in = i > 0 ? pipes.get(i - 1) : null;
+      Pipe out = i < size - 1 ? pipes.get(i) : null;
+      stage.setTty(new StageTty(tty, in, out));
+      stage.setSession(session);
+      stage.terminatedHandler(code -> stageTerminated(index));
+    }
+    // Only the first stage reads the tty, the other stages are always in foreground to consume their pipe
+    for (int i = 0; i < size; i++) {
+      stages.get(i).run(i == 0 ? foreground : true);
+    }
+  }
+
+  private void stageTerminated(int index) {
+    if (index < pipes.size()) {
+      pipes.get(index).end();
+    }
+    if (index > 0) {
+      pipes.get(index - 1).close();
+      Process previous = stages.get(index - 1);
+      if (previous.status() != ExecStatus.TERMINATED) {
+        try {
+          previous.terminate();
+        } catch (IllegalStateException ignore) {
+          // Terminated concurrently
+        }
+      }
+    }
+    if (running.decrementAndGet() == 0) {
+      Handler<Integer> handler = terminatedHandler;
+      if (handler != null) {
+        handler.handle(last().exitCode());
+      }
+    }
+  }
+
+  /**
+   * Apply an action to the stages that are not terminated, the completion handler is called once the action
+   * is completed by each stage.
+   *
+   * @return whether the action was applied to at least one stage
+   */
+  private boolean apply(BiConsumer<Process, Handler<Void>> action, Handler<Void> completionHandler) {
+    AtomicInteger pending = new AtomicInteger(1);
+    Handler<Void> done = v -> {
+      if (pending.decrementAndGet() == 0 && completionHandler != null) {
+        completionHandler.handle(null);
+      }
+    };
+    boolean applied = false;
+    for (Process stage : stages) {
+      if (stage.status() != ExecStatus.TERMINATED) {
+        pending.incrementAndGet();
+        try {
+          action.accept(stage, done);
+          applied = true;
+        } catch (IllegalStateException e) {
+          pending.decrementAndGet();
+        }
+      }
+    }
+    if (applied) {
+      done.handle(null);
+    }
+    return applied;
+  }
+
+  @Override
+  public boolean interrupt(Handler<Void> completionHandler) {
+    boolean[] interrupted = new boolean[1];
+    if (!apply((stage, done) -> interrupted[0] |= stage.interrupt(done), completionHandler)) {
+      throw new IllegalStateException("Cannot interrupt process in " + status() + " state");
+    }
+    return interrupted[0];
+  }
+
+  @Override
+  public void resume(boolean foreground, Handler<Void> completionHandler) {
+    if (!apply((stage, done) -> stage.resume(stage == first() ? foreground : true, done), completionHandler)) {
+      throw new IllegalStateException("Cannot resume process in " + status() + " state");
+    }
+  }
+
+  @Override
+  public void suspend(Handler<Void> completionHandler) {
+    if (!apply(Process::suspend, completionHandler)) {
+      throw new IllegalStateException("Cannot suspend process in " + status() + " state");
+    }
+  }
+
+  @Override
+  public void terminate(Handler<Void> completionHandler) {
+    if (!apply(Process::terminate, completionHandler)) {
+      throw new IllegalStateException("Cannot terminate terminated process");
+    }
+  }
+
+  @Override
+  public void toBackground(Handler<Void> completionHandler) {
+    if (first().status() == ExecStatus.RUNNING) {
+      first().toBackground(completionHandler);
+    } else if (status() != ExecStatus.RUNNING) {
+      throw new IllegalStateException("Cannot set to background a process in " + status() + " state");
+    }
+  }
+
+  @Override
+  public void toForeground(Handler<Void> completionHandler) {
+    if (first().status() == ExecStatus.RUNNING) {
+      first().toForeground(completionHandler);
+    } else if (status() != ExecStatus.RUNNING) {
+      throw new IllegalStateException("Cannot set to foreground a process in " + status() + " state");
+    }
+  }
+
+  /**
+   * The tty of a pipeline stage, the standard input and output are either a pipe or the pipeline tty.
+   */
+  private static class StageTty implements Tty {
+
+    private final Tty tty;
+    private final Pipe in;
+    private final Pipe out;
+    private Handler<Void> drainHandler; // The drain handler of the last stage, the tty is shared with other jobs
+
+    StageTty(Tty tty, Pipe in, Pipe out) {
+      this.tty = tty;
+      this.in = in;
+      this.out = out;
+    }
+
+    @Override
+    public String type() {
+      return tty.type();
+    }
+
+    @Override
+    public int width() {
+      return tty.width();
+    }
+
+    @Override
+    public int height() {
+      return tty.height();
+    }
+
+    @Override
+    public Tty stdinHandler(Handler<String> handler) {
+      if (in != null) {
+        in.textHandler(handler);
+      } else {
+        tty.stdinHandler(handler);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty stdinBufferHandler(Handler<Buffer> handler) {
+      if (in != null) {
+        in.bufferHandler(handler);
+      } else {
+        tty.stdinBufferHandler(handler);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty pauseStdin() {
+      if (in != null) {
+        in.pause();
+      } else {
+        tty.pauseStdin();
+      }
+      return this;
+    }
+
+    @Override
+    public Tty resumeStdin() {
+      if (in != null) {
+        in.resume();
+      } else {
+        tty.resumeStdin();
+      }
+      return this;
+    }
+
+    @Override
+    public Tty stdinEndHandler(Handler<Void> handler) {
+      if (in != null) {
+        in.endHandler(handler);
+      } else {
+        tty.stdinEndHandler(handler);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty write(String data) {
+      if (out != null) {
+        out.write(data);
+      } else {
+        tty.write(data);
+      }
+      return this;
+    }
+
+    @Override
+    public Tty write(Buffer data) {
+      if (out != null) {
+        out.write(data);
+      } else {
+        tty.write(data);
+      }
+      return this;
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+      return out != null ? out.writeQueueFull() : tty.writeQueueFull();
+    }
+
+    @Override
+    public Tty drainHandler(Handler<Void> handler) {
+      if (out != null) {
+        out.drainHandler(handler);
+      } else {
+        synchronized (this) {
+          if (drainHandler != null) {
+            DrainHandlers.remove(tty, drainHandler);
+          }
+          drainHandler = handler;
+          if (handler != null) {
+            DrainHandlers.add(tty, handler);
+          }
+        }
+      }
+      return this;
+    }
+
+    @Override
+    public Tty resizehandler(Handler<Void> handler) {
+      // Only the last stage draws on the terminal
+      if (out == null) {
+        tty.resizehandler(handler);
+      }
+      return this;
+    }
+  }
+}
@@ -57,6 +57,9 @@ public class SSHTermOptions {
   public static final int DEFAULT_PORT = NetServerOptions.DEFAULT_PORT;
   public static final String DEFAULT_DEFAULT_CHARSET = StandardCharsets.UTF_8.name();
   public static final String DEFAULT_INPUTRC = "/io/vertx/ext/shell/inputrc";
+  public static final boolean DEFAULT_USE_EVENT_LOOP_GROUP = false;
+  public static final boolean DEFAULT_FILE_TRANSFER = false;
+  public static final boolean DEFAULT_FILE_TRANSFER_WRITABLE = false;
 
   private String host;
   private int port;
@@ -64,12 +67,18 @@ public class SSHTermOptions {
   private JsonObject authOptions;
   private String defaultCharset;
   private String intputrc;
+  private boolean useEventLoopGroup;
+  private boolean fileTransfer;
+  private boolean fileTransferWritable;
 
   public SSHTermOptions() {
     host = DEFAULT_HOST;
     port = DEFAULT_PORT;
     defaultCharset = DEFAULT_DEFAULT_CHARSET;
     intputrc = DEFAULT_INPUTRC;
+    useEventLoopGroup = DEFAULT_USE_EVENT_LOOP_GROUP;
+    fileTransfer = DEFAULT_FILE_TRANSFER;
+    fileTransferWritable = DEFAULT_FILE_TRANSFER_WRITABLE;
   }
 
   public SSHTermOptions(SSHTermOptions that) {
@@ -79,6 +88,9 @@ public class SSHTermOptions {
     this.authOptions = that.authOptions != null ? that.authOptions.copy() : null;
     this.defaultCharset = that.defaultCharset;
     this.intputrc = that.intputrc;
+    this.useEventLoopGroup = that.useEventLoopGroup;
+    this.fileTransfer = that.fileTransfer;
+    this.fileTransferWritable = that.fileTransferWritable;
   }
 
   public SSHTermOptions(JsonObject json) {
@@ -208,4 +220,62 @@ public class SSHTermOptions {
     this.intputrc = intputrc;
     return this;
   }
+
+  /**
+   * @return whether the server runs on the Vert.x event loop group
+   */
+  public boolean isUseEventLoopGroup() {
+    return useEventLoopGroup;
+  }
+
+  /**
+   * Run the server on the whole Vert.x event loop group instead of the event loop of the context that started it,
+   * connections are then spread across the event loops and each terminal uses the event loop of its connection.
+   *
+   * @param useEventLoopGroup true to use the event loop group
+   * @return a reference to this, so the API can be used fluently
+   */
+  public SSHTermOptions setUseEventLoopGroup(boolean useEventLoopGroup) {
+    this.useEventLoopGroup = useEventLoopGroup;
+    return this;
+  }
+
+  /**
+   * @return whether the SFTP subsystem and the SCP command are enabled
+   */
+  public boolean isFileTransfer() {
+    return fileTransfer;
+  }
+
+  /**
+   * Enable the SFTP subsystem and the SCP command, the authenticated users can then download the files of the
+   * shell root directory, the {@code vertx.cwd} system property, they cannot access files outside of it.
+   *
+   * @param fileTransfer true to enable the file transfer
+   * @return a reference to this, so the API can be used fluently
+   */
+  public SSHTermOptions setFileTransfer(boolean fileTransfer) {
+    this.fileTransfer = fileTransfer;
+    return this;
+  }
+
+  /**
+   * @return whether the file transfer can modify the files of the root directory
+   */
+  public boolean isFileTransferWritable() {
+    return fileTransferWritable;
+  }
+
+  /**
+   * Let the file transfer modify the files of the root directory: the users can then upload, overwrite, rename and
+   * delete files, so enable it only when every authenticated user is trusted with them. By default the files can
+   * only be downloaded.
+   *
+   * @param fileTransferWritable true to allow the modifications
+   * @return a reference to this, so the API can be used fluently
+   */
+  public SSHTermOptions setFileTransferWritable(boolean fileTransferWritable) {
+    this.fileTransferWritable = fileTransferWritable;
+    return this;
+  }
 }
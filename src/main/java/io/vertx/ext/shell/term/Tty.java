@@ -35,6 +35,9 @@ package io.vertx.ext.shell.term;
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
 
 /**
  * Provide interactions with the Shell TTY.
@@ -69,6 +72,51 @@ public interface Tty {
   @Fluent
   Tty stdinHandler(Handler<String> handler);
 
+  /**
+   * Set a stream handler on the standard input to read the data as bytes, the bytes are delivered as they are
+   * received when the underlying transport allows it, otherwise the text is encoded in UTF-8.
+   *
+   * @param handler the standard input
+   * @return this object
+   */
+  @Fluent
+  default Tty stdinBufferHandler(Handler<Buffer> handler) {
+    return stdinHandler(handler != null ? data -> handler.handle(Buffer.buffer(data)) : null);
+  }
+
+  /**
+   * Pause the standard input, the transport stops reading and lets the flow control of the underlying transport
+   * slow down the sender, when it has one.
+   *
+   * @return this object
+   */
+  @Fluent
+  default Tty pauseStdin() {
+    return this;
+  }
+
+  /**
+   * Resume the standard input after a {@link #pauseStdin()}.
+   *
+   * @return this object
+   */
+  @Fluent
+  default Tty resumeStdin() {
+    return this;
+  }
+
+  /**
+   * Set a handler called when the standard input reaches its end, for instance when the input piped to an SSH exec
+   * command is fully sent.
+   *
+   * @param handler the end handler
+   * @return this object
+   */
+  @Fluent
+  default Tty stdinEndHandler(Handler<Void> handler) {
+    return this;
+  }
+
   /**
    * Write data to the standard output.
    *
@@ -78,6 +126,40 @@ public interface Tty {
   @Fluent
   Tty write(String data);
 
+  /**
+   * Write UTF-8 encoded bytes to the standard output. When the underlying transport uses the same encoding the bytes
+   * are written as is, otherwise they are decoded and written like {@link #write(String)}.
+   *
+   * @param data the data to write
+   * @return this object
+   */
+  @Fluent
+  default Tty write(Buffer data) {
+    return write(data.toString(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * This will return {@code true} when the write queue of the underlying transport is full, a writer should stop
+   * writing until the {@link #drainHandler} is called.
+   *
+   * @return {@code true} if the write queue is full
+   */
+  default boolean writeQueueFull() {
+    return false;
+  }
+
+  /**
+   * Set a drain handler, the handler is called when the write queue of the underlying transport is ready
+   * to accept more data.
+   *
+   * @param handler the drain handler
+   * @return this object
+   */
+  @Fluent
+  default Tty drainHandler(Handler<Void> handler) {
+    return this;
+  }
+
   /**
    * Set a resize handler, the handler is called when the tty size changes.
    *
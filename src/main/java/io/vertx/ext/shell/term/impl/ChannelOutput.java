@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.term.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * The output of an SSH shell channel.<p/>
+ *
+ * The channel stream blocks the writer until the remote window of the channel has room for the data, so the output
+ * is queued and written to the channel on a worker thread, one chunk at a time. The terminal uses it as its transport:
+ * the queue is full while the bytes not yet accepted by the channel exceed the write queue max size, the drain handler
+ * is called once they are written.
+ */
+class ChannelOutput extends OutputStream implements WriteStream<Buffer> {
+
+  private static final int DEFAULT_MAX_PENDING_WRITES = 64 * 1024;
+
+  private final Vertx vertx;
+  private OutputStream out;
+  private final ArrayDeque<byte[]> pendingWrites = new ArrayDeque<>();
+  private int pendingBytes;
+  private int maxPendingBytes = DEFAULT_MAX_PENDING_WRITES;
+  private boolean writing;
+  private boolean closed;
+  private Handler<Void> drainHandler;
+  private Handler<Throwable> exceptionHandler;
+
+  ChannelOutput(Vertx vertx) {
+    this.vertx = vertx;
+  }
+
+  /**
+   * Set the stream of the channel.
+   *
+   * @param out the stream
+   */
+  synchronized void setOutputStream(OutputStream out) {
+    this.out = out;
+  }
+
+  @Override
+  public void write(int b) {
+    enqueue(new byte[]{(byte) b});
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    enqueue(Arrays.copyOfRange(b, off, off + len));
+  }
+
+  @Override
+  public void flush() {
+    // Each chunk is flushed once written
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (writing) {
+        // Closed after the pending output
+        return;
+      }
+      writing = true;
+    }
+    vertx.executeBlocking(this::writePending, false);
+  }
+
+  /**
+   * Queue the data, the future is completed once the data is queued.
+   */
+  @Override
+  public Future<Void> write(Buffer data) {
+    enqueue(data.getBytes());
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> end() {
+    close();
+    return Future.succeededFuture();
+  }
+
+  private void enqueue(byte[] data) {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      pendingWrites.add(data);
+      pendingBytes += data.length;
+      if (writing) {
+        return;
+      }
+      writing = true;
+    }
+    vertx.executeBlocking(this::writePending, false);
+  }
+
+  /**
+   * Write the pending chunks to the channel until the queue is empty, a single worker writes the channel at a time.
+   */
+  private Void writePending() {
+    while (true) {
+      byte[] chunk;
+      OutputStream stream;
+      synchronized (this) {
+        stream = out;
+        if (pendingWrites.isEmpty()) {
+          writing = false;
+          if (!closed) {
+            return null;
+          }
+          chunk = null;
+        } else {
+          chunk = pendingWrites.size() == 1 ? pendingWrites.peek() : concat();
+        }
+      }
+      try {
+        if (chunk == null) {
+          if (stream != null) {
+            stream.close();
+          }
+          return null;
+        }
+        stream.write(chunk);
+        stream.flush();
+      } catch (IOException e) {
+        writeFailed(e);
+        return null;
+      }
+      Handler<Void> drain;
+      synchronized (this) {
+        boolean full = pendingBytes >= maxPendingBytes;
+        pendingWrites.poll();
+        pendingBytes -= chunk.length;
+        drain = full && pendingBytes < maxPendingBytes ? drainHandler : null;
+      }
+      if (drain != null) {
+        drain.handle(null);
+      }
+    }
+  }
+
+  /**
+   * Merge the pending chunks in a single chunk, the writer still counts them as pending until it is written.
+   */
+  private byte[] concat() {
+    byte[] chunk = new byte[pendingBytes];
+    int pos = 0;
+    for (byte[] pending : pendingWrites) {
+      System.arraycopy(pending, 0, chunk, pos, pending.length);
+      pos += pending.length;
+    }
+    pendingWrites.clear();
+    pendingWrites.add(chunk);
+    return chunk;
+  }
+
+  /**
+   * Discard the pending output when the channel cannot be written.
+   */
+  private void writeFailed(IOException e) {
+    Handler<Throwable> handler;
+    Handler<Void> drain;
+    synchronized (this) {
+      drain = pendingBytes >= maxPendingBytes ? drainHandler : null;
+      writing = false;
+      closed = true;
+      pendingWrites.clear();
+      pendingBytes = 0;
+      handler = exceptionHandler;
+    }
+    if (handler != null) {
+      handler.handle(e);
+    }
+    if (drain != null) {
+      drain.handle(null);
+    }
+  }
+
+  @Override
+  public synchronized ChannelOutput exceptionHandler(Handler<Throwable> handler) {
+    exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public synchronized ChannelOutput setWriteQueueMaxSize(int maxSize) {
+    maxPendingBytes = maxSize;
+    return this;
+  }
+
+  @Override
+  public synchronized boolean writeQueueFull() {
+    return pendingBytes >= maxPendingBytes;
+  }
+
+  @Override
+  public synchronized ChannelOutput drainHandler(Handler<Void> handler) {
+    drainHandler = handler;
+    return this;
+  }
+}
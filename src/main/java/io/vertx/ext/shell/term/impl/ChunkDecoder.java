@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.term.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decode a stream of bytes received by chunks, a character split between two chunks is decoded with the next chunk.
+ */
+class ChunkDecoder {
+
+  private final CharsetDecoder decoder;
+  private ByteBuffer undecoded;
+
+  ChunkDecoder(Charset charset) {
+    decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  synchronized String decode(byte[] data) {
+    ByteBuffer bytes;
+    if (undecoded != null) {
+      bytes = ByteBuffer.allocate(undecoded.remaining() + data.length).put(undecoded).put(data);
+      bytes.flip();
+      undecoded = null;
+    } else {
+      bytes = ByteBuffer.wrap(data);
+    }
+    CharBuffer chars = CharBuffer.allocate((int) (bytes.remaining() * (double) decoder.maxCharsPerByte()) + 1);
+    decoder.decode(bytes, chars, false);
+    if (bytes.hasRemaining()) {
+      undecoded = bytes;
+    }
+    chars.flip();
+    return chars.toString();
+  }
+}
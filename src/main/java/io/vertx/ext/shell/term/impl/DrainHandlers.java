@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.term.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.ext.shell.term.Tty;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The drain handlers of the writers sharing a tty, e.g the foreground job and the background jobs of a shell.<p/>
+ *
+ * A tty has a single drain handler, it is set while at least one writer waits for the tty to drain and calls the
+ * handler of each writer. A writer adds and removes only its own handler, it never replaces the handler of
+ * another writer.
+ */
+public final class DrainHandlers {
+
+  // The tty is the key, so it must not be referenced by its drain handlers
+  private static final Map<Tty, DrainHandlers> all = Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**
+   * Add the drain handler of a writer of a tty.
+   *
+   * @param tty the tty
+   * @param handler the handler
+   */
+  public static void add(Tty tty, Handler<Void> handler) {
+    all.computeIfAbsent(tty, key -> new DrainHandlers()).add0(tty, handler);
+  }
+
+  /**
+   * Remove the drain handler of a writer of a tty, the drain handlers of the other writers are kept.
+   *
+   * @param tty the tty
+   * @param handler the handler
+   */
+  public static void remove(Tty tty, Handler<Void> handler) {
+    DrainHandlers drains = all.get(tty);
+    if (drains != null) {
+      drains.remove0(tty, handler);
+    }
+  }
+
+  private final List<Handler<Void>> handlers = new CopyOnWriteArrayList<>();
+
+  private DrainHandlers() {
+  }
+
+  private synchronized void add0(Tty tty, Handler<Void> handler) {
+    if (!handlers.contains(handler)) {
+      handlers.add(handler);
+      if (handlers.size() == 1) {
+        tty.drainHandler(v -> drain());
+      }
+    }
+  }
+
+  private synchronized void remove0(Tty tty, Handler<Void> handler) {
+    if (handlers.remove(handler) && handlers.isEmpty()) {
+      tty.drainHandler(null);
+    }
+  }
+
+  private void drain() {
+    for (Handler<Void> handler : handlers) {
+      handler.handle(null);
+    }
+  }
+}
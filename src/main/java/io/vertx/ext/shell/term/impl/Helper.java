@@ -47,6 +47,8 @@ import java.net.URL;
  */
 public class Helper {
 
+  private static final byte IAC = (byte) 0xFF;
+
   public static Keymap defaultKeymap() {
     Buffer buffer = Helper.loadResource(TelnetTermOptions.DEFAULT_INPUTRC);
     return new Keymap(new ByteArrayInputStream(buffer.getBytes()));
@@ -80,4 +82,39 @@ public class Helper {
     }
     return null;
   }
+
+  /**
+   * Encode UTF-8 bytes for a terminal transport: line feeds are translated to CRLF like the termd output does
+   * for text and when {@code telnet} is true the IAC bytes are doubled.
+   *
+   * @param data the bytes to encode
+   * @param telnet whether the transport is telnet
+   * @return the encoded bytes, or the same buffer when no encoding is needed
+   */
+  public static Buffer encodeOutput(Buffer data, boolean telnet) {
+    int len = data.length();
+    int extra = 0;
+    for (int i = 0; i < len; i++) {
+      byte b = data.getByte(i);
+      if (b == '\n' || (telnet && b == IAC)) {
+        extra++;
+      }
+    }
+    if (extra == 0) {
+      return data;
+    }
+    Buffer encoded = Buffer.buffer(len + extra);
+    int from = 0;
+    for (int i = 0; i < len; i++) {
+      byte b = data.getByte(i);
+      if (b == '\n') {
+        encoded.appendBuffer(data, from, i - from).appendByte((byte) '\r');
+        from = i;
+      } else if (telnet && b == IAC) {
+        encoded.appendBuffer(data, from, i - from).appendByte(IAC);
+        from = i;
+      }
+    }
+    return encoded.appendBuffer(data, from, len - from);
+  }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.term.impl;
+
+import io.vertx.ext.shell.spi.ShellMetrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Count the bytes a terminal connection writes to its transport, after the output has been encoded, so the echo, the
+ * prompt and the command output are all reported. The bytes are reported to the metrics set by the shell server
+ * handling the terminal, they are ignored until then.
+ */
+public class OutputMeter implements LongConsumer {
+
+  private volatile String transport;
+  private volatile ShellMetrics metrics;
+
+  /**
+   * Report the bytes to the metrics.
+   *
+   * @param metrics the metrics
+   * @param transport the name of the transport
+   */
+  public void metrics(ShellMetrics metrics, String transport) {
+    this.transport = transport;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void accept(long bytes) {
+    ShellMetrics m = metrics;
+    if (m != null) {
+      m.bytesWritten(transport, bytes);
+    }
+  }
+
+  /**
+   * @return a stream counting the bytes written to {@code out}
+   */
+  OutputStream wrap(OutputStream out) {
+    return new FilterOutputStream(out) {
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        accept(1);
+      }
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        accept(len);
+      }
+    };
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.term.impl;
+
+import org.apache.sshd.server.command.CommandFactory;
+import org.apache.sshd.sftp.server.FileHandle;
+import org.apache.sshd.sftp.server.SftpFileSystemAccessor;
+import org.apache.sshd.sftp.server.SftpSubsystemProxy;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.CopyOption;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Restrict the SFTP subsystem and the SCP command to downloads: the files can be listed and read, any modification
+ * of the file system is denied.
+ */
+class ReadOnlyFileTransfer {
+
+  private ReadOnlyFileTransfer() {
+  }
+
+  /**
+   * The SFTP file system accessor denying the modifications.
+   */
+  static final SftpFileSystemAccessor SFTP = new SftpFileSystemAccessor() {
+
+    @Override
+    public SeekableByteChannel openFile(SftpSubsystemProxy subsystem, FileHandle fileHandle, Path file, String handle, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+      for (OpenOption option : options) {
+        if (option != StandardOpenOption.READ && option != LinkOption.NOFOLLOW_LINKS) {
+          throw new AccessDeniedException(file.toString());
+        }
+      }
+      return SftpFileSystemAccessor.super.openFile(subsystem, fileHandle, file, handle, options, attrs);
+    }
+
+    @Override
+    public void applyExtensionFileAttributes(SftpSubsystemProxy subsystem, Path file, Map<String, byte[]> extensions, LinkOption... options) throws IOException {
+      throw new AccessDeniedException(file.toString());
+    }
+
+    @Override
+    public void setFileAttribute(SftpSubsystemProxy subsystem, Path file, String view, String attribute, Object value, LinkOption... options) throws IOException {
+      throw new AccessDeniedException(file.toString());
+    }
+
+    @Override
+    public void setFileOwner(SftpSubsystemProxy subsystem, Path file, Principal value, LinkOption... options) throws IOException {
+      throw new AccessDeniedException(file.toString());
+    }
+
+    @Override
+    public void setGroupOwner(SftpSubsystemProxy subsystem, Path file, Principal value, LinkOption... options) throws IOException {
+      throw new AccessDeniedException(file.toString());
+    }
+
+    @Override
+    public void setFilePermissions(SftpSubsystemProxy subsystem, Path file, Set<PosixFilePermission> perms, LinkOption... options) throws IOException {
+      throw new AccessDeniedException(file.toString());
+    }
+
+    @Override
+    public void setFileAccessControl(SftpSubsystemProxy subsystem, Path file, List<AclEntry> acl, LinkOption... options) throws IOException {
+      throw new AccessDeniedException(file.toString());
+    }
+
+    @Override
+    public void createDirectory(SftpSubsystemProxy subsystem, Path path) throws IOException {
+      throw new AccessDeniedException(path.toString());
+    }
+
+    @Override
+    public void createLink(SftpSubsystemProxy subsystem, Path link, Path existing, boolean symLink) throws IOException {
+      throw new AccessDeniedException(link.toString());
+    }
+
+    @Override
+    public void renameFile(SftpSubsystemProxy subsystem, Path oldPath, Path newPath, Collection<CopyOption> opts) throws IOException {
+      throw new AccessDeniedException(oldPath.toString());
+    }
+
+    @Override
+    public void copyFile(SftpSubsystemProxy subsystem, Path src, Path dst, Collection<CopyOption> opts) throws IOException {
+      throw new AccessDeniedException(dst.toString());
+    }
+
+    @Override
+    public void removeFile(SftpSubsystemProxy subsystem, Path path, boolean isDirectory) throws IOException {
+      throw new AccessDeniedException(path.toString());
+    }
+  };
+
+  /**
+   * Deny the SCP uploads, i.e the {@code scp -t} commands, the other commands are created by the SCP command factory.
+   *
+   * @param scp the SCP command factory
+   * @return the command factory
+   */
+  static CommandFactory scp(CommandFactory scp) {
+    return (channel, command) -> {
+      if (isUpload(command)) {
+        throw new AccessDeniedException(command);
+      }
+      return scp.createCommand(channel, command);
+    };
+  }
+
+  private static boolean isUpload(String command) {
+    List<String> args = CommandFactory.split(command);
+    if (args.isEmpty() || !args.get(0).equals("scp")) {
+      return false;
+    }
+    for (String arg : args.subList(1, args.size())) {
+      if (arg.equals("--") || !arg.startsWith("-")) {
+        break;
+      }
+      if (arg.indexOf('t') != -1) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
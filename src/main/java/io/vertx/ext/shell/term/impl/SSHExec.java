@@ -30,71 +30,414 @@
  *
  */
 
+
 package io.vertx.ext.shell.term.impl;
 
-import io.termd.core.tty.TtyConnection;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.spi.ShellMetrics;
 import io.vertx.ext.shell.term.Tty;
+import org.apache.sshd.common.io.IoInputStream;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoReadFuture;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.apache.sshd.server.Environment;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.Signal;
+import org.apache.sshd.server.channel.ChannelSession;
+import org.apache.sshd.server.command.AsyncCommand;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 
 /**
+ * The command of an SSH exec channel.<p/>
+ *
+ * The standard input is read from the channel only when a handler is set and the input is not paused, the data
+ * that is not read is not acknowledged so the SSH channel window stops the client. The standard output is queued
+ * and written one chunk at a time to the channel.
+ *
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
-public class SSHExec implements Tty {
+public class SSHExec implements Tty, AsyncCommand {
+
+  private static final int READ_BUFFER_SIZE = 8192;
+  private static final int MAX_PENDING_WRITES = 64 * 1024;
 
   private final String command;
-  private final TtyConnection conn;
+  private final Charset charset;
+  private final Handler<SSHExec> startHandler;
+  private IoInputStream in;
+  private IoOutputStream out;
+  private ExitCallback exitCallback;
+  private Environment env;
+  private boolean pty;
+
+  // Standard input
+  private ChunkDecoder decoder;
+  private Handler<String> stdinHandler;
+  private Handler<Buffer> stdinBufferHandler;
+  private Handler<Void> stdinEndHandler;
+  private Handler<Void> resizeHandler;
+  private boolean paused;
+  private boolean reading;
+  private boolean ended;
+
+  // Standard output
+  private final ArrayDeque<byte[]> pendingWrites = new ArrayDeque<>();
+  private int pendingBytes;
+  private boolean writing;
+  private Handler<Void> drainHandler;
+  private Integer exitStatus;
+  private final OutputMeter meter = new OutputMeter(); // Counts the bytes written to the channel
 
-  SSHExec(String command, TtyConnection conn) {
+  SSHExec(String command, Charset charset, Handler<SSHExec> startHandler) {
     this.command = command;
-    this.conn = conn;
+    this.charset = charset;
+    this.startHandler = startHandler;
   }
 
   public String command() {
     return command;
   }
 
+  /**
+   * Report the bytes written to the channel to the metrics.
+   *
+   * @param metrics the metrics
+   * @param transportName the name of the transport
+   */
+  public void metrics(ShellMetrics metrics, String transportName) {
+    meter.metrics(metrics, transportName);
+  }
+
+  /**
+   * End the command with an exit status, the exit status is sent after the pending output.
+   *
+   * @param exit the exit status
+   */
   public void end(int exit) {
-    conn.close(exit);
+    boolean exitNow;
+    synchronized (this) {
+      if (exitStatus != null) {
+        return;
+      }
+      exitStatus = exit;
+      exitNow = !writing;
+    }
+    if (exitNow) {
+      exitCallback.onExit(exit);
+    }
   }
 
   @Override
   public String type() {
-    return conn.terminalType();
+    Environment e = env;
+    return e != null ? e.getEnv().get(Environment.ENV_TERM) : null;
   }
 
   @Override
   public int width() {
-    return conn.size() != null ? conn.size().x() : -1;
+    return envSize(Environment.ENV_COLUMNS);
   }
 
   @Override
   public int height() {
-    return conn.size() != null ? conn.size().y() : -1;
+    return envSize(Environment.ENV_LINES);
+  }
+
+  private int envSize(String name) {
+    Environment e = env;
+    String value = e != null ? e.getEnv().get(name) : null;
+    if (value != null) {
+      try {
+        return Integer.parseInt(value);
+      } catch (NumberFormatException ignore) {
+      }
+    }
+    return -1;
   }
 
   @Override
   public Tty stdinHandler(Handler<String> handler) {
-    if (handler != null) {
-      conn.setStdinHandler(codePoints -> handler.handle(io.termd.core.util.Helper.fromCodePoints(codePoints)));
-    } else {
-      conn.setStdinHandler(null);
+    synchronized (this) {
+      stdinHandler = handler;
     }
+    read();
     return this;
   }
 
+  @Override
+  public Tty stdinBufferHandler(Handler<Buffer> handler) {
+    synchronized (this) {
+      stdinBufferHandler = handler;
+    }
+    read();
+    return this;
+  }
+
+  @Override
+  public Tty pauseStdin() {
+    synchronized (this) {
+      paused = true;
+    }
+    return this;
+  }
+
+  @Override
+  public Tty resumeStdin() {
+    synchronized (this) {
+      paused = false;
+    }
+    read();
+    return this;
+  }
+
+  @Override
+  public Tty stdinEndHandler(Handler<Void> handler) {
+    boolean callNow;
+    synchronized (this) {
+      stdinEndHandler = handler;
+      callNow = ended && !reading && handler != null;
+    }
+    if (callNow) {
+      handler.handle(null);
+    }
+    return this;
+  }
+
+  /**
+   * Read the next chunk of the standard input when there is a handler to deliver it and the input is not paused.
+   */
+  private void read() {
+    ByteArrayBuffer buffer;
+    synchronized (this) {
+      if (in == null || reading || ended || paused || (stdinHandler == null && stdinBufferHandler == null)) {
+        return;
+      }
+      reading = true;
+      buffer = new ByteArrayBuffer(READ_BUFFER_SIZE, false);
+    }
+    in.read(buffer).addListener(this::handleRead);
+  }
+
+  private void handleRead(IoReadFuture future) {
+    Handler<String> textHandler;
+    Handler<Buffer> bufferHandler;
+    Handler<Void> endHandler;
+    synchronized (this) {
+      reading = false;
+      if (future.getException() != null) {
+        // EOF sent by the client or channel closed
+        ended = true;
+      }
+      textHandler = stdinHandler;
+      bufferHandler = stdinBufferHandler;
+      endHandler = ended ? stdinEndHandler : null;
+    }
+    if (endHandler != null) {
+      endHandler.handle(null);
+      return;
+    }
+    if (future.getException() == null) {
+      byte[] data = future.getBuffer().getCompactData();
+      if (bufferHandler != null) {
+        bufferHandler.handle(Buffer.buffer(data));
+      } else if (textHandler != null) {
+        textHandler.handle(decode(data));
+      }
+      read();
+    }
+  }
+
+  /**
+   * Decode the bytes with the charset of the server, a character split between two chunks is decoded with the
+   * next chunk.
+   */
+  private String decode(byte[] data) {
+    if (decoder == null) {
+      decoder = new ChunkDecoder(charset);
+    }
+    return decoder.decode(data);
+  }
+
   @Override
   public Tty write(String data) {
-    conn.write(data);
+    return write(data.getBytes(charset));
+  }
+
+  @Override
+  public Tty write(Buffer data) {
+    return write(data.getBytes());
+  }
+
+  private Tty write(byte[] data) {
+    if (pty) {
+      // The terminal of the client expects CRLF line endings
+      data = Helper.encodeOutput(Buffer.buffer(data), false).getBytes();
+    }
+    synchronized (this) {
+      if (exitStatus != null) {
+        return this;
+      }
+      pendingWrites.add(data);
+      pendingBytes += data.length;
+      if (writing) {
+        return this;
+      }
+      writing = true;
+    }
+    writeNext();
+    return this;
+  }
+
+  /**
+   * Write the pending chunks to the channel, the channel accepts a single write at a time.
+   */
+  private void writeNext() {
+    byte[] chunk = null;
+    Handler<Void> drain = null;
+    Integer exit = null;
+    synchronized (this) {
+      if (pendingWrites.isEmpty()) {
+        writing = false;
+        exit = exitStatus;
+      } else {
+        ByteArrayBuffer buffer = new ByteArrayBuffer(pendingBytes, false);
+        for (byte[] pending : pendingWrites) {
+          buffer.putRawBytes(pending);
+        }
+        chunk = buffer.getCompactData();
+        if (pendingBytes >= MAX_PENDING_WRITES) {
+          drain = drainHandler;
+        }
+        pendingWrites.clear();
+        pendingBytes = 0;
+      }
+    }
+    if (chunk != null) {
+      try {
+        out.writeBuffer(new ByteArrayBuffer(chunk)).addListener(this::handleWrite);
+        meter.accept(chunk.length);
+      } catch (IOException e) {
+        writeFailed();
+      }
+    }
+    if (drain != null) {
+      drain.handle(null);
+    }
+    if (exit != null) {
+      exitCallback.onExit(exit);
+    }
+  }
+
+  private void handleWrite(IoWriteFuture future) {
+    if (future.getException() != null) {
+      writeFailed();
+      return;
+    }
+    writeNext();
+  }
+
+  /**
+   * Discard the pending output when the channel cannot be written, the exit status is still sent when the command
+   * has ended.
+   */
+  private void writeFailed() {
+    Integer exit;
+    synchronized (this) {
+      writing = false;
+      pendingWrites.clear();
+      pendingBytes = 0;
+      exit = exitStatus;
+    }
+    if (exit != null) {
+      exitCallback.onExit(exit);
+    }
+  }
+
+  @Override
+  public synchronized boolean writeQueueFull() {
+    return pendingBytes >= MAX_PENDING_WRITES;
+  }
+
+  @Override
+  public synchronized Tty drainHandler(Handler<Void> handler) {
+    drainHandler = handler;
     return this;
   }
 
   @Override
   public Tty resizehandler(Handler<Void> handler) {
-    if (handler != null) {
-      conn.setSizeHandler(resize -> handler.handle(null));
-    } else {
-      conn.setSizeHandler(null);
+    synchronized (this) {
+      resizeHandler = handler;
     }
     return this;
   }
+
+  @Override
+  public void setIoInputStream(IoInputStream in) {
+    this.in = in;
+  }
+
+  @Override
+  public void setIoOutputStream(IoOutputStream out) {
+    this.out = out;
+  }
+
+  @Override
+  public void setIoErrorStream(IoOutputStream err) {
+  }
+
+  @Override
+  public void setInputStream(InputStream in) {
+  }
+
+  @Override
+  public void setOutputStream(OutputStream out) {
+  }
+
+  @Override
+  public void setErrorStream(OutputStream err) {
+  }
+
+  @Override
+  public void setExitCallback(ExitCallback callback) {
+    this.exitCallback = callback;
+  }
+
+  @Override
+  public void start(ChannelSession channel, Environment env) {
+    this.env = env;
+    this.pty = env.getEnv().get(Environment.ENV_TERM) != null;
+    env.addSignalListener((c, signal) -> {
+      Handler<Void> handler;
+      synchronized (SSHExec.this) {
+        handler = resizeHandler;
+      }
+      if (handler != null) {
+        handler.handle(null);
+      }
+    }, Signal.WINCH);
+    startHandler.handle(this);
+  }
+
+  @Override
+  public void destroy(ChannelSession channel) {
+    Handler<Void> endHandler;
+    synchronized (this) {
+      if (ended) {
+        return;
+      }
+      ended = true;
+      endHandler = reading ? null : stdinEndHandler;
+    }
+    if (endHandler != null) {
+      endHandler.handle(null);
+    }
+  }
 }
@@ -32,40 +32,55 @@
 
 package io.vertx.ext.shell.term.impl;
 
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
 import io.termd.core.readline.Keymap;
 import io.termd.core.ssh.TtyCommand;
 import io.vertx.core.*;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.VertxInternal;
 import io.vertx.core.net.*;
 import io.vertx.ext.auth.authentication.AuthenticationProvider;
 import io.vertx.ext.auth.authentication.UsernamePasswordCredentials;
+import io.vertx.ext.shell.impl.FsRoot;
 import io.vertx.ext.shell.impl.ShellAuth;
 import io.vertx.ext.shell.term.SSHTermOptions;
 import io.vertx.ext.shell.term.Term;
 import io.vertx.ext.shell.term.TermServer;
+import org.apache.sshd.common.AttributeRepository;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
 import org.apache.sshd.common.future.CloseFuture;
 import org.apache.sshd.common.future.SshFutureListener;
 import org.apache.sshd.common.keyprovider.AbstractKeyPairProvider;
 import org.apache.sshd.common.keyprovider.KeyPairProvider;
+import org.apache.sshd.common.session.Session;
 import org.apache.sshd.common.session.SessionContext;
+import org.apache.sshd.scp.server.ScpCommandFactory;
 import org.apache.sshd.server.Environment;
 import org.apache.sshd.server.SshServer;
 import org.apache.sshd.server.auth.AsyncAuthException;
 import org.apache.sshd.server.channel.ChannelSession;
 import org.apache.sshd.server.command.Command;
+import org.apache.sshd.server.command.CommandFactory;
 import org.apache.sshd.server.shell.ShellFactory;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.security.*;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.sshd.server.SshServer.DEFAULT_SERVICE_FACTORIES;
@@ -79,14 +94,77 @@ public class SSHServer implements TermServer {
 
   private static final int STATUS_STOPPED = 0, STATUS_STARTING = 1, STATUS_STARTED = 2, STATUS_STOPPING = 3;
 
+  // The native servers shared by the instances listening on the same host and port, keyed by vertx, host and port
+  private static final Map<List<Object>, Shared> sharedServers = new HashMap<>();
+
+  /**
+   * A native server and the instances it dispatches its connections to, in a round robin fashion.
+   */
+  private static class Shared {
+
+    final List<Object> key;
+    final Promise<Void> started = Promise.promise();
+    final List<SSHServer> instances = new CopyOnWriteArrayList<>();
+    final AtomicInteger next = new AtomicInteger();
+    volatile SshServer nativeServer;
+
+    Shared(List<Object> key) {
+      this.key = key;
+    }
+
+    SSHServer next() {
+      Object[] array = instances.toArray();
+      if (array.length == 0) {
+        return null;
+      }
+      return (SSHServer) array[Math.floorMod(next.getAndIncrement(), array.length)];
+    }
+
+    /**
+     * @return the instance serving a session, it is chosen once per session so the authentication attempts and the
+     *         channels of a session use the same instance and a session takes a single round robin slot
+     */
+    SSHServer instance(Session session) {
+      SSHServer instance = session.getAttribute(INSTANCE);
+      if (instance == null || !instances.contains(instance)) {
+        // Not chosen yet or closed since
+        instance = next();
+        if (instance != null) {
+          session.setAttribute(INSTANCE, instance);
+        }
+      }
+      return instance;
+    }
+
+    /**
+     * @return the instance handling the exec requests of a session, the instance of the session when it has an exec
+     *         handler, otherwise any instance having one
+     */
+    SSHServer execInstance(Session session) {
+      SSHServer instance = instance(session);
+      if (instance != null && instance.execHandler != null) {
+        return instance;
+      }
+      for (SSHServer other : instances) {
+        if (other.execHandler != null) {
+          return other;
+        }
+      }
+      return null;
+    }
+  }
+
+  private static final AttributeRepository.AttributeKey<SSHServer> INSTANCE = new AttributeRepository.AttributeKey<>();
+
   private final Vertx vertx;
   private final SSHTermOptions options;
   private Handler<Term> termHandler;
-  private SshServer nativeServer;
+  private Shared shared;
+  private TermConnectionHandler connectionHandler;
   private final AtomicInteger status = new AtomicInteger(STATUS_STOPPED);
   private ContextInternal listenContext;
   private AuthenticationProvider authProvider;
-  private Handler<SSHExec> execHandler;
+  private volatile Handler<SSHExec> execHandler;
 
   public SSHServer(Vertx vertx, SSHTermOptions options) {
     this.vertx = vertx;
@@ -98,10 +176,11 @@ public class SSHServer implements TermServer {
   }
 
   /**
-   * @return the underlying native server
+   * @return the underlying native server, shared with the other instances listening on the same host and port
    */
   public SshServer getNativeServer() {
-    return nativeServer;
+    Shared s = shared;
+    return s != null ? s.nativeServer : null;
   }
 
   public Handler<SSHExec> getExecHandler() {
@@ -135,94 +214,232 @@ public class SSHServer implements TermServer {
     }
     Charset defaultCharset = Charset.forName(options.getDefaultCharset());
     listenContext = (ContextInternal) vertx.getOrCreateContext();
-    vertx.<Void>executeBlocking(() -> {
-
-      try {
-        KeyCertOptions ksOptions = options.getKeyPairOptions();
-        KeyStore ks;
-        if (ksOptions instanceof KeyStoreOptionsBase) {
-          ks = ((KeyStoreOptionsBase) ksOptions).loadKeyStore(vertx);
-        } else if (ksOptions instanceof PemKeyCertOptions) {
-          ks = ((PemKeyCertOptions) ksOptions).loadKeyStore(vertx);
-        } else {
-          ks = null;
-        }
-        if (ks == null) {
-          throw new VertxException("No key pair store configured");
-        }
 
-        String kpPassword = "";
-        if (ksOptions instanceof JksOptions) {
-          kpPassword = ((JksOptions) ksOptions).getPassword();
-        } else if (ksOptions instanceof PfxOptions) {
-          kpPassword = ((PfxOptions) ksOptions).getPassword();
+    // Instances listening on the same host and port share the native server, like Vert.x servers do
+    List<Object> key = options.getPort() != 0 ? Arrays.asList(vertx, options.getHost(), options.getPort()) : null;
+    Shared s;
+    boolean owner;
+    synchronized (sharedServers) {
+      s = key != null ? sharedServers.get(key) : null;
+      owner = s == null;
+      if (owner) {
+        s = new Shared(key);
+        if (key != null) {
+          sharedServers.put(key, s);
         }
-
-        List<KeyPair> keyPairs = new ArrayList<>();
-        for (Enumeration<String> it = ks.aliases(); it.hasMoreElements(); ) {
-          String alias = it.nextElement();
-          Key key = ks.getKey(alias, kpPassword.toCharArray());
-          if (key instanceof PrivateKey) {
-            Certificate cert = ks.getCertificate(alias);
-            PublicKey publicKey = cert.getPublicKey();
-            keyPairs.add(new KeyPair(publicKey, (PrivateKey) key));
+      }
+    }
+    Shared shared = s;
+    vertx.<Void>executeBlocking(() -> {
+      Buffer inputrc = Helper.loadResource(vertx.fileSystem(), options.getIntputrc());
+      if (inputrc == null) {
+        throw new VertxException("Could not load inputrc from " + options.getIntputrc());
+      }
+      Keymap keymap = new Keymap(new ByteArrayInputStream(inputrc.getBytes()));
+      connectionHandler = new TermConnectionHandler(vertx, keymap, termHandler, listenContext);
+      if (owner) {
+        startNativeServer(shared, defaultCharset);
+      }
+      return null;
+    }).onComplete(ar -> {
+      if (owner) {
+        if (ar.failed()) {
+          synchronized (sharedServers) {
+            if (shared.key != null) {
+              sharedServers.remove(shared.key);
+            }
           }
         }
-        KeyPairProvider provider = new AbstractKeyPairProvider() {
-          @Override
-          public Iterable<KeyPair> loadKeys(SessionContext session) {
-            return keyPairs;
+        shared.started.handle(ar);
+      }
+      if (ar.failed()) {
+        status.set(STATUS_STOPPED);
+        listenHandler.fail(ar.cause());
+        return;
+      }
+      shared.started.future().onComplete(started -> {
+        if (started.succeeded()) {
+          synchronized (sharedServers) {
+            if (owner || sharedServers.get(shared.key) == shared) {
+              if (!owner) {
+                shared.instances.add(this);
+              }
+              this.shared = shared;
+              status.set(STATUS_STARTED);
+            } else {
+              status.set(STATUS_STOPPED);
+            }
           }
-        };
-
-        Buffer inputrc = Helper.loadResource(vertx.fileSystem(), options.getIntputrc());
-        if (inputrc == null) {
-          throw new VertxException("Could not load inputrc from " + options.getIntputrc());
+          if (status.get() == STATUS_STARTED) {
+            listenHandler.succeed();
+          } else {
+            listenHandler.fail("Server closed");
+          }
+        } else {
+          status.set(STATUS_STOPPED);
+          listenHandler.fail(started.cause());
         }
-        Keymap keymap = new Keymap(new ByteArrayInputStream(inputrc.getBytes()));
-        TermConnectionHandler connectionHandler = new TermConnectionHandler(vertx, keymap, termHandler, listenContext);
+      });
+    });
+    return this;
+  }
 
-        nativeServer = SshServer.setUpDefaultServer();
-        nativeServer.setShellFactory(channel -> new TtyCommand(defaultCharset, connectionHandler::handle));
-        Handler<SSHExec> execHandler = this.execHandler;
-        if (execHandler != null) {
-          nativeServer.setCommandFactory((channel, command) -> new TtyCommand(defaultCharset, conn -> listenContext.dispatch(new SSHExec(command, conn), execHandler)));
+  private void startNativeServer(Shared shared, Charset defaultCharset) throws Exception {
+    KeyCertOptions ksOptions = options.getKeyPairOptions();
+    KeyStore ks;
+    if (ksOptions instanceof KeyStoreOptionsBase) {
+      ks = ((KeyStoreOptionsBase) ksOptions).loadKeyStore(vertx);
+    } else if (ksOptions instanceof PemKeyCertOptions) {
+      ks = ((PemKeyCertOptions) ksOptions).loadKeyStore(vertx);
+    } else {
+      ks = null;
+    }
+    if (ks == null) {
+      throw new VertxException("No key pair store configured");
+    }
+
+    String kpPassword = "";
+    if (ksOptions instanceof JksOptions) {
+      kpPassword = ((JksOptions) ksOptions).getPassword();
+    } else if (ksOptions instanceof PfxOptions) {
+      kpPassword = ((PfxOptions) ksOptions).getPassword();
+    }
+
+    List<KeyPair> keyPairs = new ArrayList<>();
+    for (Enumeration<String> it = ks.aliases(); it.hasMoreElements(); ) {
+      String alias = it.nextElement();
+      Key key = ks.getKey(alias, kpPassword.toCharArray());
+      if (key instanceof PrivateKey) {
+        Certificate cert = ks.getCertificate(alias);
+        PublicKey publicKey = cert.getPublicKey();
+        keyPairs.add(new KeyPair(publicKey, (PrivateKey) key));
+      }
+    }
+    KeyPairProvider provider = new AbstractKeyPairProvider() {
+      @Override
+      public Iterable<KeyPair> loadKeys(SessionContext session) {
+        return keyPairs;
+      }
+    };
+
+    SshServer nativeServer = SshServer.setUpDefaultServer();
+    nativeServer.setShellFactory(channel -> {
+      OutputMeter meter = new OutputMeter();
+      ChannelOutput output = new ChannelOutput(vertx);
+      return new TtyCommand(defaultCharset, conn -> {
+        SSHServer instance = shared.instance(channel.getSession());
+        if (instance != null) {
+          instance.connectionHandler.handle(conn, instance.connectionContext(), output, null, meter);
+        } else {
+          conn.close();
+        }
+      }) {
+        @Override
+        public void setOutputStream(OutputStream out) {
+          // Count the bytes written to the channel, the channel is written on a worker thread
+          output.setOutputStream(meter.wrap(out));
+          super.setOutputStream(output);
         }
-        nativeServer.setHost(options.getHost());
-        nativeServer.setPort(options.getPort());
-        nativeServer.setKeyPairProvider(provider);
-        nativeServer.setIoServiceFactoryFactory(new org.apache.sshd.netty.NettyIoServiceFactoryFactory(listenContext.nettyEventLoop()));
-        nativeServer.setServiceFactories(DEFAULT_SERVICE_FACTORIES);
-
-        //
-        if (authProvider == null) {
-          throw new VertxException("No authenticator");
+      };
+    });
+    // The instances sharing the server can set an exec handler after the server is started
+    nativeServer.setCommandFactory((channel, command) -> {
+      if (shared.execInstance(channel.getSession()) == null) {
+        throw new IOException("Unsupported command " + command);
+      }
+      return new SSHExec(command, defaultCharset, exec -> {
+        SSHServer instance = shared.execInstance(channel.getSession());
+        Handler<SSHExec> execHandler = instance != null ? instance.execHandler : null;
+        if (execHandler != null) {
+          instance.connectionContext().dispatch(exec, execHandler);
+        } else {
+          exec.end(1);
         }
+      });
+    });
+    if (options.isFileTransfer()) {
+      // The users are jailed in the root directory of the file system commands, the SFTP subsystem reads and writes
+      // the files with a file channel by chunks of a packet so a large file is never loaded in memory, the files can
+      // only be downloaded unless the write access is enabled
+      nativeServer.setFileSystemFactory(new VirtualFileSystemFactory(FsRoot.rootPath()));
+      SftpSubsystemFactory.Builder sftp = new SftpSubsystemFactory.Builder();
+      CommandFactory scp = new ScpCommandFactory.Builder().withDelegate(nativeServer.getCommandFactory()).build();
+      if (!options.isFileTransferWritable()) {
+        sftp.withFileSystemAccessor(ReadOnlyFileTransfer.SFTP);
+        scp = ReadOnlyFileTransfer.scp(scp);
+      }
+      nativeServer.setSubsystemFactories(Collections.singletonList(sftp.build()));
+      nativeServer.setCommandFactory(scp);
+    }
+    nativeServer.setHost(options.getHost());
+    nativeServer.setPort(options.getPort());
+    nativeServer.setKeyPairProvider(provider);
+    EventLoopGroup eventLoopGroup = options.isUseEventLoopGroup() ? ((VertxInternal) vertx).nettyEventLoopGroup() : listenContext.nettyEventLoop();
+    nativeServer.setIoServiceFactoryFactory(new org.apache.sshd.netty.NettyIoServiceFactoryFactory(eventLoopGroup));
+    nativeServer.setServiceFactories(DEFAULT_SERVICE_FACTORIES);
 
-        nativeServer.setPasswordAuthenticator((username, userpass, session) -> {
-          AsyncAuthException auth = new AsyncAuthException();
-          listenContext.runOnContext(v ->
-            authProvider.authenticate(new UsernamePasswordCredentials(username, userpass))
-              .onSuccess(user -> auth.setAuthed(true))
-              .onFailure(err -> auth.setAuthed(false)));
-          throw auth;
-        });
-
-        //
-        nativeServer.start();
-        status.set(STATUS_STARTED);
-        return null;
-      } catch (Exception e) {
-        status.set(STATUS_STOPPED);
-        throw e;
+    //
+    if (authProvider == null) {
+      throw new VertxException("No authenticator");
+    }
+
+    // Authenticate with the instance serving the session, the owner might be closed before the other instances
+    nativeServer.setPasswordAuthenticator((username, userpass, session) -> {
+      SSHServer instance = shared.instance(session);
+      AuthenticationProvider authProvider = instance != null ? instance.authProvider : null;
+      if (authProvider == null) {
+        return false;
       }
-    }).onComplete(listenHandler);
-    return this;
+      AsyncAuthException auth = new AsyncAuthException();
+      instance.listenContext.runOnContext(v ->
+        authProvider.authenticate(new UsernamePasswordCredentials(username, userpass))
+          .onSuccess(user -> auth.setAuthed(true))
+          .onFailure(err -> auth.setAuthed(false)));
+      throw auth;
+    });
+
+    //
+    synchronized (sharedServers) {
+      // The owner accepts the connections as soon as the server is started
+      shared.instances.add(this);
+    }
+    try {
+      nativeServer.start();
+    } catch (Exception e) {
+      synchronized (sharedServers) {
+        shared.instances.remove(this);
+      }
+      throw e;
+    }
+    shared.nativeServer = nativeServer;
+  }
+
+  /**
+   * @return the context of a new connection, when the server uses the event loop group this is a context on the
+   * event loop of the connection
+   */
+  private ContextInternal connectionContext() {
+    if (!options.isUseEventLoopGroup()) {
+      return listenContext;
+    }
+    VertxInternal vertxInternal = (VertxInternal) vertx;
+    EventLoop eventLoop = null;
+    for (EventExecutor executor : vertxInternal.nettyEventLoopGroup()) {
+      if (executor instanceof EventLoop && executor.inEventLoop()) {
+        eventLoop = (EventLoop) executor;
+        break;
+      }
+    }
+    if (eventLoop == null) {
+      // Not called from an I/O thread, assign the event loops round robin
+      eventLoop = vertxInternal.nettyEventLoopGroup().next();
+    }
+    return vertxInternal.createEventLoopContext(eventLoop, null, listenContext.classLoader());
   }
 
   @Override
   public int actualPort() {
-    return nativeServer.getPort();
+    return shared.nativeServer.getPort();
   }
 
   public void close(Completable<Void> completionHandler) {
@@ -230,8 +447,24 @@ public class SSHServer implements TermServer {
       completionHandler.fail("Invalid state:" + status.get());
       return;
     }
-    SshServer server = this.nativeServer;
-    this.nativeServer = null;
+    Shared s = this.shared;
+    this.shared = null;
+    SshServer server = null;
+    synchronized (sharedServers) {
+      s.instances.remove(this);
+      if (s.instances.isEmpty()) {
+        // Last instance, the native server is closed
+        if (s.key != null) {
+          sharedServers.remove(s.key);
+        }
+        server = s.nativeServer;
+      }
+    }
+    if (server == null) {
+      status.set(STATUS_STOPPED);
+      completionHandler.succeed();
+      return;
+    }
     CloseFuture closeFuture = server.close(false);
     closeFuture.addListener(fut -> {
       status.set(STATUS_STOPPED);
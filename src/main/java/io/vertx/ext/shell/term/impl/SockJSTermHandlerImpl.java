@@ -35,12 +35,15 @@ package io.vertx.ext.shell.term.impl;
 import io.termd.core.readline.Keymap;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.shell.term.SockJSTermHandler;
 import io.vertx.ext.shell.term.Term;
 import io.vertx.ext.web.handler.sockjs.SockJSSocket;
 
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -67,7 +70,8 @@ public class SockJSTermHandlerImpl implements SockJSTermHandler {
   @Override
   public void handle(SockJSSocket socket) {
     if (termHandler != null) {
-      SockJSTtyConnection conn = new SockJSTtyConnection(charset, vertx.getOrCreateContext(), socket);
+      OutputMeter meter = new OutputMeter();
+      SockJSTtyConnection conn = new SockJSTtyConnection(charset, vertx.getOrCreateContext(), socket, meter);
       socket.handler(buf -> conn.writeToDecoder(buf.toString()));
       socket.endHandler(v -> {
         Consumer<Void> closeHandler = conn.getCloseHandler();
@@ -75,7 +79,8 @@ public class SockJSTermHandlerImpl implements SockJSTermHandler {
           closeHandler.accept(null);
         }
       });
-      termHandler.handle(new TermImpl(vertx, keymap, conn));
+      Function<Buffer, Buffer> binaryEncoder = charset.equals(StandardCharsets.UTF_8) ? data -> Helper.encodeOutput(data, false) : null;
+      termHandler.handle(new TermImpl(vertx, keymap, conn, null, socket, binaryEncoder, meter));
     } else {
       socket.close();
     }
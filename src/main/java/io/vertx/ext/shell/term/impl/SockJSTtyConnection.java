@@ -51,16 +51,25 @@ public class SockJSTtyConnection extends HttpTtyConnection {
 
   private final Context context;
   private final SockJSSocket socket;
+  private final OutputMeter meter;
 
   public SockJSTtyConnection(Charset charset, Context context, SockJSSocket socket) {
+    this(charset, context, socket, null);
+  }
+
+  public SockJSTtyConnection(Charset charset, Context context, SockJSSocket socket, OutputMeter meter) {
     super(charset, getInitialSize(socket));
     this.context = context;
     this.socket = socket;
+    this.meter = meter;
   }
 
   @Override
   protected void write(byte[] bytes) {
     socket.write(Buffer.buffer(bytes));
+    if (meter != null) {
+      meter.accept(bytes.length);
+    }
   }
 
   @Override
@@ -37,6 +37,7 @@ import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.net.NetSocket;
 
+import java.util.function.BiFunction;
 import java.util.function.Supplier;
 
 /**
@@ -47,17 +48,25 @@ import java.util.function.Supplier;
 public class TelnetSocketHandler implements Handler<NetSocket> {
 
   final Vertx vertx;
-  final Supplier<TelnetHandler> factory;
+  final BiFunction<NetSocket, OutputMeter, TelnetHandler> factory;
 
   public TelnetSocketHandler(Vertx vertx, Supplier<TelnetHandler> factory) {
+    this(vertx, (socket, meter) -> factory.get());
+  }
+
+  /**
+   * @param factory the handler factory, the meter counts the bytes written to the socket
+   */
+  public TelnetSocketHandler(Vertx vertx, BiFunction<NetSocket, OutputMeter, TelnetHandler> factory) {
     this.vertx = vertx;
     this.factory = factory;
   }
 
   @Override
   public void handle(final NetSocket socket) {
-    TelnetHandler handler = factory.get();
-    final VertxTelnetConnection connection = new VertxTelnetConnection(handler, Vertx.currentContext(), socket);
+    OutputMeter meter = new OutputMeter();
+    TelnetHandler handler = factory.apply(socket, meter);
+    final VertxTelnetConnection connection = new VertxTelnetConnection(handler, Vertx.currentContext(), socket, meter);
     socket.handler(event -> connection.receive(event.getBytes()));
     socket.closeHandler(event -> connection.onClose());
     connection.onInit();
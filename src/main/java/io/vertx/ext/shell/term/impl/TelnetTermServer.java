@@ -44,6 +44,8 @@ import io.vertx.ext.shell.term.TermServer;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
 
 /**
  * Encapsulate the Telnet server setup.
@@ -84,8 +86,11 @@ public class TelnetTermServer implements TermServer {
       }
       Keymap keymap = new Keymap(new ByteArrayInputStream(inputrc.getBytes()));
       TermConnectionHandler connectionHandler = new TermConnectionHandler(vertx, keymap, termHandler, null);
-      server.connectHandler(new TelnetSocketHandler(vertx, () -> {
-        return new TelnetTtyConnection(options.getInBinary(), options.getOutBinary(), charset, connectionHandler::handle);
+      // Bytes can be sent as is only when the output is 8 bit and uses the same encoding
+      Function<Buffer, Buffer> binaryEncoder = options.getOutBinary() && charset.equals(StandardCharsets.UTF_8) ?
+        data -> Helper.encodeOutput(data, true) : null;
+      server.connectHandler(new TelnetSocketHandler(vertx, (socket, meter) -> {
+        return new TelnetTtyConnection(options.getInBinary(), options.getOutBinary(), charset, conn -> connectionHandler.handle(conn, socket, binaryEncoder, meter));
       }));
       server.listen()
         .onComplete(ar -> {
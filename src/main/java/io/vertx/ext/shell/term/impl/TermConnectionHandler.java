@@ -36,9 +36,13 @@ import io.termd.core.readline.Keymap;
 import io.termd.core.tty.TtyConnection;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.streams.WriteStream;
 import io.vertx.ext.shell.term.Term;
 
+import java.util.function.Function;
+
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
  */
@@ -59,7 +63,15 @@ class TermConnectionHandler implements Handler<TtyConnection> {
 
   @Override
   public void handle(TtyConnection conn) {
-    TermImpl term = new TermImpl(vertx, keymap, conn, context);
+    handle(conn, context, null, null, null);
+  }
+
+  public void handle(TtyConnection conn, WriteStream<Buffer> transport, Function<Buffer, Buffer> binaryEncoder, OutputMeter meter) {
+    handle(conn, context, transport, binaryEncoder, meter);
+  }
+
+  public void handle(TtyConnection conn, ContextInternal context, WriteStream<Buffer> transport, Function<Buffer, Buffer> binaryEncoder, OutputMeter meter) {
+    TermImpl term = new TermImpl(vertx, keymap, conn, context, transport, binaryEncoder, meter);
     if (context != null) {
       context.dispatch(term, handler);
     } else {
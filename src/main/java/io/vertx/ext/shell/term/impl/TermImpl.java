@@ -38,16 +38,22 @@ import io.termd.core.tty.TtyConnection;
 import io.termd.core.util.Helper;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.streams.WriteStream;
 import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.cli.Completion;
 import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.spi.ShellMetrics;
 import io.vertx.ext.shell.term.SignalHandler;
 import io.vertx.ext.shell.term.Term;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -55,6 +61,18 @@ import java.util.stream.Collectors;
  */
 public class TermImpl implements Term {
 
+  // Echo sequences of the control chars, these arrays are shared and must not be modified
+  private static final int[] ECHO_TAB = {'\t'};
+  private static final int[] ECHO_ERASE = {'\b', ' ', '\b'};
+  private static final int[] ECHO_NEWLINE = {'\n'};
+  private static final int[][] ECHO_CONTROL = new int[32][];
+
+  static {
+    for (int i = 0; i < ECHO_CONTROL.length; i++) {
+      ECHO_CONTROL[i] = new int[]{'^', i + 64};
+    }
+  }
+
   private static final List<io.termd.core.readline.Function> readlineFunctions = Helper.loadServices(Thread.currentThread().getContextClassLoader(), io.termd.core.readline.Function.class);
 
   private final ContextInternal context;
@@ -62,11 +80,16 @@ public class TermImpl implements Term {
   private final Readline readline;
   private final Consumer<int[]> echoHandler;
   final TtyConnection conn;
+  final WriteStream<Buffer> transport; // The stream the connection writes to, used for flow control, can be null
+  final Function<Buffer, Buffer> binaryEncoder; // Encodes bytes written directly to the transport, can be null
   volatile Handler<String> stdinHandler;
   private SignalHandler interruptHandler;
   private SignalHandler suspendHandler;
   private Session session;
   private boolean inReadline;
+  private final OutputMeter meter; // Counts the bytes written to the transport
+  // Decodes the bytes written to the connection, a character can be split between two writes
+  private final ChunkDecoder outputDecoder = new ChunkDecoder(StandardCharsets.UTF_8);
 
   public TermImpl(Vertx vertx, Keymap keymap, TtyConnection conn) {
     this(vertx, keymap, conn, null);
@@ -81,9 +104,16 @@ public class TermImpl implements Term {
   }
 
   public TermImpl(Vertx vertx, Keymap keymap, TtyConnection conn, ContextInternal context) {
+    this(vertx, keymap, conn, context, null, null, null);
+  }
+
+  public TermImpl(Vertx vertx, Keymap keymap, TtyConnection conn, ContextInternal context, WriteStream<Buffer> transport, Function<Buffer, Buffer> binaryEncoder, OutputMeter meter) {
     this.vertx = vertx;
+    this.meter = meter != null ? meter : new OutputMeter();
     this.conn = conn;
     this.context = context;
+    this.transport = transport;
+    this.binaryEncoder = transport != null ? binaryEncoder : null;
     this.readline = new Readline(keymap);
     this.readlineFunctions.forEach(readline::addFunction);
     this.echoHandler = codePoints -> {
@@ -277,12 +307,58 @@ public class TermImpl implements Term {
     return this;
   }
 
+  /**
+   * Report the bytes written to the transport of this terminal to the metrics.
+   *
+   * @param metrics the metrics
+   * @param transportName the name of the transport of this terminal
+   */
+  public void metrics(ShellMetrics metrics, String transportName) {
+    meter.metrics(metrics, transportName);
+  }
+
   @Override
   public Term write(String data) {
     conn.write(data);
     return this;
   }
 
+  @Override
+  public Term write(Buffer data) {
+    if (binaryEncoder != null) {
+      // Bypasses the connection
+      Buffer encoded = binaryEncoder.apply(data);
+      meter.accept(encoded.length());
+      transport.write(encoded);
+    } else {
+      conn.write(outputDecoder.decode(data.getBytes()));
+    }
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return transport != null && transport.writeQueueFull();
+  }
+
+  @Override
+  public Term drainHandler(Handler<Void> handler) {
+    if (transport != null) {
+      if (handler != null) {
+        transport.drainHandler(v -> {
+          if (context != null) {
+            context.dispatch(handler);
+          } else {
+            handler.handle(null);
+          }
+        });
+      } else {
+        transport.drainHandler(null);
+      }
+    }
+    return this;
+  }
+
   public TermImpl interruptHandler(SignalHandler handler) {
     interruptHandler = handler;
     return this;
@@ -298,30 +374,86 @@ public class TermImpl implements Term {
   }
 
   public TermImpl echo(String text) {
-    echo(Helper.toCodePoints(text));
+    Consumer<int[]> out = conn.stdoutHandler();
+    int len = text.length();
+    int from = 0; // the char index of the printable segment
+    int count = 0; // the number of code points of the printable segment
+    for (int i = 0; i < len; ) {
+      int codePoint = text.codePointAt(i);
+      int next = i + Character.charCount(codePoint);
+      int[] escaped = escape(codePoint);
+      if (escaped != null) {
+        if (count > 0) {
+          out.accept(codePoints(text, from, count));
+          count = 0;
+        }
+        out.accept(escaped);
+        from = next;
+      } else {
+        count++;
+      }
+      i = next;
+    }
+    if (count > 0) {
+      out.accept(codePoints(text, from, count));
+    }
     return this;
   }
 
+  /**
+   * @return the code points of a string segment, sized to the segment
+   */
+  private static int[] codePoints(String text, int from, int count) {
+    int[] codePoints = new int[count];
+    for (int i = 0, index = from; i < count; i++) {
+      int codePoint = text.codePointAt(index);
+      codePoints[i] = codePoint;
+      index += Character.charCount(codePoint);
+    }
+    return codePoints;
+  }
+
   public void echo(int... codePoints) {
     Consumer<int[]> out = conn.stdoutHandler();
-    for (int codePoint : codePoints) {
-      if (codePoint < 32) {
-        if (codePoint == '\t') {
-          out.accept(new int[]{'\t'});
-        } else if (codePoint == '\b') {
-          out.accept(new int[]{'\b', ' ', '\b'});
-        } else if (codePoint == '\r' || codePoint == '\n') {
-          out.accept(new int[]{'\n'});
-        } else {
-          out.accept(new int[]{'^', codePoint + 64});
+    int from = 0;
+    for (int i = 0; i < codePoints.length; i++) {
+      int[] escaped = escape(codePoints[i]);
+      if (escaped != null) {
+        if (i > from) {
+          out.accept(Arrays.copyOfRange(codePoints, from, i));
         }
+        out.accept(escaped);
+        from = i + 1;
+      }
+    }
+    if (from == 0) {
+      // Only printable chars: the common case of a keystroke or a pasted text, no copy needed
+      if (codePoints.length > 0) {
+        out.accept(codePoints);
+      }
+    } else if (from < codePoints.length) {
+      out.accept(Arrays.copyOfRange(codePoints, from, codePoints.length));
+    }
+  }
+
+  /**
+   * @return the shared sequence echoing the code point or {@code null} when the code point is printable
+   */
+  private static int[] escape(int codePoint) {
+    if (codePoint < 32) {
+      if (codePoint == '\t') {
+        return ECHO_TAB;
+      } else if (codePoint == '\b') {
+        return ECHO_ERASE;
+      } else if (codePoint == '\r' || codePoint == '\n') {
+        return ECHO_NEWLINE;
       } else {
-        if (codePoint == 127) {
-          out.accept(new int[]{'\b', ' ', '\b'});
-        } else {
-          out.accept(new int[]{codePoint});
-        }
+        return ECHO_CONTROL[codePoint];
       }
+    } else if (codePoint == 127) {
+      return ECHO_ERASE;
+    } else {
+      return null;
     }
   }
 }
@@ -47,11 +47,17 @@ public class VertxTelnetConnection extends TelnetConnection {
 
   final NetSocket socket;
   final Context context;
+  final OutputMeter meter;
 
   public VertxTelnetConnection(TelnetHandler handler, Context context, NetSocket socket) {
+    this(handler, context, socket, null);
+  }
+
+  public VertxTelnetConnection(TelnetHandler handler, Context context, NetSocket socket, OutputMeter meter) {
     super(handler);
     this.context = context;
     this.socket = socket;
+    this.meter = meter;
   }
 
   @Override
@@ -68,6 +74,9 @@ public class VertxTelnetConnection extends TelnetConnection {
   @Override
   protected void send(byte[] data) {
     socket.write(Buffer.buffer(data));
+    if (meter != null) {
+      meter.accept(data.length);
+    }
   }
 
   @Override
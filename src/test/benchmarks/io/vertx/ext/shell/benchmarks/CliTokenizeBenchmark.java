@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.vertx.ext.shell.cli.CliToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the command line tokenizer on typical, long and heavily quoted lines.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CliTokenizeBenchmark {
+
+  @Param({"typical", "long", "quoted"})
+  public String kind;
+
+  private String line;
+
+  @Setup
+  public void setup() {
+    switch (kind) {
+      case "typical":
+        line = "ls -l /var/log/vertx";
+        break;
+      case "long": {
+        StringBuilder sb = new StringBuilder("bus-send");
+        for (int i = 0; i < 64; i++) {
+          sb.append(" --header=key").append(i).append(":value").append(i);
+        }
+        line = sb.append(" address message").toString();
+        break;
+      }
+      case "quoted": {
+        StringBuilder sb = new StringBuilder("echo");
+        for (int i = 0; i < 16; i++) {
+          sb.append(" \"a \\\"quoted\\\" text ").append(i).append("\" 'single quoted' escaped\\ blank");
+        }
+        line = sb.toString();
+        break;
+      }
+      default:
+        throw new IllegalArgumentException(kind);
+    }
+  }
+
+  @Benchmark
+  public List<CliToken> tokenize() {
+    return CliToken.tokenize(line);
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.annotations.Argument;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.ext.shell.cli.CliToken;
+import io.vertx.ext.shell.command.AnnotatedCommand;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Pty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the number of annotated command launches per second, from the command line tokens to the process
+ * termination.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CommandLaunchBenchmark {
+
+  @Name("launch")
+  public static class Launch extends AnnotatedCommand {
+
+    private String mode;
+    private int count;
+    private List<String> args;
+
+    @Option(longName = "mode", shortName = "m")
+    public void setMode(String mode) {
+      this.mode = mode;
+    }
+
+    @Option(longName = "count", shortName = "c")
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    @Argument(index = 0, argName = "args", required = false)
+    public void setArgs(List<String> args) {
+      this.args = args;
+    }
+
+    @Override
+    public void process(CommandProcess process) {
+      process.end(count);
+    }
+  }
+
+  private Vertx vertx;
+  private Context context;
+  private Command command;
+  private List<CliToken> args;
+
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    context = vertx.getOrCreateContext();
+    args = CliToken.tokenize("--mode fast -c 0 a b c");
+    CompletableFuture<Command> fut = new CompletableFuture<>();
+    context.runOnContext(v -> fut.complete(Command.create(vertx, Launch.class)));
+    command = fut.get(10, TimeUnit.SECONDS);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close().await(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public void launch() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    context.runOnContext(v -> {
+      Process process = command.createProcess(args).setSession(Session.create()).setTty(Pty.create().slave());
+      process.terminatedHandler(code -> latch.countDown());
+      process.run();
+    });
+    latch.await();
+  }
+
+  @Benchmark
+  public String name() {
+    return command.name();
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.shell.cli.CliToken;
+import io.vertx.ext.shell.cli.Completion;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.command.CommandResolver;
+import io.vertx.ext.shell.command.impl.IndexableCommandResolver;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.system.impl.InternalCommandManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the command manager resolving a command line to a process and completing a command name among
+ * many registered commands, with indexed and scanned resolvers.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandManagerBenchmark {
+
+  @Param({"16", "1024"})
+  public int commands;
+
+  /**
+   * Whether the commands are provided by an indexed resolver, like the base commands, or by a plain resolver
+   * that is scanned on each lookup.
+   */
+  @Param({"true", "false"})
+  public boolean indexed;
+
+  private Vertx vertx;
+  private Session session;
+  private InternalCommandManager manager;
+  private String line;
+  private List<CliToken> prefix;
+
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    session = Session.create();
+    Context context = vertx.getOrCreateContext();
+    CompletableFuture<List<Command>> fut = new CompletableFuture<>();
+    context.runOnContext(v -> {
+      List<Command> list = new ArrayList<>();
+      for (int i = 0; i < commands; i++) {
+        list.add(CommandBuilder.command("command-" + i).processHandler(process -> process.end()).build(vertx));
+      }
+      fut.complete(list);
+    });
+    List<Command> list = fut.get(10, TimeUnit.SECONDS);
+    manager = new InternalCommandManager(indexed ? (IndexableCommandResolver) () -> list : (CommandResolver) () -> list);
+    line = "command-" + (commands - 1) + " --verbose -n 3 some/file";
+    prefix = CliToken.tokenize("command-" + (commands - 1) / 2);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close().await(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Process createProcess() {
+    return manager.createProcess(line);
+  }
+
+  @Benchmark
+  public void complete(Blackhole blackhole) {
+    manager.complete(new Completion() {
+      @Override
+      public Vertx vertx() {
+        return vertx;
+      }
+      @Override
+      public Session session() {
+        return session;
+      }
+      @Override
+      public String rawLine() {
+        return prefix.get(0).raw();
+      }
+      @Override
+      public List<CliToken> lineTokens() {
+        return prefix;
+      }
+      @Override
+      public void complete(List<String> candidates) {
+        blackhole.consume(candidates);
+      }
+      @Override
+      public void complete(String value, boolean terminal) {
+        blackhole.consume(value);
+      }
+    });
+  }
+}
@@ -0,0 +1,518 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.WebSocketClient;
+import io.vertx.core.http.WebSocketClientOptions;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.VertxInternal;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JksOptions;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetSocket;
+import io.vertx.ext.shell.ShellServer;
+import io.vertx.ext.shell.ShellServerOptions;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.command.CommandResolver;
+import io.vertx.ext.shell.impl.LatencyHistogram;
+import io.vertx.ext.shell.term.HttpTermOptions;
+import io.vertx.ext.shell.term.SSHTermOptions;
+import io.vertx.ext.shell.term.TelnetTermOptions;
+import io.vertx.ext.shell.term.TermServer;
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.channel.ChannelShell;
+import org.apache.sshd.client.keyverifier.AcceptAllServerKeyVerifier;
+import org.apache.sshd.client.session.ClientSession;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of concurrent interactive sessions against a local shell server, run with
+ * {@code mvn -Pbenchmarks test-compile exec:exec@load -Dload.args="transport=ssh clients=500"}.<p/>
+ *
+ * Each simulated client opens a session with the {@code telnet}, {@code ssh} or {@code http} (SockJS websocket)
+ * transport, then types the {@code load} command one keystroke at a time at the configured rate, waiting for the
+ * echo of each keystroke and for the prompt after the command output. The arguments are:
+ *
+ * <ul>
+ *   <li>{@code transport}: {@code telnet}, {@code ssh} or {@code http}, defaults to {@code telnet}</li>
+ *   <li>{@code clients}: the number of concurrent sessions, defaults to {@code 100}</li>
+ *   <li>{@code rate}: the keystrokes per second typed by each client, defaults to {@code 10}</li>
+ *   <li>{@code duration}: the duration of the test in seconds once the sessions are opened, defaults to {@code 30}</li>
+ *   <li>{@code output}: the number of bytes written by the {@code load} command, defaults to {@code 4096}</li>
+ * </ul>
+ *
+ * The report gives the rate at which the sessions were opened, the heap used per session, the keystroke echo
+ * and command round trip latency percentiles and the output throughput. Clients and server run in the same JVM,
+ * so the heap per session accounts for both sides of a session.
+ */
+public class LoadGenerator {
+
+  private static final String COMMAND = "load";
+  private static final String PROMPT = "% ";
+  private static final int PORT = 5000;
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> config = new HashMap<>();
+    for (String arg : args) {
+      int idx = arg.indexOf('=');
+      if (idx == -1) {
+        throw new IllegalArgumentException("Invalid argument " + arg + ", expected key=value");
+      }
+      config.put(arg.substring(0, idx), arg.substring(idx + 1));
+    }
+    LoadGenerator generator = new LoadGenerator(
+      config.getOrDefault("transport", "telnet"),
+      Integer.parseInt(config.getOrDefault("clients", "100")),
+      Double.parseDouble(config.getOrDefault("rate", "10")),
+      Integer.parseInt(config.getOrDefault("duration", "30")),
+      Integer.parseInt(config.getOrDefault("output", "4096")));
+    generator.run();
+  }
+
+  private final String transport;
+  private final int clients;
+  private final double rate;
+  private final int duration;
+  private final int output;
+
+  private final LatencyHistogram setup = new LatencyHistogram();
+  private final LatencyHistogram echo = new LatencyHistogram();
+  private final LatencyHistogram roundTrip = new LatencyHistogram();
+  private final LongAdder outputBytes = new LongAdder();
+  private final AtomicInteger failures = new AtomicInteger();
+  private volatile boolean running = true;
+
+  private VertxInternal clientVertx;
+  private NetClient netClient;
+  private WebSocketClient webSocketClient;
+  private SshClient sshClient;
+
+  public LoadGenerator(String transport, int clients, double rate, int duration, int output) {
+    this.transport = transport;
+    this.clients = clients;
+    this.rate = rate;
+    this.duration = duration;
+    this.output = output;
+  }
+
+  public void run() throws Exception {
+    Vertx vertx = Vertx.vertx();
+    ShellServer server = createServer(vertx);
+    server.listen().await(20, TimeUnit.SECONDS);
+    clientVertx = (VertxInternal) Vertx.vertx();
+    switch (transport) {
+      case "telnet":
+        netClient = clientVertx.createNetClient();
+        break;
+      case "http":
+        webSocketClient = clientVertx.createWebSocketClient(new WebSocketClientOptions().setMaxConnections(clients));
+        break;
+      case "ssh":
+        sshClient = SshClient.setUpDefaultClient();
+        sshClient.setServerKeyVerifier(AcceptAllServerKeyVerifier.INSTANCE);
+        sshClient.start();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown transport " + transport);
+    }
+    try {
+      long heapBefore = usedHeap();
+      CountDownLatch opened = new CountDownLatch(clients);
+      List<Client> list = new ArrayList<>();
+      long start = System.nanoTime();
+      for (int i = 0; i < clients; i++) {
+        Client client = new Client(opened);
+        list.add(client);
+        client.context.runOnContext(v -> client.connect());
+      }
+      if (!opened.await(Math.max(60, clients / 10), TimeUnit.SECONDS)) {
+        System.out.println("Timed out while opening the sessions");
+      }
+      double openDuration = (System.nanoTime() - start) / 1e9;
+      long heapPerSession = (usedHeap() - heapBefore) / clients;
+      System.out.format("transport=%s clients=%d rate=%.1f/s duration=%ds output=%dB%n", transport, clients, rate, duration, output);
+      System.out.format("sessions: %d opened, %d failed, %.1f sessions/s, setup %s%n", setup.count(), failures.get(), setup.count() / openDuration, percentiles(setup));
+      System.out.format("heap: %d bytes per session%n", heapPerSession);
+      long bytesBefore = outputBytes.sum();
+      long commandsBefore = roundTrip.count();
+      Thread.sleep(duration * 1000L);
+      long bytes = outputBytes.sum() - bytesBefore;
+      long commands = roundTrip.count() - commandsBefore;
+      running = false;
+      System.out.format("keystroke echo: %d keystrokes, %s%n", echo.count(), percentiles(echo));
+      System.out.format("command round trip: %d commands, %.1f commands/s, %s%n", roundTrip.count(), commands / (double) duration, percentiles(roundTrip));
+      System.out.format("output: %.1f KB/s%n", bytes / 1024d / duration);
+      list.forEach(Client::close);
+    } finally {
+      if (sshClient != null) {
+        sshClient.stop();
+      }
+      clientVertx.close().await(20, TimeUnit.SECONDS);
+      server.close().await(20, TimeUnit.SECONDS);
+      vertx.close().await(20, TimeUnit.SECONDS);
+    }
+  }
+
+  private ShellServer createServer(Vertx vertx) {
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() < output) {
+      sb.append(new String(new char[Math.min(63, output - sb.length())]).replace('\0', 'x')).append('\n');
+    }
+    String chunk = sb.toString();
+    Command command = CommandBuilder.command(COMMAND).processHandler(process -> {
+      process.write(chunk);
+      process.end();
+    }).build(vertx);
+    ShellServer server = ShellServer.create(vertx, new ShellServerOptions().setWelcomeMessage(""));
+    server.registerCommandResolver((CommandResolver) () -> Collections.singletonList(command));
+    switch (transport) {
+      case "telnet":
+        server.registerTermServer(TermServer.createTelnetTermServer(vertx, new TelnetTermOptions().setHost("localhost").setPort(PORT)));
+        break;
+      case "ssh":
+        server.registerTermServer(TermServer.createSSHTermServer(vertx, new SSHTermOptions()
+          .setUseEventLoopGroup(true)
+          .setHost("localhost")
+          .setPort(PORT)
+          .setKeyPairOptions(new JksOptions().setPath("src/test/resources/server-keystore.jks").setPassword("wibble"))
+          .setAuthOptions(new JsonObject()
+            .put("provider", "properties")
+            .put("config", new JsonObject().put("file", "test-auth.properties")))));
+        break;
+      case "http":
+        server.registerTermServer(TermServer.createHttpTermServer(vertx, new HttpTermOptions().setHost("localhost").setPort(PORT)));
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown transport " + transport);
+    }
+    return server;
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static String percentiles(LatencyHistogram histogram) {
+    return String.format("p50=%.3fms p99=%.3fms p999=%.3fms",
+      histogram.valueAtPercentile(50) / 1000d,
+      histogram.valueAtPercentile(99) / 1000d,
+      histogram.valueAtPercentile(99.9) / 1000d);
+  }
+
+  /**
+   * The client side of a session.
+   */
+  private interface Connection {
+
+    void send(String text);
+
+    void close();
+
+  }
+
+  /**
+   * A simulated user, all its state is accessed from its own event loop context.
+   */
+  private class Client {
+
+    private final ContextInternal context;
+    private final CountDownLatch opened;
+    private final long interval;
+    private Connection connection;
+    private long connectTime;
+    private boolean prompted;
+    private int typed;
+    private long sentTime;
+    private boolean awaitingEcho;
+    private boolean awaitingPrompt;
+    private byte last;
+    private byte beforeLast;
+
+    Client(CountDownLatch opened) {
+      this.context = clientVertx.createEventLoopContext(clientVertx.nettyEventLoopGroup().next(), null, Thread.currentThread().getContextClassLoader());
+      this.opened = opened;
+      this.interval = Math.max(1, Math.round(1000 / rate));
+    }
+
+    void connect() {
+      connectTime = System.nanoTime();
+      switch (transport) {
+        case "telnet":
+          netClient.connect(PORT, "localhost").onComplete(ar -> {
+            if (ar.succeeded()) {
+              connection = new TelnetConnection(ar.result(), this::handle);
+            } else {
+              failed();
+            }
+          });
+          break;
+        case "http":
+          webSocketClient.connect(PORT, "localhost", "/shell/websocket").onComplete(ar -> {
+            if (ar.succeeded()) {
+              ar.result().handler(this::handle);
+              connection = new Connection() {
+                @Override
+                public void send(String text) {
+                  ar.result().writeFinalTextFrame(new JsonObject().put("action", "read").put("data", text).encode());
+                }
+                @Override
+                public void close() {
+                  ar.result().close();
+                }
+              };
+            } else {
+              failed();
+            }
+          });
+          break;
+        case "ssh":
+          context.executeBlocking(() -> {
+            ClientSession session = sshClient.connect("paulo", "localhost", PORT).verify(20_000).getSession();
+            session.addPasswordIdentity("secret");
+            session.auth().verify(20_000);
+            ChannelShell channel = session.createShellChannel();
+            OutputStream out = new OutputStream() {
+              @Override
+              public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+              }
+              @Override
+              public void write(byte[] b, int off, int len) {
+                Buffer data = Buffer.buffer(len).appendBytes(b, off, len);
+                context.runOnContext(v -> handle(data));
+              }
+            };
+            channel.setOut(out);
+            channel.setErr(out);
+            channel.open().verify(20_000);
+            return channel;
+          }).onComplete(ar -> {
+            if (ar.succeeded()) {
+              ChannelShell channel = ar.result();
+              connection = new Connection() {
+                @Override
+                public void send(String text) {
+                  try {
+                    channel.getInvertedIn().write(text.getBytes(StandardCharsets.UTF_8));
+                    channel.getInvertedIn().flush();
+                  } catch (Exception e) {
+                    failures.incrementAndGet();
+                  }
+                }
+                @Override
+                public void close() {
+                  channel.getSession().close(true);
+                }
+              };
+              if (prompted) {
+                // The prompt arrived before the connection completed
+                next();
+              }
+            } else {
+              failed();
+            }
+          });
+          break;
+      }
+    }
+
+    private void failed() {
+      failures.incrementAndGet();
+      opened.countDown();
+    }
+
+    void handle(Buffer data) {
+      int len = data.length();
+      if (len == 0) {
+        return;
+      }
+      beforeLast = len > 1 ? data.getByte(len - 2) : last;
+      last = data.getByte(len - 1);
+      long now = System.nanoTime();
+      if (!prompted) {
+        if (isPrompt()) {
+          prompted = true;
+          setup.record((now - connectTime) / 1000);
+          opened.countDown();
+          if (connection != null) {
+            next();
+          }
+        }
+      } else if (awaitingEcho) {
+        awaitingEcho = false;
+        echo.record((now - sentTime) / 1000);
+        next();
+      } else if (awaitingPrompt) {
+        outputBytes.add(len);
+        if (isPrompt()) {
+          awaitingPrompt = false;
+          roundTrip.record((now - sentTime) / 1000);
+          next();
+        }
+      }
+    }
+
+    private boolean isPrompt() {
+      return beforeLast == PROMPT.charAt(0) && last == PROMPT.charAt(1);
+    }
+
+    /**
+     * Type the next keystroke after the configured interval.
+     */
+    private void next() {
+      if (!running) {
+        return;
+      }
+      clientVertx.setTimer(interval, id -> {
+        if (!running) {
+          return;
+        }
+        String keystroke;
+        if (typed < COMMAND.length()) {
+          keystroke = String.valueOf(COMMAND.charAt(typed++));
+          awaitingEcho = true;
+        } else {
+          typed = 0;
+          keystroke = "\r";
+          awaitingPrompt = true;
+        }
+        sentTime = System.nanoTime();
+        connection.send(keystroke);
+      });
+    }
+
+    void close() {
+      if (connection != null) {
+        context.runOnContext(v -> connection.close());
+      }
+    }
+  }
+
+  /**
+   * A minimal Telnet client connection: it accepts the options the server will perform, refuses the options the
+   * server asks the client to perform and strips the protocol commands from the data.
+   */
+  private static class TelnetConnection implements Connection {
+
+    private static final int IAC = 255, DONT = 254, DO = 253, WONT = 252, WILL = 251, SB = 250, SE = 240;
+    private static final int DATA = 0, COMMAND = 1, OPTION = 2, SUBNEGOTIATION = 3, SUBNEGOTIATION_IAC = 4;
+
+    private final NetSocket socket;
+    private final Handler<Buffer> handler;
+    private int state = DATA;
+    private int command;
+
+    TelnetConnection(NetSocket socket, Handler<Buffer> handler) {
+      this.socket = socket;
+      this.handler = handler;
+      socket.handler(this::receive);
+    }
+
+    private void receive(Buffer buffer) {
+      Buffer data = Buffer.buffer(buffer.length());
+      for (int i = 0; i < buffer.length(); i++) {
+        int b = buffer.getUnsignedByte(i);
+        switch (state) {
+          case DATA:
+            if (b == IAC) {
+              state = COMMAND;
+            } else {
+              data.appendByte((byte) b);
+            }
+            break;
+          case COMMAND:
+            if (b == IAC) {
+              data.appendByte((byte) b);
+              state = DATA;
+            } else if (b == DO || b == DONT || b == WILL || b == WONT) {
+              command = b;
+              state = OPTION;
+            } else if (b == SB) {
+              state = SUBNEGOTIATION;
+            } else {
+              state = DATA;
+            }
+            break;
+          case OPTION:
+            if (command == WILL) {
+              socket.write(Buffer.buffer(new byte[]{(byte) IAC, (byte) DO, (byte) b}));
+            } else if (command == DO) {
+              socket.write(Buffer.buffer(new byte[]{(byte) IAC, (byte) WONT, (byte) b}));
+            }
+            state = DATA;
+            break;
+          case SUBNEGOTIATION:
+            if (b == IAC) {
+              state = SUBNEGOTIATION_IAC;
+            }
+            break;
+          case SUBNEGOTIATION_IAC:
+            state = b == SE ? DATA : SUBNEGOTIATION;
+            break;
+        }
+      }
+      handler.handle(data);
+    }
+
+    @Override
+    public void send(String text) {
+      socket.write(text);
+    }
+
+    @Override
+    public void close() {
+      socket.close();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Pty;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the number of frames written to the terminal when a process writes many small chunks.<p/>
+ *
+ * The {@code unbatched} benchmark disables output coalescing and reproduces one terminal write per
+ * process write, the {@code coalesced} benchmark uses the default batching.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProcessOutputBenchmark {
+
+  private static final String LINE = "drwxr-xr-x  2 vertx vertx  4096 Jan  1 00:00 some-directory\n";
+
+  /**
+   * Frames and bytes written to the terminal, reported per second next to the process throughput.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Frames {
+
+    public long frames;
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      frames = 0;
+      bytes = 0;
+    }
+  }
+
+  @Param({"1", "64", "1024"})
+  public int writes;
+
+  private Vertx vertx;
+  private Context context;
+  private Command command;
+  private final AtomicLong frames = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    context = vertx.getOrCreateContext();
+    CompletableFuture<Command> fut = new CompletableFuture<>();
+    context.runOnContext(v -> {
+      fut.complete(CommandBuilder.command("out").processHandler(process -> {
+        for (int i = 0; i < writes; i++) {
+          process.write(LINE);
+        }
+        process.end();
+      }).build(vertx));
+    });
+    command = fut.get(10, TimeUnit.SECONDS);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close().await(10, TimeUnit.SECONDS);
+  }
+
+  private void runProcess(Frames counters) throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    context.runOnContext(v -> {
+      Pty pty = Pty.create();
+      pty.stdoutHandler(data -> {
+        frames.incrementAndGet();
+        bytes.addAndGet(data.length());
+      });
+      Process process = command.createProcess().setSession(Session.create()).setTty(pty.slave());
+      process.terminatedHandler(code -> latch.countDown());
+      process.run();
+    });
+    latch.await();
+    counters.frames += frames.getAndSet(0);
+    counters.bytes += bytes.getAndSet(0);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Dvertx.shell.output.maxBatchSize=0")
+  public void unbatched(Frames counters) throws InterruptedException {
+    runProcess(counters);
+  }
+
+  @Benchmark
+  public void coalesced(Frames counters) throws InterruptedException {
+    runProcess(counters);
+  }
+}
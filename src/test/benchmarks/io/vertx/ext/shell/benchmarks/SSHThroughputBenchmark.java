@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.benchmarks;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.Session;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JksOptions;
+import io.vertx.ext.shell.term.SSHTermOptions;
+import io.vertx.ext.shell.term.TermServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of concurrent SSH sessions: each benchmark thread owns an SSH session and asks the server for a
+ * chunk of output that it reads entirely.<p/>
+ *
+ * Compare {@code useEventLoopGroup=false}, where every session shares the event loop of the server, with
+ * {@code useEventLoopGroup=true} and vary the number of concurrent sessions with the JMH {@code -t} option, e.g
+ * {@code -Djmh.args="SSHThroughputBenchmark -t 16"}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SSHThroughputBenchmark {
+
+  private static final int PORT = 5000;
+
+  @Param({"false", "true"})
+  public boolean useEventLoopGroup;
+
+  @Param({"16384"})
+  public int chunkSize;
+
+  private Vertx vertx;
+  private TermServer server;
+
+  /**
+   * Bytes received by the client, reported per second next to the request throughput.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Received {
+
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+    }
+  }
+
+  /**
+   * The SSH session of a benchmark thread.
+   */
+  @State(Scope.Thread)
+  public static class Client {
+
+    private Session session;
+    private Channel channel;
+    private InputStream in;
+    private OutputStream out;
+    private byte[] buffer;
+
+    @Setup
+    public void setup(SSHThroughputBenchmark benchmark) throws Exception {
+      session = new JSch().getSession("paulo", "localhost", PORT);
+      session.setPassword("secret");
+      session.setConfig("StrictHostKeyChecking", "no");
+      session.connect();
+      channel = session.openChannel("shell");
+      in = channel.getInputStream();
+      out = channel.getOutputStream();
+      channel.connect();
+      buffer = new byte[benchmark.chunkSize];
+    }
+
+    @TearDown
+    public void tearDown() {
+      channel.disconnect();
+      session.disconnect();
+    }
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    vertx = Vertx.vertx();
+    String chunk = new String(new char[chunkSize]).replace('\0', 'x');
+    server = TermServer.createSSHTermServer(vertx, new SSHTermOptions()
+      .setUseEventLoopGroup(useEventLoopGroup)
+      .setPort(PORT)
+      .setHost("localhost")
+      .setKeyPairOptions(new JksOptions().setPath("src/test/resources/server-keystore.jks").setPassword("wibble"))
+      .setAuthOptions(new JsonObject()
+        .put("provider", "properties")
+        .put("config", new JsonObject().put("file", "test-auth.properties"))));
+    server.termHandler(term -> term.stdinHandler(data -> {
+      for (int i = 0; i < data.length(); i++) {
+        term.write(chunk);
+      }
+    }));
+    server.listen().await(20, TimeUnit.SECONDS);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    server.close().await(20, TimeUnit.SECONDS);
+    vertx.close().await(20, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public void output(Client client, Received received) throws IOException {
+    client.out.write('x');
+    client.out.flush();
+    int remaining = chunkSize;
+    while (remaining > 0) {
+      int len = client.in.read(client.buffer, 0, remaining);
+      if (len == -1) {
+        throw new EOFException();
+      }
+      remaining -= len;
+    }
+    received.bytes += chunkSize;
+  }
+}
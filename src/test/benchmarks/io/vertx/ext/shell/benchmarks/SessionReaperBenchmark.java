@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.vertx.ext.shell.impl.SessionTimeoutWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one reaper tick over a large number of sessions that are all active.<p/>
+ *
+ * The {@code scan} benchmark reproduces the previous reaper that reads the last accessed time of every session,
+ * the {@code wheel} benchmark only visits the sessions whose deadline is due and reschedules them.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionReaperBenchmark {
+
+  private static final long TICK = 1000;
+  private static final long TIMEOUT = 30 * 60 * 1000;
+
+  /**
+   * A session whose activity is spread over the timeout so that none of them ever expires.
+   */
+  public class FakeSession {
+
+    final long offset;
+
+    FakeSession(long offset) {
+      this.offset = offset;
+    }
+
+    long lastAccessedTime() {
+      return now - offset;
+    }
+  }
+
+  @Param({"100000"})
+  public int sessions;
+
+  private long now;
+  private List<FakeSession> all;
+  private SessionTimeoutWheel<FakeSession> wheel;
+
+  @Setup
+  public void setup() {
+    now = TIMEOUT;
+    all = new ArrayList<>(sessions);
+    wheel = new SessionTimeoutWheel<>(TICK, TIMEOUT, FakeSession::lastAccessedTime);
+    for (int i = 0; i < sessions; i++) {
+      FakeSession session = new FakeSession((i * 7919L) % (TIMEOUT / 2));
+      all.add(session);
+      wheel.add(session);
+    }
+  }
+
+  @Benchmark
+  public void scan(Blackhole bh) {
+    now += TICK;
+    Set<FakeSession> toClose = new HashSet<>();
+    for (FakeSession session : all) {
+      if (now - session.lastAccessedTime() > TIMEOUT) {
+        toClose.add(session);
+      }
+    }
+    bh.consume(toClose);
+  }
+
+  @Benchmark
+  public void wheel(Blackhole bh) {
+    now += TICK;
+    bh.consume(wheel.expire(now));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.shell.support.TestTtyConnection;
+import io.vertx.ext.shell.term.impl.TermImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures the echo of a printable keystroke, the common case when a user types, and of a line mixing
+ * printable and control characters.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TermEchoBenchmark {
+
+  private static final int[] KEYSTROKE = {'a'};
+  private static final int[] LINE = "ls -l\t/var/lo\bg\u007F€\r".codePoints().toArray();
+
+  private Vertx vertx;
+  private TermImpl term;
+  private long written;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    Consumer<int[]> out = codePoints -> written += codePoints.length;
+    term = new TermImpl(vertx, new TestTtyConnection(vertx) {
+      @Override
+      public Consumer<int[]> stdoutHandler() {
+        return out;
+      }
+    });
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    vertx.close().await(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public long keystroke() {
+    term.echo(KEYSTROKE);
+    return written;
+  }
+
+  @Benchmark
+  public long line() {
+    term.echo(LINE);
+    return written;
+  }
+}
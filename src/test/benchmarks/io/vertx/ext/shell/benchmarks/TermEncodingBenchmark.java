@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.benchmarks;
+
+import io.termd.core.http.HttpTtyConnection;
+import io.termd.core.telnet.TelnetConnection;
+import io.termd.core.telnet.TelnetTtyConnection;
+import io.termd.core.util.Vector;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.term.impl.Helper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures the encoding of the terminal output to the bytes sent by the Telnet and SockJS transports.<p/>
+ *
+ * The {@code telnet} and {@code sockjs} benchmarks encode code points with the termd connections, the
+ * {@code telnetBytes} and {@code sockjsBytes} benchmarks encode bytes written directly to the transport.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TermEncodingBenchmark {
+
+  private static final String LINE = "drwxr-xr-x  2 vertx vertx  4096 Jan  1 00:00 répertoire-€\n";
+
+  @Param({"1", "64"})
+  public int lines;
+
+  private int[] codePoints;
+  private Buffer bytes;
+  private Consumer<int[]> telnet;
+  private Consumer<int[]> sockjs;
+  private long sent;
+
+  @Setup
+  public void setup() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < lines; i++) {
+      sb.append(LINE);
+    }
+    codePoints = sb.codePoints().toArray();
+    bytes = Buffer.buffer(sb.toString());
+    TelnetTtyConnection telnetConn = new TelnetTtyConnection(true, true, StandardCharsets.UTF_8, conn -> {});
+    TelnetConnection conn = new TelnetConnection(telnetConn) {
+      @Override
+      protected void execute(Runnable task) {
+        task.run();
+      }
+      @Override
+      protected void schedule(Runnable task, long delay, TimeUnit unit) {
+      }
+      @Override
+      protected void send(byte[] data) {
+        sent += data.length;
+      }
+      @Override
+      public void close() {
+      }
+    };
+    conn.onInit();
+    // The client accepts the binary output
+    conn.receive(new byte[]{(byte) 255, (byte) 253, 0});
+    telnet = telnetConn.stdoutHandler();
+    sockjs = new HttpTtyConnection(StandardCharsets.UTF_8, new Vector(80, 24)) {
+      @Override
+      protected void write(byte[] buffer) {
+        sent += buffer.length;
+      }
+      @Override
+      public void close() {
+      }
+      @Override
+      public void execute(Runnable task) {
+        task.run();
+      }
+      @Override
+      public void schedule(Runnable task, long delay, TimeUnit unit) {
+      }
+    }.stdoutHandler();
+  }
+
+  @Benchmark
+  public long telnet() {
+    telnet.accept(codePoints);
+    return sent;
+  }
+
+  @Benchmark
+  public long sockjs() {
+    sockjs.accept(codePoints);
+    return sent;
+  }
+
+  @Benchmark
+  public Buffer telnetBytes() {
+    return Helper.encodeOutput(bytes, true);
+  }
+
+  @Benchmark
+  public Buffer sockjsBytes() {
+    return Helper.encodeOutput(bytes, false);
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.command.CommandProcess;
+import io.vertx.ext.shell.command.base.BaseCommandPack;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.support.TestCommands;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.system.impl.InternalCommandManager;
+import io.vertx.ext.shell.term.Pty;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(VertxUnitRunner.class)
+public class PipelineTest {
+
+  Vertx vertx;
+  TestCommands commands;
+  InternalCommandManager manager;
+
+  @Before
+  public void before() {
+    vertx = Vertx.vertx();
+    commands = new TestCommands(vertx);
+    manager = new InternalCommandManager(commands, new BaseCommandPack(vertx));
+  }
+
+  @After
+  public void after(TestContext context) {
+    vertx.close()
+      .onComplete(context.asyncAssertSuccess());
+  }
+
+  private void run(String line, TestContext context, int expectedExitCode, String expectedOutput) {
+    Async async = context.async();
+    StringBuffer out = new StringBuffer();
+    Pty pty = Pty.create();
+    pty.stdoutHandler(out::append);
+    Process process = manager.createProcess(line);
+    process.setSession(Session.create()).setTty(pty.slave());
+    process.terminatedHandler(code -> {
+      context.assertEquals(expectedExitCode, code);
+      context.assertEquals(expectedOutput, out.toString());
+      async.complete();
+    });
+    process.run();
+  }
+
+  @Test
+  public void testFilters(TestContext context) {
+    byte[] euro = "€".getBytes(StandardCharsets.UTF_8);
+    commands.add(CommandBuilder.command("lines").processHandler(process -> {
+      process.write("pear\nap");
+      // Split a multi-byte character between two chunks
+      process.write(Buffer.buffer().appendString("ple\n").appendBytes(euro, 0, 1));
+      process.write(Buffer.buffer().appendBytes(euro, 1, 2).appendString("pineapple\nbanana"));
+      process.end();
+    }));
+    run("lines | grep apple | sort", context, 0, "apple\n€pineapple\n");
+    run("lines | grep -v apple | sort -r", context, 0, "pear\nbanana\n");
+    run("lines | count", context, 0, "4\n");
+    run("lines | head -n 2", context, 0, "pear\napple\n");
+    run("lines | grep cherry", context, 1, "");
+    run("lines | grep 'pine|ban' | count", context, 0, "2\n");
+  }
+
+  @Test
+  public void testQuotedPipe(TestContext context) {
+    run("echo 'a|b' \\| c", context, 0, "a|b | c\n");
+  }
+
+  @Test
+  public void testSyntaxError(TestContext context) {
+    try {
+      manager.createProcess("echo a | | count");
+      context.fail();
+    } catch (Exception ignore) {
+    }
+  }
+
+  @Test
+  public void testHeadTerminatesPreviousStages(TestContext context) {
+    Async terminated = context.async();
+    commands.add(CommandBuilder.command("yes").processHandler(process -> {
+      process.endHandler(v -> terminated.complete());
+      writeLines(process, Long.MAX_VALUE, null);
+    }));
+    run("yes | head -n 3", context, 0, "y\ny\ny\n");
+  }
+
+  @Test
+  public void testFlowControl(TestContext context) {
+    long lines = 100_000;
+    AtomicBoolean full = new AtomicBoolean();
+    commands.add(CommandBuilder.command("produce").processHandler(process -> writeLines(process, lines, full)));
+    commands.add(CommandBuilder.command("slow").processHandler(process -> {
+      AtomicLong received = new AtomicLong();
+      // Do not read the pipe until the producer is blocked
+      process.pauseStdin();
+      process.stdinBufferHandler(data -> received.addAndGet(data.length()));
+      process.stdinEndHandler(v -> {
+        process.write(received.get() + "\n");
+        process.end();
+      });
+      vertx.setTimer(500, id -> process.resumeStdin());
+    }));
+    Async async = context.async();
+    run("produce | slow", context, 0, (lines * 2) + "\n");
+    vertx.setPeriodic(10, id -> {
+      if (full.get()) {
+        vertx.cancelTimer(id);
+        async.complete();
+      }
+    });
+  }
+
+  @Test
+  public void testSortFlowControl(TestContext context) {
+    long lines = 100_000;
+    commands.add(CommandBuilder.command("produce").processHandler(process -> writeLines(process, lines, null)));
+    commands.add(CommandBuilder.command("slow").processHandler(process -> {
+      AtomicLong received = new AtomicLong();
+      // Do not read the pipe until the sorted lines fill it
+      process.pauseStdin();
+      process.stdinBufferHandler(data -> received.addAndGet(data.length()));
+      process.stdinEndHandler(v -> {
+        process.write(received.get() + "\n");
+        process.end();
+      });
+      vertx.setTimer(500, id -> process.resumeStdin());
+    }));
+    run("produce | sort | slow", context, 0, (lines * 2) + "\n");
+  }
+
+  @Test
+  public void testInterrupt(TestContext context) {
+    commands.add(CommandBuilder.command("feed").processHandler(process -> process.write("pear\napple\n")));
+    for (String filter : Arrays.asList("sort", "count")) {
+      Async async = context.async();
+      StringBuffer out = new StringBuffer();
+      Pty pty = Pty.create();
+      pty.stdoutHandler(out::append);
+      Process process = manager.createProcess("feed | " + filter);
+      process.setSession(Session.create()).setTty(pty.slave());
+      process.terminatedHandler(code -> {
+        // The filter does not print a result for an input that did not end
+        context.assertEquals("", out.toString());
+        async.complete();
+      });
+      process.run();
+      vertx.setTimer(100, id -> process.interrupt());
+      async.awaitSuccess(10000);
+    }
+  }
+
+  /**
+   * Write lines to the process output, respecting its write queue.
+   */
+  private static void writeLines(CommandProcess process, long count, AtomicBoolean full) {
+    AtomicLong remaining = new AtomicLong(count);
+    Runnable[] writer = new Runnable[1];
+    writer[0] = () -> {
+      while (remaining.get() > 0) {
+        if (process.writeQueueFull()) {
+          if (full != null) {
+            full.set(true);
+          }
+          process.drainHandler(v -> writer[0].run());
+          return;
+        }
+        remaining.decrementAndGet();
+        try {
+          process.write("y\n");
+        } catch (IllegalStateException e) {
+          // Terminated
+          return;
+        }
+      }
+      process.end();
+    };
+    writer[0].run();
+  }
+}
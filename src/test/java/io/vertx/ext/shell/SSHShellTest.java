@@ -33,8 +33,10 @@
 package io.vertx.ext.shell;
 
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.shell.command.CommandBuilder;
 import io.vertx.ext.shell.command.CommandRegistry;
+import io.vertx.ext.shell.impl.ShellMetricsImpl;
 import io.vertx.ext.shell.term.SSHTermOptions;
 import io.vertx.ext.unit.TestContext;
 import org.junit.After;
@@ -101,5 +103,8 @@ public class SSHShellTest extends SSHTestBase {
     }).build(vertx));
     super.testExec(context);
     assertEquals(execCommand.get(), vertx);
+    // The output of the command is reported to the metrics
+    JsonObject metrics = vertx.eventBus().<JsonObject>request(ShellMetricsImpl.ADDRESS, null).await(20, TimeUnit.SECONDS).body();
+    assertEquals(10L, (long) metrics.getJsonObject("bytesWritten").getLong("ssh", 0L));
   }
 }
@@ -35,12 +35,16 @@ package io.vertx.ext.shell;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Context;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.shell.cli.CliToken;
 import io.vertx.ext.shell.command.CommandBuilder;
 import io.vertx.ext.shell.command.CommandProcessTest;
 import io.vertx.ext.shell.command.CommandResolver;
+import io.vertx.ext.shell.impl.ShellMetricsImpl;
 import io.vertx.ext.shell.session.impl.SessionImpl;
 import io.vertx.ext.shell.support.TestCommands;
+import io.vertx.ext.shell.support.TestTermServer;
+import io.vertx.ext.shell.support.TestTtyConnection;
 import io.vertx.ext.shell.term.Pty;
 import io.vertx.ext.shell.session.Session;
 import io.vertx.ext.shell.system.Job;
@@ -52,6 +56,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.concurrent.CountDownLatch;
@@ -98,6 +103,92 @@ public class ShellServerTest {
     })).run();
   }
 
+  @Test
+  public void testSessionsOfAllServers(TestContext context) throws Exception {
+    TestTermServer termServer1 = new TestTermServer(vertx);
+    TestTermServer termServer2 = new TestTermServer(vertx);
+    ShellServer server1 = ShellServer.create(vertx).registerTermServer(termServer1);
+    ShellServer server2 = ShellServer.create(vertx).registerTermServer(termServer2);
+    server1.listen().await(20, TimeUnit.SECONDS);
+    server2.listen().await(20, TimeUnit.SECONDS);
+    termServer1.openConnection();
+    termServer2.openConnection();
+    Shell shell = server.createShell();
+    Job job = shell.createJob("sessions");
+    Async async = context.async();
+    Pty pty = Pty.create();
+    StringBuffer out = new StringBuffer();
+    pty.stdoutHandler(out::append);
+    job.setTty(pty.slave()).statusUpdateHandler(CommandProcessTest.terminateHandler(code -> {
+      String[] lines = out.toString().split("\n");
+      context.assertEquals(2, lines.length);
+      context.assertTrue(lines[0].contains(" instance "));
+      context.assertNotEquals(lines[0].substring(lines[0].indexOf(" instance ")), lines[1].substring(lines[1].indexOf(" instance ")));
+      async.complete();
+    })).run();
+    async.awaitSuccess(20000);
+    server1.close().await(20, TimeUnit.SECONDS);
+    server2.close().await(20, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testCloseTerminatesDetachedJobs(TestContext context) throws Exception {
+    File file = File.createTempFile("detached", ".txt", new File("target"));
+    file.deleteOnExit();
+    CountDownLatch started = new CountDownLatch(1);
+    Async terminated = context.async();
+    commands.add(CommandBuilder.command("forever").processHandler(process -> {
+      process.endHandler(v -> terminated.complete());
+      started.countDown();
+    }));
+    TestTermServer termServer = new TestTermServer(vertx);
+    ShellServer server = ShellServer.create(vertx).registerCommandResolver(commands).registerTermServer(termServer);
+    server.listen().await(20, TimeUnit.SECONDS);
+    TestTtyConnection conn = termServer.openConnection();
+    conn.read("forever > target/" + file.getName() + " &\r");
+    context.assertTrue(started.await(20, TimeUnit.SECONDS));
+    conn.close();
+    context.assertTrue(conn.getCloseLatch().await(20, TimeUnit.SECONDS));
+    // The job outlives its session until the server closes
+    Thread.sleep(100);
+    context.assertFalse(terminated.isCompleted());
+    server.close().await(20, TimeUnit.SECONDS);
+    terminated.awaitSuccess(20000);
+  }
+
+  @Test
+  public void testMetrics(TestContext context) throws Exception {
+    Async ended = context.async();
+    commands.add(CommandBuilder.command("foo").processHandler(process -> {
+      process.write("hello");
+      process.end(3);
+      ended.complete();
+    }));
+    TestTermServer termServer = new TestTermServer(vertx);
+    ShellServer shellServer = ShellServer.create(vertx)
+      .registerTermServer(termServer)
+      .registerCommandResolver(commands);
+    shellServer.listen().await(20, TimeUnit.SECONDS);
+    TestTtyConnection conn = termServer.openConnection();
+    conn.read("foo\r");
+    ended.awaitSuccess(20000);
+    JsonObject metrics;
+    long now = System.currentTimeMillis();
+    while (true) {
+      metrics = vertx.eventBus().<JsonObject>request(ShellMetricsImpl.ADDRESS, null).await(20, TimeUnit.SECONDS).body();
+      // The job terminates and the output is flushed after the process ends
+      if (metrics.getJsonObject("jobs").getLong("running") == 0L && metrics.getJsonObject("bytesWritten").getLong("TestTermServer", 0L) >= 5) {
+        break;
+      }
+      context.assertTrue(System.currentTimeMillis() - now < 20000);
+      Thread.sleep(10);
+    }
+    context.assertEquals(1L, metrics.getJsonObject("sessions").getJsonObject("TestTermServer").getLong("open"));
+    context.assertEquals(1L, metrics.getJsonObject("commands").getJsonObject("foo").getLong("count"));
+    context.assertEquals(1L, metrics.getJsonObject("commands").getJsonObject("foo").getLong("failures"));
+    context.assertEquals(1L, metrics.getJsonObject("jobs").getLong("total"));
+  }
+
   @Test
   public void testThrowExceptionInProcess(TestContext context) {
     commands.add(CommandBuilder.command("foo").processHandler(process -> {
@@ -49,6 +49,7 @@ import io.vertx.ext.shell.system.ExecStatus;
 import io.vertx.ext.shell.system.Job;
 import io.vertx.ext.shell.system.impl.InternalCommandManager;
 import io.vertx.ext.shell.system.impl.JobImpl;
+import io.vertx.ext.shell.term.Pty;
 import io.vertx.ext.shell.term.impl.TermImpl;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
@@ -58,6 +59,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
@@ -65,6 +69,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -90,7 +95,7 @@ public class ShellTest {
   }
 
   private ShellImpl createShell(TestTtyConnection conn) {
-    return new ShellImpl(new TermImpl(vertx, conn), new InternalCommandManager(commands));
+    return new ShellImpl(vertx, new TermImpl(vertx, conn), new InternalCommandManager(commands));
   }
 
   @Test
@@ -523,6 +528,41 @@ public class ShellTest {
     conn.read("bar\r");
   }
 
+  @Test
+  public void testCurrentJobIsMostRecentlyStopped(TestContext context) throws Exception {
+    Async fooRunning = context.async();
+    Async fooSusp = context.async();
+    Async barRunning = context.async();
+    Async barSusp = context.async();
+    Async barResumed = context.async();
+    commands.add(CommandBuilder.command("foo").processHandler(process -> {
+      process.suspendHandler(v -> fooSusp.complete());
+      process.resumeHandler(v -> context.fail());
+      fooRunning.complete();
+    }));
+    commands.add(CommandBuilder.command("bar").processHandler(process -> {
+      process.suspendHandler(v -> barSusp.complete());
+      process.resumeHandler(v -> barResumed.complete());
+      barRunning.complete();
+    }));
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    ShellImpl shell = createShell(conn);
+    shell.init().readline();
+    conn.read("foo\r");
+    fooRunning.awaitSuccess(2000);
+    conn.sendEvent(TtyEvent.SUSP);
+    fooSusp.awaitSuccess(2000);
+    conn.read("bar\r");
+    barRunning.awaitSuccess(2000);
+    conn.sendEvent(TtyEvent.SUSP);
+    barSusp.awaitSuccess(2000);
+    context.assertEquals(2, shell.jobController().jobs().size());
+    context.assertEquals(Arrays.asList(1, 2), shell.jobController().jobs().stream().map(Job::id).collect(Collectors.toList()));
+    conn.read("fg\r");
+    barResumed.awaitSuccess(2000);
+    context.assertEquals(shell.jobController().getJob(2), shell.jobController().foregroundJob());
+  }
+
   @Test
   public void testSetStdinOnResumeToForeground(TestContext context) throws Exception {
     Async fooRunning = context.async();
@@ -618,4 +658,146 @@ public class ShellTest {
     conn.read("exit\r");
     conn.getCloseLatch().await(2, TimeUnit.SECONDS);
   }
+
+  @Test
+  public void testOutputRedirection(TestContext context) throws Exception {
+    File file = File.createTempFile("vertx-shell", ".txt", new File("target"));
+    file.deleteOnExit();
+    commands.add(CommandBuilder.command("lines").processHandler(process -> {
+      process.write("first\n").write("second\n");
+      process.end();
+    }));
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    ShellImpl shell = createShell(conn);
+    shell.init().readline();
+    conn.read("lines > " + file.getAbsolutePath() + "\r");
+    waitForContent(context, file, "first\nsecond\n");
+    conn.read("lines >> " + file.getAbsolutePath() + "\r");
+    waitForContent(context, file, "first\nsecond\nfirst\nsecond\n");
+    conn.read("lines > " + file.getAbsolutePath() + "\r");
+    waitForContent(context, file, "first\nsecond\n");
+    waitForJobs(context, shell);
+    // The output never reaches the terminal
+    context.assertFalse(conn.out().toString().contains("second"));
+  }
+
+  @Test
+  public void testInterruptWhileOpeningOutput(TestContext context) throws Exception {
+    File file = File.createTempFile("vertx-shell", ".txt", new File("target"));
+    file.deleteOnExit();
+    commands.add(CommandBuilder.command("never").processHandler(process -> context.fail()));
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    ShellImpl shell = createShell(conn);
+    Async terminated = context.async();
+    vertx.runOnContext(v -> {
+      Job job = shell.createJob("never > " + file.getAbsolutePath());
+      job.setTty(Pty.create().slave()).setSession(Session.create()).statusUpdateHandler(status -> {
+        if (status == ExecStatus.TERMINATED) {
+          terminated.complete();
+        }
+      });
+      job.run();
+      // The file is opened asynchronously, the process does not run yet
+      context.assertEquals(ExecStatus.RUNNING, job.status());
+      context.assertTrue(job.interrupt());
+    });
+  }
+
+  @Test
+  public void testOutputRedirectionSyntaxError(TestContext context) throws Exception {
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    ShellImpl shell = createShell(conn);
+    try {
+      shell.createJob("echo >");
+      context.fail();
+    } catch (IllegalArgumentException ignore) {
+    }
+    try {
+      shell.createJob("echo > a b");
+      context.fail();
+    } catch (IllegalArgumentException ignore) {
+    }
+  }
+
+  @Test
+  public void testOutputRedirectionOutsideRoot(TestContext context) throws Exception {
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    ShellImpl shell = createShell(conn);
+    try {
+      shell.createJob("echo > /etc/passwd");
+      context.fail();
+    } catch (IllegalArgumentException e) {
+      context.assertEquals("/etc/passwd: Permission denied", e.getMessage());
+    }
+    try {
+      shell.createJob("echo >> ../outside");
+      context.fail();
+    } catch (IllegalArgumentException ignore) {
+    }
+  }
+
+  @Test
+  public void testBackgroundJob(TestContext context) throws Exception {
+    commands.add(Command.create(vertx, Sleep.class));
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    ShellImpl shell = createShell(conn);
+    shell.init().readline();
+    conn.read("sleep 10000 &\r");
+    long now = System.currentTimeMillis();
+    while (shell.jobController().jobs().size() == 0 || shell.jobController().getJob(1).status() != ExecStatus.RUNNING) {
+      context.assertTrue(System.currentTimeMillis() - now < 2000);
+      Thread.sleep(1);
+    }
+    context.assertNull(shell.jobController().foregroundJob());
+    context.assertEquals(shell.jobController().getJob(1), shell.jobController().currentJob());
+    context.assertEquals("sleep 10000", shell.jobController().getJob(1).line());
+    conn.read("fg\r");
+    now = System.currentTimeMillis();
+    while (shell.jobController().foregroundJob() != shell.jobController().getJob(1)) {
+      context.assertTrue(System.currentTimeMillis() - now < 2000);
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void testDetachedBackgroundJob(TestContext context) throws Exception {
+    File file = File.createTempFile("vertx-shell", ".txt", new File("target"));
+    file.deleteOnExit();
+    commands.add(CommandBuilder.command("capture").processHandler(process -> {
+      process.vertx().setTimer(200, id -> {
+        process.write("captured\n");
+        process.end();
+      });
+    }));
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    ShellImpl shell = createShell(conn);
+    shell.init().readline();
+    conn.read("capture > " + file.getAbsolutePath() + " &\r");
+    long now = System.currentTimeMillis();
+    while (shell.jobController().jobs().size() == 0 || shell.jobController().getJob(1).status() != ExecStatus.RUNNING) {
+      context.assertTrue(System.currentTimeMillis() - now < 2000);
+      Thread.sleep(1);
+    }
+    conn.read("exit\r");
+    context.assertTrue(conn.getCloseLatch().await(2, TimeUnit.SECONDS));
+    // The job outlives the session
+    waitForContent(context, file, "captured\n");
+    waitForJobs(context, shell);
+  }
+
+  private static void waitForContent(TestContext context, File file, String expected) throws Exception {
+    long now = System.currentTimeMillis();
+    while (!expected.equals(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))) {
+      context.assertTrue(System.currentTimeMillis() - now < 2000);
+      Thread.sleep(1);
+    }
+  }
+
+  private static void waitForJobs(TestContext context, ShellImpl shell) throws InterruptedException {
+    long now = System.currentTimeMillis();
+    while (shell.jobController().jobs().size() > 0) {
+      context.assertTrue(System.currentTimeMillis() - now < 2000);
+      Thread.sleep(1);
+    }
+  }
 }
@@ -37,6 +37,7 @@ import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 import static org.junit.Assert.*;
 
@@ -91,6 +92,66 @@ public class CliTokenTest {
 //    assertTokens("'", CliToken.Kind.TEXT.create("\\"));
   }
 
+  @Test
+  public void testQuotesInsideText() {
+    assertTokens("a\"b c\"d", CliToken.createText("ab cd"));
+    assertTokens("a'b\"c'd", CliToken.createText("ab\"cd"));
+    assertTokens("\"a'b\"", CliToken.createText("a'b"));
+    assertTokens("a\\ b c", CliToken.createText("a b"), CliToken.createBlank(" "), CliToken.createText("c"));
+  }
+
+  @Test
+  public void testSupplementaryCodePoints() {
+    String emoji = new String(Character.toChars(0x1F600));
+    assertTokens(emoji, CliToken.createText(emoji));
+    assertTokens("\\" + emoji + " a", CliToken.createText(emoji), CliToken.createBlank(" "), CliToken.createText("a"));
+    assertTokens("\"\\" + emoji + "\"", CliToken.createText("\\" + emoji));
+    assertTokens("'" + emoji + " '", CliToken.createText(emoji + " "));
+  }
+
+  @Test
+  public void testPipe() {
+    assertTokens("|", CliToken.createText("|"));
+    assertTokens("a|b", CliToken.createText("a"), CliToken.createText("|"), CliToken.createText("b"));
+    assertTokens("a | b", CliToken.createText("a"), CliToken.createBlank(" "), CliToken.createText("|"), CliToken.createBlank(" "), CliToken.createText("b"));
+    assertTokens("a||b", CliToken.createText("a"), CliToken.createText("|"), CliToken.createText("|"), CliToken.createText("b"));
+    assertTokens("'a|b'", CliToken.createText("a|b"));
+    assertTokens("\"a|b\"", CliToken.createText("a|b"));
+    assertTokens("a\\|b", CliToken.createText("a|b"));
+    List<CliToken> tokens = CliToken.tokenize("a '|' \\| |");
+    assertEquals("'|'", tokens.get(2).raw());
+    assertEquals("\\|", tokens.get(4).raw());
+    assertEquals("|", tokens.get(6).raw());
+  }
+
+  @Test
+  public void testRedirection() {
+    assertTokens("a>b", CliToken.createText("a"), CliToken.createText(">"), CliToken.createText("b"));
+    assertTokens("a >> b", CliToken.createText("a"), CliToken.createBlank(" "), CliToken.createText(">>"), CliToken.createBlank(" "), CliToken.createText("b"));
+    assertTokens("a>>>b", CliToken.createText("a"), CliToken.createText(">>"), CliToken.createText(">"), CliToken.createText("b"));
+    assertTokens("a&", CliToken.createText("a"), CliToken.createText("&"));
+    assertTokens("'a>b&'", CliToken.createText("a>b&"));
+    assertTokens("a\\>b", CliToken.createText("a>b"));
+  }
+
+  @Test
+  public void testRaw() {
+    List<CliToken> tokens = CliToken.tokenize("echo  \"a b\" c\\ d");
+    assertEquals(5, tokens.size());
+    assertEquals("echo", tokens.get(0).raw());
+    assertEquals("  ", tokens.get(1).raw());
+    assertEquals("\"a b\"", tokens.get(2).raw());
+    assertEquals("a b", tokens.get(2).value());
+    assertEquals(" ", tokens.get(3).raw());
+    assertEquals("c\\ d", tokens.get(4).raw());
+    assertEquals("c d", tokens.get(4).value());
+  }
+
+  @Test
+  public void testRandomAccess() {
+    assertTrue(CliToken.tokenize("a b c") instanceof RandomAccess);
+  }
+
   private void assertTokens(String s, CliToken... expected) {
     List<CliToken> tokens = CliToken.tokenize(s);
     assertEquals(Arrays.asList(expected), tokens);
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.command;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.annotations.Argument;
+import io.vertx.core.cli.annotations.Name;
+import io.vertx.core.cli.annotations.Option;
+import io.vertx.core.cli.annotations.Summary;
+import io.vertx.ext.shell.cli.CliToken;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.term.Pty;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@RunWith(VertxUnitRunner.class)
+public class AnnotatedCommandTest {
+
+  static final AtomicInteger instances = new AtomicInteger();
+
+  @Name("greet")
+  @Summary("Greet people")
+  public static class Greet extends AnnotatedCommand {
+
+    private String greeting;
+    private int count;
+    private List<String> names;
+
+    public Greet() {
+      instances.incrementAndGet();
+    }
+
+    @Option(longName = "greeting", shortName = "g")
+    public void setGreeting(String greeting) {
+      this.greeting = greeting;
+    }
+
+    @Option(shortName = "c")
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    @Argument(index = 0, argName = "names")
+    public void setNames(List<String> names) {
+      this.names = names;
+    }
+
+    @Override
+    public void process(CommandProcess process) {
+      for (int i = 0; i < count; i++) {
+        for (String name : names) {
+          process.write(greeting + " " + name + "\n");
+        }
+      }
+      process.end();
+    }
+  }
+
+  @Name("defined")
+  public static class Renamed extends AnnotatedCommand {
+
+    public Renamed() {
+      instances.incrementAndGet();
+    }
+
+    @Override
+    public String name() {
+      return "renamed";
+    }
+
+    @Override
+    public void process(CommandProcess process) {
+      process.end();
+    }
+  }
+
+  Vertx vertx;
+
+  @Before
+  public void before() {
+    vertx = Vertx.vertx();
+    instances.set(0);
+  }
+
+  @After
+  public void after(TestContext context) {
+    vertx.close()
+      .onComplete(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testMetadata(TestContext context) {
+    Command command = Command.create(vertx, Greet.class);
+    context.assertEquals("greet", command.name());
+    context.assertEquals("Greet people", command.cli().getSummary());
+    context.assertNotNull(command.cli().getOption("help"));
+    context.assertEquals(0, instances.get());
+  }
+
+  @Test
+  public void testOverriddenName(TestContext context) {
+    Command command = Command.create(vertx, Renamed.class);
+    int created = instances.get();
+    for (int i = 0; i < 10; i++) {
+      context.assertEquals("renamed", command.name());
+    }
+    context.assertEquals(created, instances.get());
+  }
+
+  @Test
+  public void testInject(TestContext context) {
+    Async async = context.async();
+    StringBuilder out = new StringBuilder();
+    Context ctx = vertx.getOrCreateContext();
+    ctx.runOnContext(v -> {
+      Command command = Command.create(vertx, Greet.class);
+      Pty pty = Pty.create();
+      pty.stdoutHandler(out::append);
+      Process process = command.createProcess(CliToken.tokenize("--greeting hello -c 2 alice bob"))
+        .setSession(Session.create())
+        .setTty(pty.slave());
+      process.terminatedHandler(code -> {
+        context.assertEquals("hello alice\nhello bob\nhello alice\nhello bob\n", out.toString());
+        context.assertEquals(1, instances.get());
+        async.complete();
+      });
+      process.run();
+    });
+  }
+
+  @Test
+  public void testHelp(TestContext context) {
+    // The names argument is required, help must be printed without validation errors
+    assertOutput(context, "--help", out -> context.assertTrue(out.startsWith("Usage: greet"), out));
+  }
+
+  @Test
+  public void testValidationError(TestContext context) {
+    assertOutput(context, "-c 1", out -> context.assertFalse(out.startsWith("Usage:"), out));
+  }
+
+  private void assertOutput(TestContext context, String line, Consumer<String> checker) {
+    Async async = context.async();
+    StringBuilder out = new StringBuilder();
+    vertx.getOrCreateContext().runOnContext(v -> {
+      Command command = Command.create(vertx, Greet.class);
+      Pty pty = Pty.create();
+      pty.stdoutHandler(out::append);
+      Process process = command.createProcess(CliToken.tokenize(line))
+        .setSession(Session.create())
+        .setTty(pty.slave());
+      process.terminatedHandler(code -> {
+        checker.accept(out.toString());
+        context.assertEquals(0, instances.get());
+        async.complete();
+      });
+      process.run();
+    });
+  }
+}
@@ -35,10 +35,12 @@ package io.vertx.ext.shell.command;
 import io.vertx.core.Context;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.shell.session.Session;
 import io.vertx.ext.shell.system.*;
 import io.vertx.ext.shell.system.Process;
 import io.vertx.ext.shell.term.Pty;
+import io.vertx.ext.shell.term.Tty;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
@@ -47,9 +49,14 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -518,6 +525,155 @@ public class CommandProcessTest {
     process.suspend();
   }
 
+  @Test
+  public void testCoalesceWrites(TestContext context) {
+    Async done = context.async();
+    List<String> received = new ArrayList<>();
+    Context ctx = vertx.getOrCreateContext();
+    ctx.runOnContext(v -> {
+      CommandBuilder builder = CommandBuilder.command("hello");
+      builder.processHandler(process -> {
+        process.write("foo");
+        process.write("bar");
+        process.write("juu");
+        process.end();
+      });
+      Pty pty = Pty.create();
+      pty.stdoutHandler(received::add);
+      Process process = builder.build(vertx).createProcess().setSession(Session.create()).setTty(pty.slave());
+      process.terminatedHandler(exitCode -> {
+        context.assertEquals(Collections.singletonList("foobarjuu"), received);
+        done.complete();
+      });
+      process.run();
+    });
+  }
+
+  @Test
+  public void testCoalesceTextAndBufferWrites(TestContext context) {
+    Async done = context.async();
+    List<String> received = new ArrayList<>();
+    Context ctx = vertx.getOrCreateContext();
+    ctx.runOnContext(v -> {
+      CommandBuilder builder = CommandBuilder.command("hello");
+      builder.processHandler(process -> {
+        process.write("foo");
+        process.write(Buffer.buffer("bar"));
+        process.write(Buffer.buffer("juu"));
+        process.write("daa");
+        process.end();
+      });
+      Pty pty = Pty.create();
+      pty.stdoutHandler(received::add);
+      Process process = builder.build(vertx).createProcess().setSession(Session.create()).setTty(pty.slave());
+      process.terminatedHandler(exitCode -> {
+        context.assertEquals(Arrays.asList("foo", "barjuu", "daa"), received);
+        done.complete();
+      });
+      process.run();
+    });
+  }
+
+  @Test
+  public void testPlacement(TestContext context) throws Exception {
+    Context commandContext = vertx.getOrCreateContext();
+    Context sessionContext = vertx.getOrCreateContext();
+    for (ProcessPlacement placement : ProcessPlacement.values()) {
+      Async done = context.async();
+      CompletableFuture<Command> fut = new CompletableFuture<>();
+      commandContext.runOnContext(v -> {
+        fut.complete(CommandBuilder.command("hello").placement(placement).processHandler(process -> {
+          Context current = Vertx.currentContext();
+          switch (placement) {
+            case COMMAND:
+              context.assertEquals(commandContext, current);
+              break;
+            case SESSION:
+              context.assertEquals(sessionContext, current);
+              break;
+            case LEAST_LOADED:
+              context.assertTrue(Context.isOnEventLoopThread());
+              break;
+            case WORKER:
+              context.assertTrue(Context.isOnWorkerThread());
+              break;
+          }
+          process.end();
+        }).build(vertx));
+      });
+      Command command = fut.get(2000, TimeUnit.MILLISECONDS);
+      Process process = createProcessInContext(sessionContext, command);
+      process.terminatedHandler(code -> done.complete());
+      sessionContext.runOnContext(v -> process.run());
+      done.awaitSuccess(5000);
+    }
+  }
+
+  @Test
+  public void testDrainSharedTty(TestContext context) {
+    Async backgroundDrained = context.async();
+    Async foregroundTerminated = context.async();
+    AtomicReference<Handler<Void>> ttyDrainHandler = new AtomicReference<>();
+    Tty slave = Pty.create().slave();
+    // A tty with a single drain handler that is always full, like a congested terminal
+    Tty tty = new Tty() {
+      @Override
+      public String type() {
+        return slave.type();
+      }
+      @Override
+      public int width() {
+        return slave.width();
+      }
+      @Override
+      public int height() {
+        return slave.height();
+      }
+      @Override
+      public Tty stdinHandler(Handler<String> handler) {
+        slave.stdinHandler(handler);
+        return this;
+      }
+      @Override
+      public Tty write(String data) {
+        slave.write(data);
+        return this;
+      }
+      @Override
+      public Tty resizehandler(Handler<Void> handler) {
+        slave.resizehandler(handler);
+        return this;
+      }
+      @Override
+      public boolean writeQueueFull() {
+        return true;
+      }
+      @Override
+      public Tty drainHandler(Handler<Void> handler) {
+        ttyDrainHandler.set(handler);
+        return this;
+      }
+    };
+    Async waiting = context.async(2);
+    Process background = CommandBuilder.command("background").processHandler(process -> {
+      process.drainHandler(v -> backgroundDrained.complete());
+      waiting.countDown();
+    }).build(vertx).createProcess().setSession(Session.create()).setTty(tty);
+    Process foreground = CommandBuilder.command("foreground").processHandler(process -> {
+      process.drainHandler(v -> context.fail());
+      waiting.countDown();
+    }).build(vertx).createProcess().setSession(Session.create()).setTty(tty);
+    foreground.terminatedHandler(code -> foregroundTerminated.complete());
+    background.run(false);
+    foreground.run(true);
+    waiting.awaitSuccess(10000);
+    // The foreground process must not remove the drain handler of the background process
+    foreground.terminate();
+    foregroundTerminated.awaitSuccess(10000);
+    context.assertNotNull(ttyDrainHandler.get());
+    ttyDrainHandler.get().handle(null);
+  }
+
 /*
   @Test
   public void testTerminatedDoesNotExecute(TestContext context) throws InterruptedException {
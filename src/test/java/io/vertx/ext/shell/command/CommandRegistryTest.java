@@ -36,6 +36,8 @@ import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.ext.shell.command.impl.CommandRegistryImpl;
+import io.vertx.ext.shell.command.impl.IndexableCommandResolver;
+import io.vertx.ext.shell.system.impl.InternalCommandManager;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
@@ -44,9 +46,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -93,6 +97,60 @@ public class CommandRegistryTest {
         }))));
   }
 
+  @Test
+  public void testCommandManagerIndex(TestContext context) {
+    Command first = CommandBuilder.command("a").build(vertx);
+    Command dynamic = CommandBuilder.command("b").build(vertx);
+    List<CommandResolver> resolvers = new ArrayList<>();
+    resolvers.add(registry);
+    resolvers.add(() -> Collections.singletonList(dynamic));
+    resolvers.add(CommandResolver.baseCommands(vertx));
+    InternalCommandManager mgr = new InternalCommandManager(resolvers);
+    context.assertNull(mgr.getCommand("a"));
+    context.assertEquals(dynamic, mgr.getCommand("b"));
+    context.assertNotNull(mgr.getCommand("echo"));
+    Async async = context.async();
+    registry.registerCommand(first).onComplete(context.asyncAssertSuccess(reg -> {
+      context.assertEquals(first, mgr.getCommand("a"));
+      Command echo = CommandBuilder.command("echo").build(vertx);
+      resolvers.add(0, () -> Collections.singletonList(echo));
+      mgr.invalidate();
+      context.assertEquals(echo, mgr.getCommand("echo"));
+      registry.unregisterCommand("a").onComplete(context.asyncAssertSuccess(v -> {
+        context.assertNull(mgr.getCommand("a"));
+        async.complete();
+      }));
+    }));
+  }
+
+  @Test
+  public void testCommandManagerStopsObservingRemovedResolvers(TestContext context) {
+    Set<Runnable> listeners = new HashSet<>();
+    IndexableCommandResolver indexable = new IndexableCommandResolver() {
+      @Override
+      public List<Command> commands() {
+        return Collections.emptyList();
+      }
+      @Override
+      public void addChangeListener(Runnable listener) {
+        listeners.add(listener);
+      }
+      @Override
+      public void removeChangeListener(Runnable listener) {
+        listeners.remove(listener);
+      }
+    };
+    List<CommandResolver> resolvers = new ArrayList<>();
+    resolvers.add(indexable);
+    InternalCommandManager mgr = new InternalCommandManager(resolvers);
+    context.assertNull(mgr.getCommand("a"));
+    context.assertEquals(1, listeners.size());
+    resolvers.clear();
+    mgr.invalidate();
+    context.assertNull(mgr.getCommand("a"));
+    context.assertEquals(0, listeners.size());
+  }
+
   @Test
   public void testCloseRegistryOnVertxClose(TestContext context) {
     Vertx vertx = Vertx.vertx();
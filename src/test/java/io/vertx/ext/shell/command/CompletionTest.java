@@ -179,6 +179,39 @@ public class CompletionTest {
     });
   }
 
+  @Test
+  public void testPrefixCompletionWithSurrogatePair(TestContext context) {
+    Async async = context.async();
+    String name1 = "x" + new String(Character.toChars(0x1F600));
+    String name2 = "x" + new String(Character.toChars(0x1F601));
+    registry.registerCommands(Arrays.asList(
+      CommandBuilder.command(name1).processHandler(proc -> {}).build(rule.vertx()),
+      CommandBuilder.command(name2).processHandler(proc -> {}).build(rule.vertx())
+    )).onComplete(context.asyncAssertSuccess(v -> mgr.complete(new TestCompletion(context, "x") {
+      @Override
+      public void complete(List<String> candidates) {
+        context.assertEquals(Arrays.asList(name1, name2), candidates.stream().sorted().collect(Collectors.toList()));
+        async.complete();
+      }
+    })));
+  }
+
+  @Test
+  public void testCandidatesInResolverOrder(TestContext context) {
+    Async async = context.async();
+    CommandRegistry first = CommandRegistry.create(rule.vertx());
+    CommandRegistry second = CommandRegistry.create(rule.vertx());
+    first.registerCommand(CommandBuilder.command("qux").processHandler(proc -> {}).build(rule.vertx()))
+      .compose(v -> second.registerCommand(CommandBuilder.command("quux").processHandler(proc -> {}).build(rule.vertx())))
+      .onComplete(context.asyncAssertSuccess(v -> new InternalCommandManager(first, second).complete(new TestCompletion(context, "qu") {
+        @Override
+        public void complete(List<String> candidates) {
+          context.assertEquals(Arrays.asList("qux", "quux"), candidates);
+          async.complete();
+        }
+      })));
+  }
+
   @Test
   public void testFailure(TestContext context) {
     Async async = context.async();
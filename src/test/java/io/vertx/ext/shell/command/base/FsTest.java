@@ -32,8 +32,14 @@
 
 package io.vertx.ext.shell.command.base;
 
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.ext.shell.command.CommandRegistry;
+import io.vertx.ext.shell.session.Session;
+import io.vertx.ext.shell.system.Process;
+import io.vertx.ext.shell.system.impl.InternalCommandManager;
+import io.vertx.ext.shell.term.Pty;
+import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import org.junit.After;
@@ -43,12 +49,18 @@ import org.junit.runner.RunWith;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -95,12 +107,14 @@ public class FsTest {
     helper.cd(vertx.fileSystem(), null, "./dir_A", context.asyncAssertSuccess(path -> context.assertEquals(dir_A, path)));
     helper.cd(vertx.fileSystem(), null, dir_A, context.asyncAssertSuccess(path -> context.assertEquals(dir_A, path)));
     helper.cd(vertx.fileSystem(), null, dir_A + "/", context.asyncAssertSuccess(path -> context.assertEquals(dir_A, path)));
-    helper.cd(vertx.fileSystem(), null, "/", context.asyncAssertSuccess(path -> context.assertEquals("/", path)));
+    helper.cd(vertx.fileSystem(), null, "/", context.asyncAssertFailure());
     helper.cd(vertx.fileSystem(), dir_C, "dir_D", context.asyncAssertSuccess(path -> context.assertEquals(dir_D, path)));
     helper.cd(vertx.fileSystem(), dir_C, "dir_D/", context.asyncAssertSuccess(path -> context.assertEquals(dir_D, path)));
     helper.cd(vertx.fileSystem(), dir_C, "dir_D/.", context.asyncAssertSuccess(path -> context.assertEquals(dir_D, path)));
     helper.cd(vertx.fileSystem(), dir_C, "./dir_D", context.asyncAssertSuccess(path -> context.assertEquals(dir_D, path)));
-    helper.cd(vertx.fileSystem(), dir_C, "/", context.asyncAssertSuccess(path -> context.assertEquals("/", path)));
+    helper.cd(vertx.fileSystem(), dir_C, "/", context.asyncAssertFailure());
+    helper.cd(vertx.fileSystem(), dir_C, "..", context.asyncAssertSuccess(path -> context.assertEquals(root.getAbsolutePath(), path)));
+    helper.cd(vertx.fileSystem(), dir_C, "../..", context.asyncAssertFailure());
     helper.cd(vertx.fileSystem(), null, "file_B", context.asyncAssertFailure());
     helper.cd(vertx.fileSystem(), dir_C, "file_E", context.asyncAssertFailure());
     helper.cd(vertx.fileSystem(), null, "dir_", context.asyncAssertFailure());
@@ -110,7 +124,7 @@ public class FsTest {
   }
 
   @Test
-  public void testLs(TestContext context) throws IOException {
+  public void testListPaths(TestContext context) throws IOException {
     String dir_A = new File(root, "dir_A").getAbsolutePath();
     String file_B = new File(root, "file_B").getAbsolutePath();
     String dir_C = new File(root, "dir_C").getAbsolutePath();
@@ -125,14 +139,83 @@ public class FsTest {
     context.assertTrue(new File(file_E).createNewFile());
     context.assertTrue(new File(file_F).createNewFile());
     context.assertTrue(new File(file_G).createNewFile());
-    helper.ls(vertx, null, ".", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_A, dir_C, file_B)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, null, "dir_C", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_D, file_E)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, null, "./dir_C", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_D, file_E)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, null, "./dir_C/..", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_A, dir_C, file_B)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, root.getAbsolutePath(), ".", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_A, dir_C, file_B)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, root.getAbsolutePath(), dir_C, context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(dir_D, file_E)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, root.getAbsolutePath(), "dir_C/dir_D", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(file_F, file_G)), new HashSet<>(files.keySet()))));
-    helper.ls(vertx, root.getAbsolutePath(), "./dir_C/dir_D", context.asyncAssertSuccess(files -> context.assertEquals(new HashSet<>(Arrays.asList(file_F, file_G)), new HashSet<>(files.keySet()))));
+    assertListing(context, null, ".", "dir_A", "dir_C", "file_B");
+    assertListing(context, null, "dir_C", "dir_D", "file_E");
+    assertListing(context, null, "./dir_C", "dir_D", "file_E");
+    assertListing(context, null, "./dir_C/..", "dir_A", "dir_C", "file_B");
+    assertListing(context, root.getAbsolutePath(), ".", "dir_A", "dir_C", "file_B");
+    assertListing(context, root.getAbsolutePath(), dir_C, "dir_D", "file_E");
+    assertListing(context, root.getAbsolutePath(), "dir_C/dir_D", "file_F", "file_G");
+    assertListing(context, root.getAbsolutePath(), "./dir_C/dir_D", "file_F", "file_G");
+  }
+
+  private void assertListing(TestContext context, String currentFile, String path, String... expected) {
+    Async async = context.async();
+    Set<String> names = new HashSet<>();
+    readNames(context, helper.list(vertx, currentFile, path, false, false, false), names, () -> {
+      context.assertEquals(new HashSet<>(Arrays.asList(expected)), names);
+      async.complete();
+    });
+  }
+
+  private void readNames(TestContext context, DirectoryListing listing, Set<String> names, Runnable done) {
+    listing.next().onComplete(context.asyncAssertSuccess(entries -> {
+      if (entries.isEmpty()) {
+        done.run();
+      } else {
+        entries.forEach(entry -> names.add(entry.name));
+        readNames(context, listing, names, done);
+      }
+    }));
+  }
+
+  @Test
+  public void testList(TestContext context) throws IOException {
+    File dir = new File(root, "dir");
+    context.assertTrue(dir.mkdir());
+    Set<String> expected = new HashSet<>();
+    for (int i = 0; i < 2500; i++) {
+      context.assertTrue(new File(dir, "file_" + i).createNewFile());
+      expected.add("file_" + i);
+    }
+    context.assertTrue(new File(dir, ".hidden").createNewFile());
+    Async async = context.async();
+    Set<String> names = new HashSet<>();
+    DirectoryListing listing = helper.list(vertx, null, "dir", false, true, true);
+    readListing(context, listing, names, () -> {
+      context.assertEquals(expected, names);
+      async.complete();
+    });
+  }
+
+  private void readListing(TestContext context, DirectoryListing listing, Set<String> names, Runnable done) {
+    listing.next().onComplete(ar -> {
+      if (ar.failed()) {
+        context.fail(ar.cause());
+      } else if (ar.result().isEmpty()) {
+        done.run();
+      } else {
+        context.assertTrue(ar.result().size() <= DirectoryListing.CHUNK_SIZE);
+        for (DirectoryListing.Entry entry : ar.result()) {
+          context.assertTrue(entry.attributes.isRegularFile());
+          names.add(entry.name);
+        }
+        readListing(context, listing, names, done);
+      }
+    });
+  }
+
+  @Test
+  public void testListHidden(TestContext context) throws IOException {
+    context.assertTrue(new File(root, ".hidden").createNewFile());
+    context.assertTrue(new File(root, "file").createNewFile());
+    DirectoryListing listing = helper.list(vertx, null, ".", true, false, false);
+    listing.next().onComplete(context.asyncAssertSuccess(chunk -> {
+      context.assertEquals(new HashSet<>(Arrays.asList(".hidden", "file")), chunk.stream().map(entry -> entry.name).collect(Collectors.toSet()));
+      context.assertNull(chunk.get(0).attributes);
+    }));
+    helper.list(vertx, null, "file", true, false, false).next().onComplete(context.asyncAssertFailure());
+    helper.list(vertx, null, "does_not_exists", true, false, false).next().onComplete(context.asyncAssertFailure());
   }
 
   @Test
@@ -176,4 +259,162 @@ public class FsTest {
       context.assertEquals(expected, result);
     }));
   }
+
+  @Test
+  public void testCompleteInvalidation(TestContext context) throws Exception {
+    Async async = context.async();
+    helper.complete(vertx, null, "ju", context.asyncAssertSuccess(result -> {
+      context.assertEquals(Collections.emptyMap(), result);
+      try {
+        context.assertTrue(new File(root, "juice").createNewFile());
+      } catch (IOException e) {
+        context.fail(e);
+      }
+      // The watch service notifies the cache asynchronously
+      waitForCompletion(context, "ju", Collections.singletonMap("ice", true), 100, async);
+    }));
+  }
+
+  @Test
+  public void testCompleteCachedOnCallerThread(TestContext context) throws Exception {
+    context.assertTrue(new File(root, "juice").createNewFile());
+    Async async = context.async();
+    helper.complete(vertx, null, "ju", context.asyncAssertSuccess(first -> {
+      // The listing is cached, the completion does not go through a worker
+      Thread caller = Thread.currentThread();
+      AtomicBoolean completed = new AtomicBoolean();
+      helper.complete(vertx, null, "ju", context.asyncAssertSuccess(result -> {
+        context.assertEquals(caller, Thread.currentThread());
+        context.assertEquals(Collections.singletonMap("ice", true), result);
+        completed.set(true);
+      }));
+      context.assertTrue(completed.get());
+      async.complete();
+    }));
+  }
+
+  private void waitForCompletion(TestContext context, String prefix, Map<String, Boolean> expected, int retries, Async async) {
+    helper.complete(vertx, null, prefix, context.asyncAssertSuccess(result -> {
+      if (expected.equals(result)) {
+        async.complete();
+      } else if (retries > 0) {
+        vertx.setTimer(100, id -> waitForCompletion(context, prefix, expected, retries - 1, async));
+      } else {
+        context.fail("Unexpected completion " + result);
+      }
+    }));
+  }
+
+  @Test
+  public void testCompleteMaxCandidates(TestContext context) throws Exception {
+    int count = DirectoryCache.MAX_CANDIDATES + 10;
+    for (int i = 0; i < count; i++) {
+      context.assertTrue(new File(root, "file" + i).createNewFile());
+    }
+    helper.complete(vertx, null, "", context.asyncAssertSuccess(result -> {
+      context.assertEquals(Collections.singletonMap("file", false), result);
+    }));
+    helper.complete(vertx, null, "file", context.asyncAssertSuccess(result -> {
+      context.assertEquals(DirectoryCache.MAX_CANDIDATES, result.size());
+    }));
+  }
+
+  private void run(String line, TestContext context, int expectedExitCode, String expectedOutput) {
+    Async async = context.async();
+    StringBuffer out = new StringBuffer();
+    run(line, out, code -> {
+      context.assertEquals(expectedExitCode, code);
+      context.assertEquals(expectedOutput, out.toString());
+      async.complete();
+    });
+  }
+
+  private Process run(String line, StringBuffer out, Handler<Integer> terminatedHandler) {
+    InternalCommandManager manager = new InternalCommandManager(new BaseCommandPack(vertx));
+    Pty pty = Pty.create();
+    pty.stdoutHandler(out::append);
+    Process process = manager.createProcess(line);
+    process.setSession(Session.create()).setTty(pty.slave());
+    process.terminatedHandler(terminatedHandler);
+    process.run();
+    return process;
+  }
+
+  @Test
+  public void testCat(TestContext context) throws IOException {
+    Files.write(new File(root, "a").toPath(), "hello\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(new File(root, "b").toPath(), "world€\n".getBytes(StandardCharsets.UTF_8));
+    run("cat a b", context, 0, "hello\nworld€\n");
+    run("cat a does_not_exist", context, 1, "hello\ncat: does_not_exist: No such file or directory\n");
+  }
+
+  @Test
+  public void testCatLargeFile(TestContext context) throws IOException {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      content.append("line ").append(i).append('\n');
+    }
+    Files.write(new File(root, "large").toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+    run("cat large", context, 0, content.toString());
+  }
+
+  @Test
+  public void testTail(TestContext context) throws IOException {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      content.append(i).append('\n');
+    }
+    Files.write(new File(root, "lines").toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+    Files.write(new File(root, "unterminated").toPath(), "a\nb\nc".getBytes(StandardCharsets.UTF_8));
+    run("tail lines", context, 0, "4990\n4991\n4992\n4993\n4994\n4995\n4996\n4997\n4998\n4999\n");
+    run("tail -n 2 lines", context, 0, "4998\n4999\n");
+    run("tail -n 0 lines", context, 0, "");
+    run("tail -n 2 unterminated", context, 0, "b\nc");
+    run("tail -n 5 unterminated", context, 0, "a\nb\nc");
+    run("tail does_not_exist", context, 1, "tail: does_not_exist: No such file or directory\n");
+  }
+
+  @Test
+  public void testTailFollow(TestContext context) throws Exception {
+    Path path = new File(root, "log").toPath();
+    Files.write(path, "1\n2\n".getBytes(StandardCharsets.UTF_8));
+    StringBuffer out = new StringBuffer();
+    Async terminated = context.async();
+    Process process = run("tail -n 1 -f --interval 20 log", out, code -> terminated.complete());
+    waitForOutput(context, out, "2\n");
+    Files.write(path, "3\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    waitForOutput(context, out, "2\n3\n");
+    // Rotate the file, the data appended to the rotated file before the new file is created is printed
+    Path rotated = new File(root, "log.1").toPath();
+    Files.move(path, rotated);
+    Files.write(rotated, "3b\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    Files.write(path, "4\n".getBytes(StandardCharsets.UTF_8));
+    waitForOutput(context, out, "2\n3\n3b\ntail: log has been replaced, following new file\n4\n");
+    process.interrupt();
+  }
+
+  @Test
+  public void testTailInvalidInterval(TestContext context) throws IOException {
+    Files.write(new File(root, "log").toPath(), "1\n".getBytes(StandardCharsets.UTF_8));
+    run("tail -f --interval 0 log", context, 1, "tail: invalid interval: 0\n");
+  }
+
+  @Test
+  public void testOutsideOfRoot(TestContext context) throws IOException {
+    File outside = new File(root.getParentFile(), root.getName() + ".outside");
+    outside.deleteOnExit();
+    Files.write(outside.toPath(), "secret\n".getBytes(StandardCharsets.UTF_8));
+    run("cat ../" + outside.getName(), context, 1, "cat: ../" + outside.getName() + ": Permission denied\n");
+    run("tail " + outside.getAbsolutePath(), context, 1, "tail: " + outside.getAbsolutePath() + ": Permission denied\n");
+    run("ls ..", context, 1, "ls: ..: Permission denied\n");
+    run("cd ..", context, 0, "cd: ..: Permission denied\n");
+  }
+
+  private void waitForOutput(TestContext context, StringBuffer out, String expected) throws InterruptedException {
+    long now = System.currentTimeMillis();
+    while (!expected.equals(out.toString())) {
+      context.assertTrue(System.currentTimeMillis() - now < 10000, "Unexpected output " + out);
+      Thread.sleep(10);
+    }
+  }
 }
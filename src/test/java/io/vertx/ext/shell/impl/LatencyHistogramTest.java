@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testIndexPrecision() {
+    for (long value = 0; value < 64; value++) {
+      assertEquals(value, LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(value)));
+    }
+    for (long value = 64; value < LatencyHistogram.MAX_VALUE; value = value * 3 / 2 + 7) {
+      int index = LatencyHistogram.indexOf(value);
+      long highest = LatencyHistogram.highestValueAt(index);
+      assertTrue(value + " > " + highest, value <= highest);
+      assertTrue(value + " imprecise " + highest, highest - value <= value / 64);
+      assertTrue(index == 0 || LatencyHistogram.highestValueAt(index - 1) < value);
+    }
+    assertEquals(LatencyHistogram.MAX_VALUE, LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(LatencyHistogram.MAX_VALUE)));
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.valueAtPercentile(50));
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+    assertEquals(1000, histogram.count());
+    assertNear(500_000, histogram.valueAtPercentile(50));
+    assertNear(990_000, histogram.valueAtPercentile(99));
+    assertNear(999_000, histogram.valueAtPercentile(99.9));
+    assertNear(1_000_000, histogram.valueAtPercentile(100));
+  }
+
+  @Test
+  public void testOverflow() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(Long.MAX_VALUE);
+    histogram.record(-1);
+    assertEquals(0, histogram.valueAtPercentile(50));
+    assertEquals(LatencyHistogram.MAX_VALUE, histogram.valueAtPercentile(100));
+  }
+
+  private static void assertNear(long expected, long actual) {
+    assertTrue("Expected " + actual + " to be " + expected, actual >= expected && actual - expected <= expected / 64);
+  }
+}
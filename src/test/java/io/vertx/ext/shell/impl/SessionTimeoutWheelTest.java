@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+
+package io.vertx.ext.shell.impl;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SessionTimeoutWheelTest {
+
+  private final Map<String, Long> lastAccessed = new HashMap<>();
+  private final Map<String, Integer> reads = new HashMap<>();
+
+  private long lastAccessedTime(String session) {
+    reads.merge(session, 1, Integer::sum);
+    return lastAccessed.get(session);
+  }
+
+  @Test
+  public void testExpire() {
+    SessionTimeoutWheel<String> wheel = new SessionTimeoutWheel<>(10, 100, this::lastAccessedTime, 8);
+    lastAccessed.put("a", 1000L);
+    lastAccessed.put("b", 1050L);
+    wheel.add("a");
+    wheel.add("b");
+    assertEquals(Collections.emptyList(), wheel.expire(1000));
+    assertEquals(Collections.emptyList(), wheel.expire(1100));
+    assertEquals(Collections.singletonList("a"), wheel.expire(1110));
+    assertEquals(1, wheel.size());
+    assertEquals(Collections.singletonList("b"), wheel.expire(1160));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testActiveSessionIsRescheduled() {
+    SessionTimeoutWheel<String> wheel = new SessionTimeoutWheel<>(10, 100, this::lastAccessedTime, 8);
+    lastAccessed.put("a", 1000L);
+    wheel.add("a");
+    reads.clear();
+    lastAccessed.put("a", 1080L);
+    assertEquals(Collections.emptyList(), wheel.expire(1110));
+    assertEquals(1, (int) reads.get("a"));
+    // Not read again before its new deadline
+    assertEquals(Collections.emptyList(), wheel.expire(1170));
+    assertEquals(1, (int) reads.get("a"));
+    assertEquals(Collections.singletonList("a"), wheel.expire(1190));
+  }
+
+  @Test
+  public void testOnlyDueSessionsAreVisited() {
+    SessionTimeoutWheel<String> wheel = new SessionTimeoutWheel<>(10, 1000, this::lastAccessedTime, 8);
+    for (int i = 0; i < 100; i++) {
+      lastAccessed.put("s" + i, 1000L + i * 10);
+      wheel.add("s" + i);
+    }
+    reads.clear();
+    wheel.expire(1000);
+    wheel.expire(2005);
+    assertEquals(Collections.singleton("s0"), reads.keySet());
+  }
+
+  @Test
+  public void testRemove() {
+    SessionTimeoutWheel<String> wheel = new SessionTimeoutWheel<>(10, 100, this::lastAccessedTime, 8);
+    lastAccessed.put("a", 1000L);
+    lastAccessed.put("b", 1000L);
+    wheel.add("a");
+    wheel.add("b");
+    wheel.remove("a");
+    assertEquals(1, wheel.size());
+    assertEquals(Arrays.asList("b"), wheel.expire(2000));
+  }
+}
@@ -32,11 +32,11 @@
 
 package io.vertx.ext.shell.support;
 
-import io.termd.core.tty.TtyConnection;
 import io.vertx.core.*;
 import io.vertx.ext.auth.authentication.AuthenticationProvider;
 import io.vertx.ext.shell.term.Term;
 import io.vertx.ext.shell.term.TermServer;
+import io.vertx.ext.shell.term.impl.Helper;
 import io.vertx.ext.shell.term.impl.TermImpl;
 
 /**
@@ -45,7 +45,7 @@ import io.vertx.ext.shell.term.impl.TermImpl;
 public class TestTermServer implements TermServer {
 
   private final Vertx vertx;
-  private Handler<TtyConnection> connectionHandler;
+  private Handler<TestTtyConnection> connectionHandler;
 
   public TestTermServer(Vertx vertx) {
     this.vertx = vertx;
@@ -60,7 +60,7 @@ public class TestTermServer implements TermServer {
   @Override
   public TermServer termHandler(Handler<Term> handler) {
     connectionHandler = conn -> {
-      handler.handle(new TermImpl(vertx, conn));
+      handler.handle(new TermImpl(vertx, Helper.defaultKeymap(), conn, null, null, null, conn.meter()));
     };
     return this;
   }
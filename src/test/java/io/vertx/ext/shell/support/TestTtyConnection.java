@@ -38,6 +38,7 @@ import io.termd.core.util.Helper;
 import io.termd.core.util.Vector;
 import io.vertx.core.Context;
 import io.vertx.core.Vertx;
+import io.vertx.ext.shell.term.impl.OutputMeter;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -61,6 +62,7 @@ public class TestTtyConnection implements TtyConnection {
   private volatile boolean closed;
   private final CountDownLatch closeLatch = new CountDownLatch(1);
   private volatile long lastAccessedTime;
+  private final OutputMeter meter = new OutputMeter();
 
   public TestTtyConnection(Vertx vertx) {
     this.context = vertx.getOrCreateContext();
@@ -139,9 +141,17 @@ public class TestTtyConnection implements TtyConnection {
         Helper.appendCodePoints(codePoints, out());
         notify();
       }
+      meter.accept(new String(codePoints, 0, codePoints.length).getBytes(StandardCharsets.UTF_8).length);
     };
   }
 
+  /**
+   * @return the meter counting the UTF-8 bytes written to this connection
+   */
+  public OutputMeter meter() {
+    return meter;
+  }
+
   @Override
   public Consumer<Void> getCloseHandler() {
     return closeHandler;
@@ -33,9 +33,13 @@
 package io.vertx.ext.shell.term;
 
 import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.ChannelShell;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpException;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
@@ -45,6 +49,9 @@ import io.vertx.ext.auth.User;
 import io.vertx.ext.auth.authentication.AuthenticationProvider;
 import io.vertx.ext.auth.authentication.UsernamePasswordCredentials;
 import io.vertx.ext.shell.SSHTestBase;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+import io.vertx.ext.shell.system.Process;
 import io.vertx.ext.shell.term.impl.SSHExec;
 import io.vertx.ext.shell.term.impl.SSHServer;
 import io.vertx.ext.unit.Async;
@@ -54,11 +61,24 @@ import org.junit.Test;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author <a href="mailto:julien@julienviet.com">Julien Viet</a>
@@ -150,6 +170,53 @@ public class SSHServerTest extends SSHTestBase {
     session.disconnect();
   }
 
+  @Test
+  public void testWriteFlowControl() throws Exception {
+    int size = 4 * 1024 * 1024;
+    String chunk = new String(new char[1024]).replace('\0', 'y');
+    AtomicBoolean full = new AtomicBoolean();
+    termHandler = term -> {
+      AtomicInteger remaining = new AtomicInteger(size / chunk.length());
+      Runnable[] writer = new Runnable[1];
+      writer[0] = () -> {
+        while (remaining.get() > 0) {
+          if (term.writeQueueFull()) {
+            full.set(true);
+            term.drainHandler(v -> writer[0].run());
+            return;
+          }
+          remaining.decrementAndGet();
+          term.write(chunk);
+        }
+      };
+      writer[0].run();
+    };
+    startShell();
+    Session session = createSession("paulo", "secret", false);
+    session.connect();
+    Channel channel = session.openChannel("shell");
+    InputStream in = channel.getInputStream();
+    channel.connect();
+    // Do not read the channel until the terminal is congested
+    long start = System.currentTimeMillis();
+    while (!full.get()) {
+      assertTrue(System.currentTimeMillis() - start < 20000);
+      Thread.sleep(10);
+    }
+    long received = 0;
+    byte[] buffer = new byte[8192];
+    while (received < size) {
+      int len = in.read(buffer);
+      if (len == -1) {
+        break;
+      }
+      received += len;
+    }
+    assertEquals(size, received);
+    channel.disconnect();
+    session.disconnect();
+  }
+
   @Test
   public void testResizeHandler(TestContext context) throws Exception {
     Async async = context.async();
@@ -327,6 +394,319 @@ public class SSHServerTest extends SSHTestBase {
     channel.connect();
   }
 
+  @Test
+  public void testUseEventLoopGroup(TestContext context) throws Exception {
+    int sessions = 4;
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    Async async = context.async(sessions);
+    termHandler = term -> {
+      context.assertTrue(Context.isOnEventLoopThread());
+      threads.add(Thread.currentThread());
+      term.write("% ");
+      async.countDown();
+    };
+    startShell(new SSHTermOptions().setUseEventLoopGroup(true).setPort(5000).setHost("localhost").setKeyPairOptions(
+        new JksOptions().setPath("src/test/resources/server-keystore.jks").setPassword("wibble")).
+      setAuthOptions(new JsonObject()
+        .put("provider", "properties")
+        .put("config",
+          new JsonObject().put("file", "test-auth.properties"))));
+    List<Session> opened = new ArrayList<>();
+    for (int i = 0; i < sessions; i++) {
+      Session session = createSession("paulo", "secret", false);
+      session.connect();
+      session.openChannel("shell").connect();
+      opened.add(session);
+    }
+    async.awaitSuccess(20000);
+    context.assertTrue(threads.size() > 1, "Expected sessions on several event loops: " + threads);
+    opened.forEach(Session::disconnect);
+  }
+
+  @Test
+  public void testSharedPort(TestContext context) throws Exception {
+    int sessions = 4;
+    AtomicInteger first = new AtomicInteger();
+    AtomicInteger second = new AtomicInteger();
+    Async async = context.async(sessions);
+    termHandler = term -> {
+      first.incrementAndGet();
+      term.write("% ");
+      async.countDown();
+    };
+    SSHTermOptions options = new SSHTermOptions().setPort(5000).setHost("localhost").setKeyPairOptions(
+        new JksOptions().setPath("src/test/resources/server-keystore.jks").setPassword("wibble")).
+      setAuthOptions(new JsonObject()
+        .put("provider", "properties")
+        .put("config",
+          new JsonObject().put("file", "test-auth.properties")));
+    startShell(options);
+    TermServer other = TermServer.createSSHTermServer(vertx, options);
+    other.termHandler(term -> {
+      second.incrementAndGet();
+      term.write("% ");
+      async.countDown();
+    });
+    other.listen().await(20, TimeUnit.SECONDS);
+    List<Session> opened = new ArrayList<>();
+    for (int i = 0; i < sessions; i++) {
+      Session session = createSession("paulo", "secret", false);
+      session.connect();
+      session.openChannel("shell").connect();
+      opened.add(session);
+    }
+    async.awaitSuccess(20000);
+    context.assertEquals(sessions / 2, first.get());
+    context.assertEquals(sessions / 2, second.get());
+    opened.forEach(Session::disconnect);
+    other.close().await(20, TimeUnit.SECONDS);
+    // The server is still listening for the remaining instance
+    Session session = createSession("paulo", "secret", false);
+    session.connect();
+    session.openChannel("shell").connect();
+    session.disconnect();
+  }
+
+  @Test
+  public void testSharedPortExec() throws Exception {
+    SSHTermOptions options = new SSHTermOptions().setPort(5000).setHost("localhost").setKeyPairOptions(
+        new JksOptions().setPath("src/test/resources/server-keystore.jks").setPassword("wibble")).
+      setAuthOptions(new JsonObject()
+        .put("provider", "properties")
+        .put("config",
+          new JsonObject().put("file", "test-auth.properties")));
+    // Only the instance that does not start the server handles the exec requests
+    startShell(options);
+    TermServer other = TermServer.createSSHTermServer(vertx, options);
+    other.termHandler(term -> term.write("% "));
+    ((SSHServer) other).setExecHandler(exec -> {
+      exec.write("the_output");
+      exec.end(0);
+    });
+    other.listen().await(20, TimeUnit.SECONDS);
+    for (int i = 0; i < 2; i++) {
+      Session session = createSession("paulo", "secret", false);
+      session.connect();
+      ChannelExec channel = (ChannelExec) session.openChannel("exec");
+      channel.setCommand("the-command");
+      InputStream in = channel.getInputStream();
+      channel.connect();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[256];
+      for (int len = in.read(buffer); len != -1; len = in.read(buffer)) {
+        output.write(buffer, 0, len);
+      }
+      assertEquals("the_output", output.toString());
+      session.disconnect();
+    }
+    other.close().await(20, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testFileTransfer() throws Exception {
+    testFileTransfer(false);
+  }
+
+  @Test
+  public void testWritableFileTransfer() throws Exception {
+    testFileTransfer(true);
+  }
+
+  private void testFileTransfer(boolean writable) throws Exception {
+    File root = Files.createTempDirectory(new File("target").toPath(), "sftp").toFile();
+    File outside = new File(root.getParentFile(), root.getName() + ".outside");
+    Files.write(new File(root, "heap.hprof").toPath(), "the_dump".getBytes(StandardCharsets.UTF_8));
+    Files.write(outside.toPath(), "secret".getBytes(StandardCharsets.UTF_8));
+    System.setProperty("vertx.cwd", root.getAbsolutePath());
+    try {
+      startShell(new SSHTermOptions().setFileTransfer(true).setFileTransferWritable(writable).setPort(5000).setHost("localhost").setKeyPairOptions(
+          new JksOptions().setPath("src/test/resources/server-keystore.jks").setPassword("wibble")).
+        setAuthOptions(new JsonObject()
+          .put("provider", "properties")
+          .put("config",
+            new JsonObject().put("file", "test-auth.properties"))));
+      Session session = createSession("paulo", "secret", false);
+      session.connect();
+      ChannelSftp sftp = (ChannelSftp) session.openChannel("sftp");
+      sftp.connect();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      sftp.get("/heap.hprof", out);
+      assertEquals("the_dump", out.toString("UTF-8"));
+      if (writable) {
+        sftp.put(new ByteArrayInputStream("the_log".getBytes(StandardCharsets.UTF_8)), "app.log");
+        assertEquals("the_log", new String(Files.readAllBytes(new File(root, "app.log").toPath()), StandardCharsets.UTF_8));
+      } else {
+        // The files can only be downloaded
+        try {
+          sftp.put(new ByteArrayInputStream("the_log".getBytes(StandardCharsets.UTF_8)), "app.log");
+          fail();
+        } catch (SftpException expected) {
+        }
+        assertFalse(new File(root, "app.log").exists());
+        try {
+          sftp.rm("/heap.hprof");
+          fail();
+        } catch (SftpException expected) {
+        }
+        assertTrue(new File(root, "heap.hprof").exists());
+      }
+      // The parent of the root is the root
+      try {
+        sftp.get("../" + outside.getName(), new ByteArrayOutputStream());
+        fail();
+      } catch (SftpException expected) {
+      }
+      sftp.disconnect();
+      assertEquals("the_dump", scpGet(session, "/heap.hprof"));
+      session.disconnect();
+    } finally {
+      System.clearProperty("vertx.cwd");
+      outside.delete();
+      try (Stream<Path> files = Files.walk(root.toPath())) {
+        files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+      }
+    }
+  }
+
+  /**
+   * Download a file with the SCP source protocol: the server sends the {@code C<mode> <length> <name>} header
+   * then the content, each step is acknowledged by a zero byte.
+   */
+  private String scpGet(Session session, String path) throws Exception {
+    ChannelExec channel = (ChannelExec) session.openChannel("exec");
+    channel.setCommand("scp -f " + path);
+    OutputStream out = channel.getOutputStream();
+    InputStream in = channel.getInputStream();
+    channel.connect();
+    try {
+      out.write(0);
+      out.flush();
+      StringBuilder header = new StringBuilder();
+      int c;
+      while ((c = in.read()) != '\n') {
+        if (c == -1) {
+          throw new EOFException("Unexpected end of the SCP header " + header);
+        }
+        header.append((char) c);
+      }
+      String[] parts = header.toString().split(" ");
+      assertEquals('C', parts[0].charAt(0));
+      int length = Integer.parseInt(parts[1]);
+      out.write(0);
+      out.flush();
+      byte[] content = new byte[length];
+      int read = 0;
+      while (read < length) {
+        int n = in.read(content, read, length - read);
+        if (n == -1) {
+          throw new EOFException();
+        }
+        read += n;
+      }
+      assertEquals(0, in.read());
+      out.write(0);
+      out.flush();
+      return new String(content, StandardCharsets.UTF_8);
+    } finally {
+      channel.disconnect();
+    }
+  }
+
+  @Test
+  public void testExecStreamingStdin(TestContext context) throws Exception {
+    int size = 4 * 1024 * 1024;
+    AtomicLong received = new AtomicLong();
+    AtomicInteger pauses = new AtomicInteger();
+    execHandler = exec -> {
+      exec.stdinBufferHandler(data -> {
+        // Simulate a slow consumer
+        if (received.addAndGet(data.length()) / (256 * 1024) > pauses.get()) {
+          pauses.incrementAndGet();
+          exec.pauseStdin();
+          vertx.setTimer(10, id -> exec.resumeStdin());
+        }
+      });
+      exec.stdinEndHandler(v -> {
+        exec.write("" + received.get());
+        exec.end(0);
+      });
+    };
+    startShell();
+    assertEquals("" + size, execWithStdin(size));
+    context.assertTrue(pauses.get() > 1);
+  }
+
+  @Test
+  public void testExecProcessStdinFlowControl(TestContext context) throws Exception {
+    int size = 4 * 1024 * 1024;
+    AtomicLong received = new AtomicLong();
+    AtomicLong receivedWhilePaused = new AtomicLong();
+    AtomicInteger pauses = new AtomicInteger();
+    Command command = CommandBuilder.command("consume").processHandler(process -> {
+      AtomicBoolean paused = new AtomicBoolean();
+      process.stdinBufferHandler(data -> {
+        if (paused.get()) {
+          receivedWhilePaused.addAndGet(data.length());
+        }
+        if (received.addAndGet(data.length()) / (256 * 1024) > pauses.get()) {
+          pauses.incrementAndGet();
+          paused.set(true);
+          process.pauseStdin();
+          vertx.setTimer(10, id -> {
+            paused.set(false);
+            process.resumeStdin();
+          });
+        }
+      });
+      process.stdinEndHandler(v -> {
+        process.write("" + received.get());
+        process.end();
+      });
+    }).build(vertx);
+    execHandler = exec -> {
+      Process process = command.createProcess().setSession(io.vertx.ext.shell.session.Session.create()).setTty(exec);
+      process.terminatedHandler(exec::end);
+      process.run();
+    };
+    startShell();
+    assertEquals("" + size, execWithStdin(size));
+    context.assertTrue(pauses.get() > 1);
+    // The channel is not read while the command is paused
+    context.assertEquals(0L, receivedWhilePaused.get());
+  }
+
+  /**
+   * Execute a command sending it {@code size} bytes on its standard input.
+   *
+   * @return the output of the command
+   */
+  private String execWithStdin(int size) throws Exception {
+    Session session = createSession("paulo", "secret", false);
+    session.connect();
+    ChannelExec channel = (ChannelExec) session.openChannel("exec");
+    channel.setCommand("bus-publish the-address");
+    InputStream in = channel.getInputStream();
+    OutputStream out = channel.getOutputStream();
+    channel.connect();
+    byte[] chunk = new byte[16 * 1024];
+    for (int i = 0; i < size / chunk.length; i++) {
+      out.write(chunk);
+    }
+    // EOF
+    out.close();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[256];
+    for (int len = in.read(buffer); len != -1; len = in.read(buffer)) {
+      output.write(buffer, 0, len);
+    }
+    while (!channel.isClosed()) {
+      Thread.sleep(1);
+    }
+    assertEquals(0, channel.getExitStatus());
+    session.disconnect();
+    return output.toString();
+  }
+
   @Override
   public void testExec(TestContext context) throws Exception {
     execHandler = exec -> {
@@ -34,6 +34,7 @@ package io.vertx.ext.shell.term;
 
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
@@ -131,6 +132,35 @@ public class TelnetTermServerTest {
     }
   }
 
+  @Test
+  public void testWriteBuffer(TestContext context) throws IOException {
+    Buffer data = Buffer.buffer("a\nb\u20AC").appendByte((byte) 0xFF).appendString("c");
+    startTelnet(context, new TelnetTermOptions().setOutBinary(true), term -> term.write(data));
+    client.connect("localhost", server.actualPort());
+    InputStream in = client.getInputStream();
+    for (int expected : new int[]{'a', '\r', '\n', 'b', 226, 130, 172, 0xFF, 'c'}) {
+      context.assertEquals(expected, in.read());
+    }
+  }
+
+  @Test
+  public void testDrainHandler(TestContext context) throws IOException {
+    Async async = context.async();
+    String chunk = new String(new char[1024]).replace('\0', 'a');
+    startTelnet(context, term -> {
+      while (!term.writeQueueFull()) {
+        term.write(chunk);
+      }
+      term.drainHandler(v -> async.complete());
+    });
+    client.connect("localhost", server.actualPort());
+    InputStream in = client.getInputStream();
+    byte[] buffer = new byte[1024];
+    while (!async.isCompleted()) {
+      context.assertNotEquals(-1, in.read(buffer));
+    }
+  }
+
   @Test
   public void testCloseHandler(TestContext context) throws IOException {
     Async async1 = context.async();
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ *
+ *
+ * Copyright (c) 2015 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ */
+
+package io.vertx.ext.shell.term;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.shell.support.TestTtyConnection;
+import io.vertx.ext.shell.term.impl.TermImpl;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TermEchoTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void before() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void after() {
+    vertx.close().await();
+  }
+
+  @Test
+  public void testEcho() {
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    TermImpl term = new TermImpl(vertx, conn);
+    term.echo("abc\td\be\u007Ff\u0003\rg");
+    conn.assertWritten("abc\td\b \be\b \bf^C\ng");
+  }
+
+  @Test
+  public void testEchoPrintableRun() {
+    List<int[]> writes = new ArrayList<>();
+    TermImpl term = new TermImpl(vertx, new TestTtyConnection(vertx) {
+      @Override
+      public Consumer<int[]> stdoutHandler() {
+        return writes::add;
+      }
+    });
+    int[] codePoints = "hello\u20AC".codePoints().toArray();
+    term.echo(codePoints);
+    assertEquals(1, writes.size());
+    assertEquals(Arrays.toString(codePoints), Arrays.toString(writes.get(0)));
+    writes.clear();
+    term.echo("ab\bcd".codePoints().toArray());
+    assertEquals(3, writes.size());
+    assertEquals("[97, 98]", Arrays.toString(writes.get(0)));
+    assertEquals("[8, 32, 8]", Arrays.toString(writes.get(1)));
+    assertEquals("[99, 100]", Arrays.toString(writes.get(2)));
+    writes.clear();
+    term.echo("a\uD83D\uDE00\nb");
+    assertEquals(3, writes.size());
+    assertEquals("[97, 128512]", Arrays.toString(writes.get(0)));
+    assertEquals("[10]", Arrays.toString(writes.get(1)));
+    assertEquals("[98]", Arrays.toString(writes.get(2)));
+  }
+
+  @Test
+  public void testEchoPrintableKeystrokeDoesNotAllocate() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+    int[] count = new int[1];
+    Consumer<int[]> out = codePoints -> count[0] += codePoints.length;
+    TermImpl term = new TermImpl(vertx, new TestTtyConnection(vertx) {
+      @Override
+      public Consumer<int[]> stdoutHandler() {
+        return out;
+      }
+    });
+    int[][] keystrokes = {{'a'}, {'Z'}, {'0'}, {' '}, {'\u00E9'}, {'\u20AC'}};
+    int iterations = 100_000;
+    for (int i = 0; i < iterations; i++) {
+      term.echo(keystrokes[i % keystrokes.length]);
+    }
+    long threadId = Thread.currentThread().getId();
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++) {
+      term.echo(keystrokes[i % keystrokes.length]);
+    }
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+    assertEquals(2 * iterations, count[0]);
+    // Allocating even a single array per keystroke would account for at least 16 bytes each
+    assertTrue("Echoing " + iterations + " keystrokes allocated " + allocated + " bytes", allocated < iterations);
+  }
+
+  @Test
+  public void testWriteBufferSplitCharacter() {
+    TestTtyConnection conn = new TestTtyConnection(vertx);
+    TermImpl term = new TermImpl(vertx, conn);
+    byte[] euro = "\u20AC".getBytes(StandardCharsets.UTF_8);
+    term.write(Buffer.buffer().appendString("a").appendBytes(euro, 0, 1));
+    term.write(Buffer.buffer().appendBytes(euro, 1, 2).appendString("b"));
+    conn.assertWritten("a\u20ACb");
+  }
+}